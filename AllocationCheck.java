@@ -0,0 +1,134 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Class AllocationCheck is a part of "Operation Wawel" application.
+ * It makes sure the turn loop of the game does not allocate memory once it
+ * has warmed up. It plays seeded games from prepared commands and measures
+ * the bytes every turn allocates with the thread's allocation counter,
+ * separately for reading commands, moving enemies and whole turns with and
+ * without enemies around.
+ *
+ * Every check has a budget of bytes per turn. When any check goes over its
+ * budget, the program ends with exit status 1, so it can be run after every
+ * change: "java AllocationCheck".
+ *
+ * Reading commands and moving enemies must not allocate at all. Whole turns
+ * still create a few iterators over sets of items and build the messages
+ * that contain numbers (of injuries in a fight, of enemies in the help),
+ * so they are given small budgets of their own, to be lowered as these
+ * go away.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class AllocationCheck
+{
+    private static final int WARMUP_TURNS = 200_000;
+    private static final int TURNS = 200_000;
+
+    // commands of a steady game: walking around, looking, asking for help and mistakes
+    private static final String[] WALK = {"go north", "list room", "go down", "list player",
+        "back", "go east", "back", "help", "xyzzy", "collect nothing", "go nowhere", "go west"};
+
+    // the same, with attacks for the fights with the enemies
+    private static final String[] FIGHT = {"go north", "attack enemy gun1", "go down",
+        "attack enemy gun1", "back", "list room", "back", "attack enemy gun1", "help"};
+
+    private static com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+    private boolean failed;
+
+    public static void main(String[] args)
+    {
+        AllocationCheck check = new AllocationCheck();
+        check.runAll();
+        System.exit(check.failed ? 1 : 0);
+    }
+
+    /**
+     * Run all the checks and print their results.
+     */
+    public void runAll()
+    {
+        PrintStream out = System.out;
+        System.setOut(new SilentPrintStream());
+        try{
+            out.println(String.format("%-36s %10s %10s %8s", "check", "bytes/turn", "max", "budget"));
+
+            Parser parser = new Parser(new CannedInput(WALK));
+            for(String commandWord : Game.COMMAND_WORDS)
+            {
+                parser.addCommand(commandWord);
+            }
+            out.println(check("Parser.getCommand", 0, () -> parser.getCommand() == null));
+
+            GameConfig crowded = GameConfig.builder().enemyCount(100).build();
+            Game game = new Game(1, crowded, new CannedInput("quit"));
+            out.println(check("Game.moveCharacters, 100 enemies", 0, () -> {
+                game.moveCharacters();
+                return false;
+            }));
+
+            out.println(checkGames("turn without enemies", 64, GameConfig.builder().enemyCount(0).build(), WALK));
+            out.println(checkGames("turn with enemies", 64, new GameConfig(), FIGHT));
+        }
+        finally{
+            System.setOut(out);
+        }
+    }
+
+    /**
+     * Measure whole turns of games, starting a new game whenever one ends.
+     *
+     * @return String return the line of the report
+     */
+    private String checkGames(String name, long budget, GameConfig config, String[] commands)
+    {
+        CannedInput input = new CannedInput(commands);
+        Game[] game = {new Game(0, config, input)};
+        long[] seed = {0};
+        return check(name, budget, () -> {
+            if(game[0].playTurn()){
+                game[0] = new Game(++seed[0], config, input);
+                return true;    // the new game is not counted
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Warm a turn up, then measure the memory it allocates.
+     *
+     * @param String the name of the check
+     * @param long the most bytes a turn may allocate on average
+     * @param BooleanSupplier plays a turn, returns TRUE if the turn is not to be counted
+     * @return String return the line of the report
+     */
+    private String check(String name, long budget, BooleanSupplier turn)
+    {
+        // one loop warms up and measures, so the code measured is the code warmed up,
+        // and is not compiled again halfway through the measurement
+        long total = 0;
+        long max = 0;
+        int counted = 0;
+        for(int i = -WARMUP_TURNS; i < TURNS; i++)
+        {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            boolean skip = turn.getAsBoolean();
+            long bytes = threads.getCurrentThreadAllocatedBytes() - before;
+            if(i >= 0 && !skip){
+                total += bytes;
+                max = Math.max(max, bytes);
+                counted++;
+            }
+        }
+        double mean = counted == 0 ? 0 : (double)total / counted;
+        boolean passed = Math.round(mean) <= budget;    // a rare allocation by the virtual machine
+                                                        // itself is not counted against a turn
+        failed |= !passed;
+        return String.format("%-36s %10.1f %10d %8d  %s", name, mean, max, budget, passed ? "PASS" : "FAIL");
+    }
+}
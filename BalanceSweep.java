@@ -0,0 +1,145 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Class BalanceSweep is a part of "Operation Wawel" application.
+ * It measures how the balance of the game changes with its configuration.
+ * For every configuration it plays a number of simulated games with a
+ * GreedyPlayer, in parallel on all cores, and reports the win and death
+ * rates and the distribution of the games' lengths in turns.
+ *
+ * The configurations are either all the combinations of a few values of
+ * every parameter (grid search) or drawn at random from ranges of values
+ * (random search). Pursuit, hearing and reinforcements are left off in all
+ * of them, as the Simulation does not follow them.
+ *
+ * Arguments: "grid" or "random", games per configuration (1000 by default),
+ * number of random configurations (20 by default).
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class BalanceSweep
+{
+    private static final int MAX_TURNS = 1000;  // games longer than this are given up
+
+    // values of the parameters searched in the grid
+    private static final int[] HEALING_RATES = {1, 2, 4};
+    private static final int[] MAX_WEIGHTS = {45};
+    private static final int[] PLAYER_MAX_INJURIES = {3, 6};
+    private static final int[] ENEMY_MAX_INJURIES = {1, 2};
+    private static final int[] BULLETS = {5, 10};
+    private static final int[] CAPTURE_ODDS = {3, 5, 10};
+    private static final int[] ENEMY_COUNTS = {1, 2, 4};
+
+    public static void main(String[] args)
+    {
+        String mode = args.length > 0 ? args[0] : "grid";
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int samples = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        ArrayList<GameConfig> configs = mode.equals("random") ? randomConfigs(samples) : gridConfigs();
+        System.out.println("Configurations: " + configs.size() + ", games per configuration: " + games);
+        System.out.println("win%   death%  turns: mean   p10   p50   p90   p99  configuration");
+        for(GameConfig config : configs)
+        {
+            System.out.println(evaluate(config, games));
+        }
+    }
+
+    /**
+     * @return ArrayList<GameConfig> return all the combinations of the grid values
+     */
+    private static ArrayList<GameConfig> gridConfigs()
+    {
+        ArrayList<GameConfig> configs = new ArrayList<>();
+        for(int healingRate : HEALING_RATES)
+            for(int maxWeight : MAX_WEIGHTS)
+                for(int playerInjuries : PLAYER_MAX_INJURIES)
+                    for(int enemyInjuries : ENEMY_MAX_INJURIES)
+                        for(int bullets : BULLETS)
+                            for(int captureOdds : CAPTURE_ODDS)
+                                for(int enemies : ENEMY_COUNTS)
+                                {
+                                    configs.add(GameConfig.builder().healingRate(healingRate)
+                                                    .maxWeight(maxWeight).playerMaxInjuries(playerInjuries)
+                                                    .enemyMaxInjuries(enemyInjuries).bulletsPerWeapon(bullets)
+                                                    .captureOdds(captureOdds).enemyCount(enemies).build());
+                                }
+        return configs;
+    }
+
+    /**
+     * @param int the number of configurations
+     * @return ArrayList<GameConfig> return configurations drawn at random
+     */
+    private static ArrayList<GameConfig> randomConfigs(int samples)
+    {
+        SplittableRandom rand = new SplittableRandom(samples);
+        ArrayList<GameConfig> configs = new ArrayList<>();
+        for(int i = 0; i < samples; i++)
+        {
+            configs.add(GameConfig.builder().healingRate(1 + rand.nextInt(5))
+                            .maxWeight(39 + rand.nextInt(17)).playerMaxInjuries(1 + rand.nextInt(10))
+                            .enemyMaxInjuries(rand.nextInt(4)).bulletsPerWeapon(1 + rand.nextInt(15))
+                            .captureOdds(2 + rand.nextInt(10)).enemyCount(rand.nextInt(6)).build());
+        }
+        return configs;
+    }
+
+    /**
+     * Play the games of one configuration and summarise them.
+     *
+     * @param GameConfig the configuration
+     * @param int the number of games
+     * @return String return a line of the report
+     */
+    private static String evaluate(GameConfig config, int games)
+    {
+        int[] turns = new int[games];
+        boolean[] won = new boolean[games];
+        boolean[] died = new boolean[games];
+
+        IntStream.range(0, games).parallel().forEach(seed -> {
+            Simulation simulation = new Simulation(new WorldMap(new Game(seed, config)), seed);
+            GreedyPlayer player = new GreedyPlayer(seed);
+            simulation.begin();
+            while(!simulation.isFinished() && simulation.getTurns() < MAX_TURNS)
+            {
+                simulation.step(player.chooseAction(simulation));
+            }
+            turns[seed] = simulation.getTurns();
+            won[seed] = simulation.hasWon();
+            died[seed] = simulation.isDead();
+        });
+
+        int wins = 0;
+        int deaths = 0;
+        long total = 0;
+        for(int i = 0; i < games; i++)
+        {
+            wins += won[i] ? 1 : 0;
+            deaths += died[i] ? 1 : 0;
+            total += turns[i];
+        }
+        Arrays.sort(turns);
+
+        return String.format("%5.1f  %5.1f  %11.1f %5d %5d %5d %5d  %s",
+                    100.0 * wins / games, 100.0 * deaths / games, (double)total / games,
+                    percentile(turns, 10), percentile(turns, 50), percentile(turns, 90),
+                    percentile(turns, 99), config);
+    }
+
+    /**
+     * @param int[] sorted values
+     * @param int the percentile
+     * @return int return the value below which the given percent of the values lie
+     */
+    private static int percentile(int[] sorted, int percent)
+    {
+        int index = (int)Math.ceil(sorted.length * percent / 100.0) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
@@ -0,0 +1,484 @@
+import java.util.Arrays;
+
+/**
+ * Class Battle is a part of "Operation Wawel" application.
+ * It resolves a fight between many combatants in one room: squads of
+ * enemies on one side, one or more players on the other. Every fight of
+ * Game is a battle of two, the player and the enemy in the room, and
+ * Benchmarks measures the rounds of big ones.
+ *
+ * The state of the combatants is kept in arrays of numbers, one array per
+ * feature (the side, the bullets left, the injuries, the combatant aimed
+ * at), like in EnemyStore. A round follows the rules of Game's fight: the
+ * enemies fire first, then the players who are still alive. In a volley
+ * every living combatant of the side fires one bullet at their target at
+ * the same time, then the hits are counted and the combatants with too
+ * many injuries die. A combatant keeps their target until it dies; then
+ * they aim at a living combatant of the other side, chosen from a number
+ * depending only on the battle's seed, the round and the combatant. So a
+ * round takes a few operations per living combatant, however many there
+ * are, and a battle with the same seed plays the same.
+ *
+ * Interactive combatants (players reading commands) choose their targets
+ * and weapons themselves with order(...) before their volley, as Game does
+ * with the player's "attack" command, read between the volleys; those who
+ * have not given an order hold their fire, the others are not kept waiting.
+ * After every volley the bullets fired and the injuries received are
+ * written back to the enemies' store and to the players. The dead stay in
+ * the store: what happens to them (f.e. dropping their guns) is left to
+ * the game.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class Battle
+{
+    public static final int PLAYERS = 0;    // the sides of a battle
+    public static final int ENEMIES = 1;
+
+    private static final int SIDES = 2;
+    private static final int NONE = -1;
+
+    private EnemyStore store;
+    private long seed;              // the number the choice of targets depends on
+    private int round;
+
+    private int count;              // number of combatants
+    private int[] sides;            // the combatants' features, indexed by
+    private int[] ammo;             // the order they joined the battle in
+    private int[] injuries;
+    private int[] maxInjuries;
+    private int[] targets;          // the combatant aimed at, NONE if none
+    private int[] hits;             // hits received in this volley
+    private int[] shots;            // bullets fired in this volley
+    private int[] enemyIds;         // ID of the enemy in the store, NONE for players
+    private int[] positions;        // position of the enemy in the store, as last found
+    private Player[] players;       // the player, null for enemies
+    private Weapon[] weapons;       // the weapon the player fires, null if none
+    private boolean[] interactive;  // TRUE if the combatant is given orders
+    private boolean[] ordered;      // TRUE if the combatant was given an order for their next volley
+
+    private int[][] alive;          // side -> the living combatants of the side
+    private int[] aliveCounts;
+    private int[] slots;            // combatant -> position in the list of the living, NONE if dead
+    private int[] casualties;       // the combatants killed in the round, the last or the current one
+    private int casualtyCount;
+
+    /**
+     * Create a battle with no combatants.
+     *
+     * @param EnemyStore the store keeping the enemies of the game
+     * @param long the number the choice of targets depends on
+     */
+    public Battle(EnemyStore store, long seed)
+    {
+        this.store = store;
+        this.seed = seed;
+        int capacity = 8;
+        sides = new int[capacity];
+        ammo = new int[capacity];
+        injuries = new int[capacity];
+        maxInjuries = new int[capacity];
+        targets = new int[capacity];
+        hits = new int[capacity];
+        shots = new int[capacity];
+        enemyIds = new int[capacity];
+        positions = new int[capacity];
+        players = new Player[capacity];
+        weapons = new Weapon[capacity];
+        interactive = new boolean[capacity];
+        ordered = new boolean[capacity];
+        slots = new int[capacity];
+        casualties = new int[capacity];
+        alive = new int[SIDES][capacity];
+        aliveCounts = new int[SIDES];
+    }
+
+    /**
+     * Take all the combatants out of the battle, to start a new one with the
+     * same arrays. The seed stays.
+     */
+    public void clear()
+    {
+        count = 0;
+        round = 0;
+        casualtyCount = 0;
+        Arrays.fill(aliveCounts, 0);
+    }
+
+    /**
+     * Add an enemy to the battle, with the bullets and injuries they have now.
+     *
+     * @param int position of the enemy in the store
+     * @return int return the combatant's number in the battle
+     */
+    public int addEnemy(int index)
+    {
+        int combatant = add(ENEMIES, Math.max(0, store.getBullets(index)), store.getInjuries(index),
+                            store.getConfig().getEnemyMaxInjuries());
+        enemyIds[combatant] = store.getId(index);
+        positions[combatant] = index;
+        return combatant;
+    }
+
+    /**
+     * Add a player to the battle, firing the first useable weapon they carry.
+     *
+     * @param Player the player
+     * @param boolean TRUE if the player chooses their targets with order(...),
+     *                FALSE if they are chosen like the enemies'
+     * @return int return the combatant's number in the battle
+     */
+    public int addPlayer(Player player, boolean interactive)
+    {
+        Weapon weapon = player.getWeapon();
+        int combatant = add(PLAYERS, weapon == null ? 0 : weapon.getBullets(), player.getInjuriesNumber(),
+                            player.getMaxInjuriesNumber());
+        players[combatant] = player;
+        weapons[combatant] = weapon;
+        this.interactive[combatant] = interactive;
+        return combatant;
+    }
+
+    /**
+     * Give an interactive combatant the order to fire at a target in the
+     * next volley of their side.
+     *
+     * @param int the combatant
+     * @param int the target, a living combatant of the other side
+     * @param Weapon the weapon to fire, one the player carries; null to keep the current one
+     */
+    public void order(int combatant, int target, Weapon weapon)
+    {
+        if(!interactive[combatant]){
+            throw new IllegalArgumentException("combatant " + combatant + " is not given orders");
+        }
+        if(sides[target] == sides[combatant] || isDead(target)){
+            throw new IllegalArgumentException("combatant " + target + " cannot be aimed at");
+        }
+        if(weapon != null){
+            weapons[combatant] = weapon;
+            ammo[combatant] = weapon.getBullets();
+        }
+        targets[combatant] = target;
+        ordered[combatant] = true;
+    }
+
+    /**
+     * Resolve a round of the battle: the volley of the enemies, then the
+     * volley of the players.
+     *
+     * @return int return the number of bullets fired in the round
+     */
+    public int resolveRound()
+    {
+        return resolveVolley(ENEMIES) + resolveVolley(PLAYERS);
+    }
+
+    /**
+     * Resolve a volley of one side: every living combatant of the side with
+     * bullets and a target fires once, then the hits are counted, the dead
+     * are taken out of the battle and the bullets and injuries are written
+     * back. The enemies fire first in a round, so their volley starts a new one.
+     *
+     * @param int the side firing, PLAYERS or ENEMIES
+     * @return int return the number of bullets fired in the volley
+     */
+    public int resolveVolley(int side)
+    {
+        if(side == ENEMIES){
+            round++;
+            casualtyCount = 0;
+        }
+        int fired = 0;
+        int[] members = alive[side];
+        int[] opponents = alive[side ^ 1];
+        int opponentCount = aliveCounts[side ^ 1];
+        for(int i = 0; i < aliveCounts[side]; i++)
+        {
+            int combatant = members[i];
+            boolean holdFire = interactive[combatant] && !ordered[combatant];
+            ordered[combatant] = false;
+            if(ammo[combatant] == 0 || opponentCount == 0 || holdFire){
+                continue;
+            }
+            int target = targets[combatant];
+            if(target == NONE || slots[target] == NONE){    // the target has died
+                if(interactive[combatant]){
+                    continue;
+                }
+                target = opponents[choose(combatant, opponentCount)];
+                targets[combatant] = target;
+            }
+            ammo[combatant]--;
+            shots[combatant]++;
+            hits[target]++;
+            fired++;
+        }
+
+        settle(side);
+        settle(side ^ 1);
+        return fired;
+    }
+
+    /**
+     * Resolve rounds until one of the sides is dead or nobody fires any more.
+     * Interactive combatants are not waited for, so they hold their fire
+     * after the first round unless they are given orders meanwhile.
+     *
+     * @param int the most rounds to resolve
+     * @return int return the number of rounds resolved
+     */
+    public int resolve(int maxRounds)
+    {
+        int rounds = 0;
+        while(rounds < maxRounds && !isOver())
+        {
+            rounds++;
+            if(resolveRound() == 0){
+                break;
+            }
+        }
+        return rounds;
+    }
+
+    /**
+     * @return boolean return TRUE if all the combatants of a side are dead, FALSE otherwise
+     */
+    public boolean isOver()
+    {
+        return aliveCounts[PLAYERS] == 0 || aliveCounts[ENEMIES] == 0;
+    }
+
+    /**
+     * @return int return the number of combatants
+     */
+    public int size()
+    {
+        return count;
+    }
+
+    /**
+     * @return int return the number of rounds resolved so far
+     */
+    public int getRound()
+    {
+        return round;
+    }
+
+    /**
+     * @param int a side, PLAYERS or ENEMIES
+     * @return int return the number of living combatants of the side
+     */
+    public int getAliveCount(int side)
+    {
+        return aliveCounts[side];
+    }
+
+    /**
+     * @return int return the number of combatants killed in the last round, or in the one going on
+     */
+    public int getCasualtyCount()
+    {
+        return casualtyCount;
+    }
+
+    /**
+     * @param int position on the list of the killed, less than getCasualtyCount()
+     * @return int return a combatant killed in the last round
+     */
+    public int getCasualty(int position)
+    {
+        return casualties[position];
+    }
+
+    /**
+     * @return int return the side of the combatant, PLAYERS or ENEMIES
+     */
+    public int getSide(int combatant)
+    {
+        return sides[combatant];
+    }
+
+    /**
+     * @return int return the bullets the combatant has left to fire
+     */
+    public int getAmmo(int combatant)
+    {
+        return ammo[combatant];
+    }
+
+    /**
+     * @return int return the number of injuries of the combatant
+     */
+    public int getInjuries(int combatant)
+    {
+        return injuries[combatant];
+    }
+
+    /**
+     * @return int return the combatant aimed at, -1 if none
+     */
+    public int getTarget(int combatant)
+    {
+        return targets[combatant];
+    }
+
+    /**
+     * @return boolean return TRUE if the combatant is dead, FALSE otherwise
+     */
+    public boolean isDead(int combatant)
+    {
+        return slots[combatant] == NONE;
+    }
+
+    /**
+     * @return int return the ID of the enemy, -1 if the combatant is a player
+     */
+    public int getEnemyId(int combatant)
+    {
+        return enemyIds[combatant];
+    }
+
+    /**
+     * @return Player return the player, null if the combatant is an enemy
+     */
+    public Player getPlayer(int combatant)
+    {
+        return players[combatant];
+    }
+
+    /**
+     * Write the last volley back to the living combatants of a side and
+     * take those with too many injuries out of the battle.
+     *
+     * @param int the side
+     */
+    private void settle(int side)
+    {
+        // from the end, so that the last living combatant put in the
+        // place of a dead one has already been counted
+        for(int i = aliveCounts[side] - 1; i >= 0; i--)
+        {
+            int combatant = alive[side][i];
+            if(shots[combatant] > 0 || hits[combatant] > 0){
+                writeBack(combatant);
+            }
+            if(injuries[combatant] > maxInjuries[combatant]){
+                kill(combatant);
+            }
+        }
+    }
+
+    /**
+     * Add a combatant, alive unless they have too many injuries already.
+     */
+    private int add(int side, int bullets, int injured, int limit)
+    {
+        if(count == sides.length){
+            int capacity = 2 * count;
+            sides = Arrays.copyOf(sides, capacity);
+            ammo = Arrays.copyOf(ammo, capacity);
+            injuries = Arrays.copyOf(injuries, capacity);
+            maxInjuries = Arrays.copyOf(maxInjuries, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+            hits = Arrays.copyOf(hits, capacity);
+            shots = Arrays.copyOf(shots, capacity);
+            enemyIds = Arrays.copyOf(enemyIds, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+            players = Arrays.copyOf(players, capacity);
+            weapons = Arrays.copyOf(weapons, capacity);
+            interactive = Arrays.copyOf(interactive, capacity);
+            ordered = Arrays.copyOf(ordered, capacity);
+            slots = Arrays.copyOf(slots, capacity);
+            casualties = Arrays.copyOf(casualties, capacity);
+        }
+        int combatant = count++;
+        sides[combatant] = side;
+        ammo[combatant] = bullets;
+        injuries[combatant] = injured;
+        maxInjuries[combatant] = limit;
+        targets[combatant] = NONE;
+        enemyIds[combatant] = NONE;
+        if(injured > limit){
+            slots[combatant] = NONE;
+        }
+        else{
+            if(aliveCounts[side] == alive[side].length){
+                alive[side] = Arrays.copyOf(alive[side], 2 * aliveCounts[side]);
+            }
+            slots[combatant] = aliveCounts[side];
+            alive[side][aliveCounts[side]++] = combatant;
+        }
+        return combatant;
+    }
+
+    /**
+     * Write the bullets fired and the injuries received in the volley back to
+     * the enemy or the player, and give a player out of bullets in a weapon
+     * chosen for them the next useable one they carry.
+     */
+    private void writeBack(int combatant)
+    {
+        int fired = shots[combatant];
+        int received = hits[combatant];
+        injuries[combatant] += received;
+        if(enemyIds[combatant] != NONE){
+            int index = positions[combatant];
+            if(index >= store.size() || store.getId(index) != enemyIds[combatant]){
+                // enemies were removed from the store since
+                index = store.indexOf(enemyIds[combatant]);
+                positions[combatant] = index;
+            }
+            if(index >= 0){
+                store.useBullets(index, fired);
+                store.receiveInjuries(index, received);
+            }
+        }
+        else{
+            Player player = players[combatant];
+            if(fired > 0){
+                weapons[combatant].bullets -= fired;
+            }
+            for(int i = 0; i < received; i++)
+            {
+                player.receiveInjury();
+            }
+            if(ammo[combatant] == 0 && !interactive[combatant]){
+                weapons[combatant] = player.getWeapon();
+                ammo[combatant] = weapons[combatant] == null ? 0 : weapons[combatant].getBullets();
+            }
+        }
+        shots[combatant] = 0;
+        hits[combatant] = 0;
+    }
+
+    /**
+     * Take a combatant out of the list of the living of their side, putting
+     * the last one in their place.
+     */
+    private void kill(int combatant)
+    {
+        int side = sides[combatant];
+        int slot = slots[combatant];
+        int last = alive[side][--aliveCounts[side]];
+        alive[side][slot] = last;
+        slots[last] = slot;
+        slots[combatant] = NONE;
+        casualties[casualtyCount++] = combatant;
+    }
+
+    /**
+     * @param int the combatant choosing a target
+     * @param int the number of living combatants to choose from
+     * @return int return the position of the chosen one on their side's list of the living
+     */
+    private int choose(int combatant, int choices)
+    {
+        long bits = seed + round * 0xBF58476D1CE4E5B9L + (combatant + 1) * 0x9E3779B97F4A7C15L;
+        bits = (bits ^ (bits >>> 33)) * 0xFF51AFD7ED558CCDL;    // mixed like in SplittableRandom
+        bits = (bits ^ (bits >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        bits ^= bits >>> 33;
+        return (int)(((bits >>> 32) * choices) >>> 32);
+    }
+}
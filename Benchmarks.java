@@ -0,0 +1,267 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.function.LongSupplier;
+
+/**
+ * Class Benchmarks is a part of "Operation Wawel" application.
+ * It measures the hot paths of the game: parsing commands, looking up
+ * command words, finding and removing items in rooms, describing rooms,
+ * moving from 1 to 100 000 enemies, fight rounds, battle rounds of 10 to
+ * 100 000 enemies and complete seeded games played from prepared commands.
+ *
+ * Every benchmark is first run for a while to let the JIT compiler do its
+ * work, then measured over a number of iterations. For every benchmark the
+ * mean time of an operation, the throughput and the number of bytes
+ * allocated per operation (read from the thread's allocation counter) are
+ * reported. The game's own messages are thrown away while it runs.
+ *
+ * Arguments: part of the names of the benchmarks to run (all by default),
+ * milliseconds of every iteration (1000 by default).
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class Benchmarks
+{
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int ITERATIONS = 5;
+    private static final int FIGHT_ROUNDS = 100;    // rounds of every measured fight
+    private static final int ROOM_ITEMS = 100;      // items in the measured room
+
+    // commands of the measured games, repeated until the game ends
+    private static final String[] SCRIPT = {"go north", "list room", "go down", "go west",
+        "collect raphael", "collect rembrandt", "collect key", "back", "attack enemy gun1",
+        "go up", "use key", "go east", "open chest", "collect leonardo", "back", "go west",
+        "help", "go east", "go south", "drop gun1", "quit"};
+
+    private static com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+    private static long sink;       // results of the operations, so that they are not optimised away
+
+    private String filter;
+    private long iterationNanos;
+    private PrintStream out;
+
+    public static void main(String[] args)
+    {
+        String filter = args.length > 0 ? args[0] : "";
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+        new Benchmarks(filter, millis).runAll();
+    }
+
+    /**
+     * @param String part of the names of the benchmarks to run
+     * @param long milliseconds of every iteration
+     */
+    public Benchmarks(String filter, long millis)
+    {
+        this.filter = filter;
+        iterationNanos = millis * 1_000_000;
+    }
+
+    /**
+     * Run all the benchmarks whose names contain the filter.
+     */
+    public void runAll()
+    {
+        out = System.out;
+        System.setOut(new SilentPrintStream());
+        try{
+            out.println(String.format("%-32s %14s %14s %12s", "benchmark", "ns/op", "ops/s", "bytes/op"));
+            benchmarkParser();
+            benchmarkCommandWords();
+            benchmarkRoom();
+            benchmarkMoveCharacters();
+            benchmarkFight();
+            benchmarkBattle();
+            benchmarkGames();
+        }
+        finally{
+            System.setOut(out);
+        }
+    }
+
+    private void benchmarkParser()
+    {
+        Parser parser = new Parser(new CannedInput(SCRIPT));
+        for(String commandWord : Game.COMMAND_WORDS)
+        {
+            parser.addCommand(commandWord);
+        }
+        measure("Parser.getCommand", 1, () -> parser.getCommand().hashCode());
+    }
+
+    private void benchmarkCommandWords()
+    {
+        CommandWords words = new CommandWords();
+        for(String commandWord : Game.COMMAND_WORDS)
+        {
+            words.addCommand(commandWord);
+        }
+        String known = new String("attack");    // not the same object as the command word
+        measure("CommandWords.isCommand known", 1, () -> words.isCommand(known) ? 1 : 0);
+        measure("CommandWords.isCommand unknown", 1, () -> words.isCommand("xyzzy") ? 1 : 0);
+    }
+
+    private void benchmarkRoom()
+    {
+        Room room = new Room("in the storeroom", 0);
+        for(int i = 0; i < ROOM_ITEMS; i++)
+        {
+            room.addItem(new Item("item" + i, "An item.", 1));
+        }
+        String last = "item" + (ROOM_ITEMS - 1);
+        Item lastItem = room.getItem(last);
+        measure("Room.getItem", 1, () -> room.getItem(last).getWeight());
+        measure("Room.removeItem", 1, () -> {
+            room.removeItem(last);
+            room.addItem(lastItem);     // back at the end of the room's items
+            return 1;
+        });
+
+        Room mainChamber = new Game(1, new GameConfig(), new CannedInput("quit")).getRooms().get(2);
+        measure("Room.getLongDescription", 1, () -> mainChamber.getLongDescription().length());
+    }
+
+    private void benchmarkMoveCharacters()
+    {
+        for(int enemies = 1; enemies <= 100_000; enemies *= 10)
+        {
+            if(!selected("Game.moveCharacters " + enemies)){
+                continue;
+            }
+            GameConfig config = GameConfig.builder().enemyCount(enemies).build();
+            Game game = new Game(1, config, new CannedInput("quit"));
+            measure("Game.moveCharacters " + enemies, 1, () -> {
+                game.moveCharacters();
+                return game.getEnemies().size();
+            });
+        }
+        if(selected("Game.moveCharacters pursuit 100000")){
+            GameConfig config = GameConfig.builder().enemyCount(100_000).pursuit(true).build();
+            Game game = new Game(1, config, new CannedInput("quit"));
+            measure("Game.moveCharacters pursuit 100000", 1, () -> {
+                game.moveCharacters();
+                return game.getEnemies().size();
+            });
+        }
+    }
+
+    private void benchmarkFight()
+    {
+        // every attack hits, the enemy dies with the last bullet, the player survives
+        GameConfig config = GameConfig.builder().playerMaxInjuries(FIGHT_ROUNDS)
+                .enemyMaxInjuries(FIGHT_ROUNDS - 1).bulletsPerWeapon(FIGHT_ROUNDS).enemyCount(1).build();
+        CannedInput input = new CannedInput("attack enemy gun1");
+        measure("Game creation", 1, () -> new Game(1, config, input).getRooms().size());
+        measure("Game.fight round", FIGHT_ROUNDS, () -> {
+            Game game = new Game(1, config, input);
+            Enemy enemy = game.getEnemies().get(0);
+            return game.fight(game.getPlayer(), enemy) ? 1 : 0;
+        });
+    }
+
+    private void benchmarkBattle()
+    {
+        // nobody dies or runs out of bullets, every round is a full one
+        int unlimited = Integer.MAX_VALUE;
+        for(int enemies = 10; enemies <= 100_000; enemies *= 100)
+        {
+            if(!selected("Battle.resolveRound " + enemies)){
+                continue;
+            }
+            GameConfig config = GameConfig.builder().playerMaxInjuries(unlimited)
+                .enemyMaxInjuries(unlimited).bulletsPerWeapon(unlimited).enemyCount(enemies).build();
+            Game game = new Game(1, config, new CannedInput("quit"));
+            EnemyStore store = game.getEnemies();
+            Battle battle = new Battle(store, 1);
+            for(int i = 0; i < store.size(); i++)
+            {
+                battle.addEnemy(i);
+            }
+            for(int i = 0; i < Math.max(1, enemies / 10); i++)     // a player per ten enemies
+            {
+                Player player = new Player(game.getPlayer().getCurrentRoom(), config);
+                player.addItem(new Weapon("gun1", "A gun.", 3, unlimited));
+                battle.addPlayer(player, false);
+            }
+            measure("Battle.resolveRound " + enemies, 1, () -> battle.resolveRound());
+        }
+    }
+
+    private void benchmarkGames()
+    {
+        GameConfig config = new GameConfig();
+        CannedInput input = new CannedInput(SCRIPT);
+        long[] seed = new long[1];
+        measure("Game.play seeded", 1, () -> {
+            Game game = new Game(seed[0]++, config, input);
+            game.play();
+            return game.getPlayer().getInjuriesNumber();
+        });
+    }
+
+    /**
+     * @return boolean return TRUE if the benchmark is to be run, FALSE otherwise
+     */
+    private boolean selected(String name)
+    {
+        return name.contains(filter);
+    }
+
+    /**
+     * Measure an operation and print the results.
+     *
+     * @param String the name of the benchmark
+     * @param int the number of operations a single call performs
+     * @param LongSupplier performs the operations
+     */
+    private void measure(String name, int operations, LongSupplier operation)
+    {
+        if(!selected(name)){
+            return;
+        }
+        for(int i = 0; i < WARMUP_ITERATIONS; i++)
+        {
+            iteration(operation, operations);
+        }
+        double nanos = 0;
+        double bytes = 0;
+        for(int i = 0; i < ITERATIONS; i++)
+        {
+            double[] result = iteration(operation, operations);
+            nanos += result[0];
+            bytes += result[1];
+        }
+        nanos /= ITERATIONS;
+        bytes /= ITERATIONS;
+        out.println(String.format("%-32s %14.1f %14.0f %12.1f", name, nanos, 1e9 / nanos, bytes));
+    }
+
+    /**
+     * Call the operation repeatedly for the length of an iteration.
+     *
+     * @return double[] return nanoseconds and bytes allocated per operation
+     */
+    private double[] iteration(LongSupplier operation, int operations)
+    {
+        long calls = 0;
+        long bytes = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        long end = start + iterationNanos;
+        long now;
+        do
+        {
+            for(int i = 0; i < 16; i++)     // check the clock once in a while only
+            {
+                sink += operation.getAsLong();
+            }
+            calls += 16;
+            now = System.nanoTime();
+        }
+        while(now < end);
+        bytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+        double count = (double)calls * operations;
+        return new double[] {(now - start) / count, bytes / count};
+    }
+}
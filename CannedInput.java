@@ -0,0 +1,63 @@
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Class CannedInput is a part of "Operation Wawel" application.
+ * It is a stream of prepared commands, given to a Parser instead of the
+ * terminal in automated games. The commands are repeated over and over,
+ * so the stream never ends.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class CannedInput extends InputStream
+{
+    private byte[] script;
+    private int position;
+
+    /**
+     * Create the stream.
+     *
+     * @param String[] the commands, one line each
+     */
+    public CannedInput(String... commands)
+    {
+        StringBuilder text = new StringBuilder();
+        for(String command : commands)
+        {
+            text.append(command).append('\n');
+        }
+        script = text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return int return the next byte of the commands
+     */
+    public int read()
+    {
+        int value = script[position];
+        position = (position + 1) % script.length;
+        return value;
+    }
+
+    /**
+     * Read the commands into an array, as many bytes as fit.
+     *
+     * @param byte[] the array
+     * @param int the first index to fill
+     * @param int the number of bytes to read
+     * @return int return the number of bytes read
+     */
+    public int read(byte[] buffer, int offset, int length)
+    {
+        int copied = 0;
+        while(copied < length)
+        {
+            int chunk = Math.min(length - copied, script.length - position);
+            System.arraycopy(script, position, buffer, offset + copied, chunk);
+            copied += chunk;
+            position = (position + chunk) % script.length;
+        }
+        return copied;
+    }
+}
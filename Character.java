@@ -1,6 +1,9 @@
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.ArrayList;
 import java.util.Random;
+import java.util.Set;
+import java.util.Collections;
 
 /**
  * Class Character is a part of "Operation Wawel" application.
@@ -17,26 +20,35 @@ public class Character
     protected int maxInjuries;      // maximum number of injuries survivable
     
     // number of moves a character has to perform to heal one injury
-    protected static final int HEALING_RATE = 2;  
+    protected int healingRate;
     
-    protected int movesToHeal;      // number of moves after the last healing
+    protected int movesToHeal;      // number of moves after the last healing, as of
+                                    // the last time the healing was worked out
+    protected int moves;            // moves made since then
     protected int carriedWeight;
-    private static final int MAX_WEIGHT = 45;    // maximum weight a character can carry
-                                                 // in kilograms, we assume that every 
-                                                 // character has the same average
-                                                 // maximum weight they can carry
+    protected int maxWeight;        // maximum weight a character can carry
+                                    // in kilograms, we assume that every 
+                                    // character has the same average
+                                    // maximum weight they can carry
+    protected RoomTriggers triggers;    // the triggers set off by the character, null if none
     
     /**
      * Constructor for objects of class Character
+     * 
+     * @param Room the room the character starts in
+     * @param GameConfig the configuration of the game
      */
-    public Character(Room startingRoom)
+    public Character(Room startingRoom, GameConfig config)
     {
         currentRoom = startingRoom;
-        items = new HashSet<>();
+        items = new LinkedHashSet<>();
         carriedWeight = 0;      // the character does not hold any items
         injuryCounter = 0;
-        maxInjuries = 1;    // standard for every character, may be overwritten by a subclass
+        maxInjuries = config.getEnemyMaxInjuries();     // standard for every character,
+                                                        // may be overwritten by a subclass
         movesToHeal = 0;
+        healingRate = config.getHealingRate();
+        maxWeight = config.getMaxWeight();
     }
     
     /**
@@ -57,14 +69,33 @@ public class Character
     public void changeRoom(String direction)
     {
         Room nextRoom = currentRoom.getExit(direction);
+        trigger(RoomTriggers.Kind.EXIT, currentRoom, null);
         currentRoom = nextRoom;     // move to the next room
-        
-        if(injuryCounter > 0){  // no need to count the moves
-                                // to healing if there are no injuries
-            movesToHeal++;
-            if(canHeal()){
-                heal();     // heal injury
-            }
+        moves++;    // the injuries it heals are worked out when next read
+        trigger(RoomTriggers.Kind.ENTER, currentRoom, null);
+    }
+    
+    /**
+     * Let the character set off the triggers attached to the rooms.
+     * 
+     * @param RoomTriggers the triggers of the game, null for none
+     */
+    public void setTriggers(RoomTriggers triggers)
+    {
+        this.triggers = triggers;
+    }
+    
+    /**
+     * Set off the triggers of a room reacting to what the character did there.
+     * 
+     * @param RoomTriggers.Kind the kind of event
+     * @param Room the room
+     * @param Item the item dropped, null when entering or leaving
+     */
+    protected void trigger(RoomTriggers.Kind kind, Room room, Item item)
+    {
+        if(triggers != null){
+            triggers.fire(kind, this, room, item);
         }
     }
     
@@ -102,6 +133,20 @@ public class Character
         weapon.use(character);
     }
     
+    /**
+     * Attack the specified character with the first useable weapon
+     * the character is carrying, if there is one.
+     * 
+     * @param Character the character to be attacked
+     */
+    public void attack(Character character)
+    {
+        Weapon weapon = getWeapon();
+        if(weapon != null){
+            attack(character, weapon);
+        }
+    }
+    
     /**
      * Get a weapon from the list of character's items.
      * Returns a useable weapon that was found first.
@@ -170,6 +215,7 @@ public class Character
      */
     public int getInjuriesNumber()
     {
+        heal();
         return injuryCounter;
     }
     
@@ -188,34 +234,39 @@ public class Character
      */
     public void receiveInjury()
     {
+        heal();
         injuryCounter++;
     }
     
     /**
-     * Heal an injury.
+     * Heal the injuries the moves made since the last time have healed,
+     * the same way as if every move was counted when it was made: an injury
+     * heals every healingRate moves made while injured, and the moves made
+     * without injuries do not count.
      */
     protected void heal()
     {
-        if(injuryCounter > 0){
-            injuryCounter--;
-        }
-        movesToHeal = 0;
-    }
-    
-    /**
-     * Check if the character can already heal, or do they
-     * have to perform more moves.
-     * 
-     * @return boolean return TRUE if the character can get healed, FALSE otherwise
-     */
-    protected boolean canHeal()
-    {
-        if(movesToHeal == HEALING_RATE){
-            return true;
+        if(moves == 0){
+            return;
         }
-        else{
-            return false;
+        if(injuryCounter > 0){
+            if(healingRate <= 0){   // the injuries never heal
+                movesToHeal += moves;
+            }
+            else{
+                int counted = movesToHeal + moves;
+                int healed = counted / healingRate;
+                if(healed >= injuryCounter){
+                    injuryCounter = 0;
+                    movesToHeal = 0;
+                }
+                else{
+                    injuryCounter -= healed;
+                    movesToHeal = counted - healed * healingRate;
+                }
+            }
         }
+        moves = 0;
     }
     
     /**
@@ -225,6 +276,7 @@ public class Character
      */
     public boolean isDead()
     {
+        heal();
         if(injuryCounter > maxInjuries){    // the current number of injuries has to exceed
                                             // the maximum number of injuries for the character
                                             // to be dead
@@ -248,6 +300,7 @@ public class Character
     {
         items.add(item);
         increaseCarriedWeight(item.getWeight());
+        carry(item);
     }
     
     /**
@@ -262,6 +315,13 @@ public class Character
         for(Item item : items)
         {
             currentRoom.addItem(item);
+            putDown(item);
+        }
+        if(triggers != null){
+            for(Item item : items)
+            {
+                trigger(RoomTriggers.Kind.ITEM_DROPPED, currentRoom, item);
+            }
         }
         items.clear();
         carriedWeight = 0;
@@ -273,12 +333,12 @@ public class Character
      * Use when the character is captured.
      * 
      * @param ArrayList<Room> the list of rooms to which the items will be put
+     * @param Random the generator used to choose the rooms
      */
-    public void dropAllItems(ArrayList<Room> rooms)
+    public void dropAllItems(ArrayList<Room> rooms, Random rand)
     {
         // if the character was captured
         // drop all their items in random rooms
-        Random rand = new Random();
         int roomIndex;
         for(Item item : items)
         {
@@ -286,6 +346,8 @@ public class Character
             Room destinationRoom = rooms.get(roomIndex);
             
             destinationRoom.addItem(item);
+            putDown(item);
+            trigger(RoomTriggers.Kind.ITEM_DROPPED, destinationRoom, item);
         }
         items.clear();
         carriedWeight = 0;
@@ -310,6 +372,38 @@ public class Character
                         // with the name "itemName"
     }
     
+    /**
+     * Return all the items the character is carrying. The returned set
+     * cannot be modified.
+     * 
+     * @return Set<Item> return the carried items
+     */
+    public Set<Item> getItems()
+    {
+        return Collections.unmodifiableSet(items);
+    }
+    
+    /**
+     * Return the number of moves made since the character last healed.
+     * 
+     * @return int return the number of moves counted towards healing
+     */
+    public int getMovesToHeal()
+    {
+        heal();
+        return movesToHeal;
+    }
+    
+    /**
+     * Return the total weight of the items the character is carrying.
+     * 
+     * @return int return the carried weight
+     */
+    public int getCarriedWeight()
+    {
+        return carriedWeight;
+    }
+    
     /**
      * Check if the character can pick up an item with the specified weight.
      * 
@@ -318,7 +412,7 @@ public class Character
      */
     protected boolean canLift(int weight)
     {
-        if(carriedWeight + weight <= MAX_WEIGHT)
+        if(carriedWeight + weight <= maxWeight)
             return true;
         else
             return false;
@@ -344,6 +438,51 @@ public class Character
         carriedWeight -= weight;
     }
     
+    /**
+     * Start carrying an item. A carried container tells the character
+     * when its contents change, so that the carried weight stays right.
+     * 
+     * @param Item the item collected
+     */
+    protected void carry(Item item)
+    {
+        if(item instanceof Container){
+            ((Container)item).setCarrier(this);
+        }
+    }
+    
+    /**
+     * Stop carrying an item.
+     * 
+     * @param Item the item dropped
+     */
+    protected void putDown(Item item)
+    {
+        if(item instanceof Container){
+            ((Container)item).setCarrier(null);
+        }
+    }
+    
+    /**
+     * Tell the character an item has been put in a container they carry,
+     * directly or in other containers. The weight is counted separately.
+     * 
+     * @param Item the item, with all its contents
+     */
+    protected void itemPutIn(Item item)
+    {
+    }
+    
+    /**
+     * Tell the character an item has been taken out of a container they
+     * carry, directly or in other containers. The weight is counted separately.
+     * 
+     * @param Item the item, with all its contents
+     */
+    protected void itemTakenOut(Item item)
+    {
+    }
+    
     /**
      * Enumeration class MovePossibility - used to describe
      * the possibilities of a move.
@@ -38,8 +38,8 @@ public class CommandWords
      */
     public boolean isCommand(String aString)
     {
-        for(String command : validCommands){
-            if(command.equals(aString))
+        for(int i = 0; i < validCommands.size(); i++){    // no iterator, called every turn
+            if(validCommands.get(i).equals(aString))
                 return true;
         }
         // if we get here, the string was not found in the commands
@@ -52,7 +52,8 @@ public class CommandWords
     public void showAll() 
     {
         for(String command: validCommands) {
-            System.out.print(command + "  ");
+            System.out.print(command);
+            System.out.print("  ");
         }
         System.out.println();
     }
@@ -0,0 +1,224 @@
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.Collections;
+
+/**
+ * Class Container is a part of "Operation Wawel" application.
+ * It extends class Tool with features and behaviours of items that
+ * hold other items, f.e. chests, bags or crates. Containers can be put
+ * in other containers. Using a container opens it: all its contents drop
+ * out in the room.
+ *
+ * The weight of a container is its own weight and the weight of all its
+ * contents, however deep they are put. It is kept up to date whenever an
+ * item is put in or taken out of the container or of any container in it,
+ * and so is the weight carried by the character carrying the container.
+ * So reading the weight of a container takes a constant time, however
+ * many items it holds. An item is in one container at a time, and is only
+ * put in a carried container if the character can lift it.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class Container extends Tool
+{
+    private boolean isOpen;
+    private HashSet<Item> contents;
+    private int contentsWeight;     // the weight of all the contents, the nested ones too
+    private Character carrier;      // the character carrying this container, null if none
+
+    /**
+     * Constructor for objects of class Container
+     *
+     * @param String name of the container
+     * @param String description of the container
+     * @param int weight of the empty container
+     */
+    public Container(String name, String description, int weight)
+    {
+        super(name,description,weight);
+        contents = new LinkedHashSet<>();
+        isOpen = false;
+    }
+
+    /**
+     * Use the container, i.e. open it. When the container is open, all its
+     * contents drop out in the room. The method will only be executed
+     * if the provided parameter is of type Room. The room provided should
+     * be the one in which the container is.
+     *
+     * @param Object object to work with (must be of type Room)
+     */
+    public void use(Object object)
+    {
+        if(object instanceof Room){     // a room has to be given as the parameter
+            Room room = (Room)object;
+            if(!isOpen)     // a container cannot be opened twice
+            {
+                emptyInto(room);
+                isOpen = true;
+                System.out.println("The " + getName() + " is now open.");
+            }
+            else
+                System.out.println("You have already opened this " + getName() + "!");
+        }
+    }
+
+    /**
+     * Put all the contents of the container in a room.
+     *
+     * @param Room the room
+     */
+    public void emptyInto(Room room)
+    {
+        Character holder = getCarrier();
+        for(Item item : contents)
+        {
+            room.addItem(item);
+            item.setContainer(null);
+            if(holder != null){
+                holder.itemTakenOut(item);
+            }
+        }
+        contents.clear();
+        changeWeight(-contentsWeight);
+    }
+
+    /**
+     * Check if the container has already been opened.
+     *
+     * @return boolean return TRUE if the container is open, FALSE otherwise
+     */
+    public boolean isOpen()
+    {
+        return isOpen;
+    }
+
+    /**
+     * Return the items stored in the container. The returned set
+     * cannot be modified, use addItem(...) and removeItem(...) instead.
+     *
+     * @return Set<Item> return the contents of the container
+     */
+    public Set<Item> getContents()
+    {
+        return Collections.unmodifiableSet(contents);
+    }
+
+    /**
+     * Add the item to the container's contents, i.e. put the item in
+     * the container. An item in another container is taken out of it
+     * first. A container cannot be put in itself, nor in a container it
+     * holds. The item must not be carried by a character directly.
+     *
+     * @param Item the item to be added
+     * @return boolean return TRUE if the item is in the container, FALSE if it
+     *                  was not put in, because the character carrying the
+     *                  container could not lift it
+     * @throws IllegalArgumentException if the item is this container or one it is in
+     */
+    public boolean addItem(Item item)
+    {
+        if(item.getContainer() == this){
+            return true;
+        }
+        for(Container outer = this; outer != null; outer = outer.getContainer())
+        {
+            if(outer == item){
+                throw new IllegalArgumentException(getName() + " is in " + item.getName());
+            }
+        }
+        Character lifting = getCarrier();
+        Container previous = item.getContainer();
+        if(lifting != null && (previous == null || previous.getCarrier() != lifting)
+            && !lifting.canLift(item.getWeight())){
+            return false;   // too heavy for the character, unless they carry the item already
+        }
+        if(previous != null){
+            previous.removeItem(item);
+        }
+        contents.add(item);
+        item.setContainer(this);
+        changeWeight(item.getWeight());
+        if(lifting != null){
+            lifting.itemPutIn(item);
+        }
+        return true;
+    }
+
+    /**
+     * Take the item out of the container.
+     *
+     * @param Item the item to be taken out
+     * @return boolean return TRUE if the item was in the container, FALSE otherwise
+     */
+    public boolean removeItem(Item item)
+    {
+        if(!contents.remove(item)){
+            return false;
+        }
+        item.setContainer(null);
+        changeWeight(-item.getWeight());
+        Character holder = getCarrier();
+        if(holder != null){
+            holder.itemTakenOut(item);
+        }
+        return true;
+    }
+
+    /**
+     * @return int return the weight of the container with all its contents
+     */
+    public int getWeight()
+    {
+        return super.getWeight() + contentsWeight;
+    }
+
+    /**
+     * Tell the container which character carries it, so that the weight
+     * the character carries changes with the container's contents, and the
+     * character knows what is put in and taken out.
+     *
+     * @param Character the character, null when the container is put down
+     */
+    void setCarrier(Character carrier)
+    {
+        this.carrier = carrier;
+    }
+
+    /**
+     * @return Character return the character carrying the outermost container
+     *                  this one is in, or this one, null if none
+     */
+    private Character getCarrier()
+    {
+        Container outermost = this;
+        while(outermost.getContainer() != null)
+        {
+            outermost = outermost.getContainer();
+        }
+        return outermost.carrier;
+    }
+
+    /**
+     * Change the weight of the contents of this container and of all the
+     * containers it is in, and the weight carried by the character carrying
+     * the outermost one.
+     */
+    private void changeWeight(int change)
+    {
+        Container container = this;
+        while(true)
+        {
+            container.contentsWeight += change;
+            if(container.getContainer() == null){
+                break;
+            }
+            container = container.getContainer();
+        }
+        if(container.carrier != null){
+            container.carrier.increaseCarriedWeight(change);
+        }
+    }
+}
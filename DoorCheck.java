@@ -0,0 +1,301 @@
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Class DoorCheck is a part of "Operation Wawel" application.
+ * It makes sure the doors open exactly when the keys given include all the
+ * keys the doors need. DoorLocks keeps the states of the doors and the keys
+ * they need in sets of bits; the check locks the doors of random buildings
+ * with random sets of keys, keeps the sets beside it in plain arrays, and
+ * compares the doors opened with the rule: a door opens if it is locked
+ * and every key it needs is given. A closed door needing no key is not
+ * locked, so no keys open it.
+ *
+ * The doors are opened room by room, as the "use" command does, and all at
+ * once with DoorLocks.unlockAll(...); both must open the same doors, and
+ * both rooms of a door must read it open and tell their exit listeners
+ * once. Then a game is played with a door needing two keys, which must
+ * stay closed until the player carries both; and the same door is given
+ * to the Simulation, the WorldValidator and the Solver through a WorldMap,
+ * which must keep it closed without both keys too. When anything differs,
+ * the program ends with exit status 1, so it can be run after every change:
+ * "java DoorCheck".
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class DoorCheck
+{
+    private static final int BUILDINGS = 200;
+    private static final int KEYS = 8;          // the keys the doors of a building need
+    private static final int GAMES = 50;        // the seeded games the map is checked in
+    private static final int EAST = 2;          // index of "east" in Room.DIRECTIONS
+    private static final int WEST = 3;          // index of "west" in Room.DIRECTIONS
+
+    private boolean failed;
+
+    public static void main(String[] args)
+    {
+        DoorCheck check = new DoorCheck();
+        check.runAll();
+        System.exit(check.failed ? 1 : 0);
+    }
+
+    /**
+     * Run all the checks and print their results.
+     */
+    public void runAll()
+    {
+        System.out.println(String.format("%-36s %10s", "check", "mismatches"));
+        System.out.println(report("doors opened room by room", checkBuildings(false)));
+        System.out.println(report("doors opened all at once", checkBuildings(true)));
+        System.out.println(report("door needing two keys in a game", checkGame()));
+        System.out.println(report("door needing two keys in a map", checkMaps()));
+    }
+
+    /**
+     * Lock the doors of random buildings with random keys, and open them
+     * with random keys given.
+     *
+     * @param boolean TRUE to open the doors with DoorLocks.unlockAll(...),
+     *                  FALSE to open them room by room
+     * @return int return the number of doors in a wrong state, and of the
+     *              exits told opened a wrong number of times
+     */
+    private static int checkBuildings(boolean all)
+    {
+        Random rand = new Random(7);
+        int mismatches = 0;
+        for(int building = 0; building < BUILDINGS; building++)
+        {
+            ArrayList<Room> rooms = buildRandom(rand);
+            int[] told = new int[rooms.size() * Room.DIRECTIONS.length];
+            for(Room room : rooms)
+            {
+                room.setExitListener((opened, direction) -> told[opened.getId() * Room.DIRECTIONS.length + direction]++);
+            }
+
+            DoorLocks doors = new DoorLocks(rooms);
+            long[] required = new long[doors.getDoorCount()];
+            for(int door = 0; door < required.length; door++)
+            {
+                if(!doors.isOpen(door) && rand.nextInt(3) > 0){   // a third of the closed doors need no key
+                    required[door] = 1L << rand.nextInt(KEYS);
+                    if(rand.nextBoolean()){
+                        required[door] |= 1L << rand.nextInt(KEYS);
+                    }
+                    doors.lock(door, required[door]);
+                }
+            }
+
+            long keys = rand.nextLong() & (1L << KEYS) - 1;
+            boolean[] expected = new boolean[required.length];
+            for(int door = 0; door < required.length; door++)
+            {
+                expected[door] = doors.isOpen(door) || required[door] != 0 && (required[door] & ~keys) == 0;
+                if(doors.canOpen(door, keys) != (required[door] != 0 && (required[door] & ~keys) == 0)){
+                    mismatches++;
+                }
+            }
+
+            if(all){
+                doors.unlockAll(keys);
+            }
+            else{
+                for(Room room : rooms)
+                {
+                    doors.unlock(room, keys);
+                }
+            }
+
+            for(int door = 0; door < required.length; door++)
+            {
+                if(doors.isOpen(door) != expected[door]){
+                    mismatches++;
+                }
+            }
+            for(Room room : rooms)
+            {
+                for(int direction = 0; direction < Room.DIRECTIONS.length; direction++)
+                {
+                    int door = doors.getDoor(room, direction);
+                    if(door < 0){
+                        continue;
+                    }
+                    boolean initiallyOpen = expected[door] && required[door] == 0;
+                    int times = expected[door] && !initiallyOpen ? 1 : 0;
+                    if(room.isExitOpen(direction) != doors.isOpen(door)
+                        || told[room.getId() * Room.DIRECTIONS.length + direction] != times){
+                        mismatches++;
+                    }
+                }
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * Build rooms linked at random, every door closed or open at random.
+     *
+     * @param Random the generator
+     * @return ArrayList<Room> return the rooms, indexed by their ids
+     */
+    private static ArrayList<Room> buildRandom(Random rand)
+    {
+        int count = 50 + rand.nextInt(200);
+        ArrayList<Room> rooms = new ArrayList<>();
+        for(int id = 0; id < count; id++)
+        {
+            rooms.add(new Room("in room " + id, id));
+        }
+        for(int id = 0; id < count; id++)
+        {
+            for(int direction = 0; direction < Room.DIRECTIONS.length; direction += 2)
+            {
+                Room room = rooms.get(id);
+                Room other = rooms.get(rand.nextInt(count));
+                if(other != room && room.getExit(direction) == null && other.getExit(direction + 1) == null){
+                    boolean open = rand.nextBoolean();
+                    room.setExit(Room.DIRECTIONS[direction], other, open);
+                    other.setExit(Room.DIRECTIONS[direction + 1], room, open);
+                }
+            }
+        }
+        return rooms;
+    }
+
+    /**
+     * Play a game in which the door of the ballroom needs two keys, and the
+     * player carries one of them, then both.
+     *
+     * @return int return the number of doors in a wrong state after the uses
+     */
+    private static int checkGame()
+    {
+        PrintStream out = System.out;
+        System.setOut(new SilentPrintStream());
+        try{
+            GameConfig config = GameConfig.builder().enemyCount(0).build();
+            Game game = new Game(3, config, new CannedInput("go north", "use first", "use second", "quit"));
+            ArrayList<Room> rooms = game.getRooms();
+            Room mainChamber = rooms.get(2);
+            DoorLocks doors = game.getDoors();
+            Key first = new Key("first", "The first key.", 1, mainChamber, 0);
+            Key second = new Key("second", "The second key.", 1, mainChamber, 1);
+            doors.lock(doors.getDoor(mainChamber, EAST), second.getMask());
+            game.getPlayer().addItem(first);
+
+            int mismatches = 0;
+            game.playTurn();    // go north, to the main chamber
+            game.playTurn();    // use first: only the audience hall opens
+            mismatches += mainChamber.isExitOpen(EAST) ? 1 : 0;
+            mismatches += mainChamber.isExitOpen(WEST) ? 0 : 1;
+            mismatches += rooms.get(4).isExitOpen("east") ? 0 : 1;
+
+            game.getPlayer().addItem(second);
+            game.playTurn();    // use second: now the ballroom opens too
+            mismatches += mainChamber.isExitOpen(EAST) ? 0 : 1;
+            mismatches += rooms.get(5).isExitOpen("west") ? 0 : 1;
+            mismatches += game.getOpenRooms().contains(rooms.get(5)) ? 0 : 1;
+            return mismatches;
+        }
+        finally{
+            System.setOut(out);
+        }
+    }
+
+    /**
+     * Lock the door of the ballroom with a second key in seeded games, and
+     * check the rules of the maps taken of them: without the second key the
+     * world can be won only if no artwork is in the ballroom, and a key used
+     * in the main chamber opens the audience hall only; with both keys the
+     * world can be won and both doors open.
+     *
+     * @return int return the number of answers differing from the rule
+     */
+    private static int checkMaps()
+    {
+        PrintStream out = System.out;
+        System.setOut(new SilentPrintStream());
+        try{
+            GameConfig config = GameConfig.builder().enemyCount(0).build();
+            int mismatches = 0;
+            for(int seed = 0; seed < GAMES; seed++)
+            {
+                Game game = new Game(seed, config, new CannedInput("quit"));
+                Room mainChamber = game.getRooms().get(2);
+                Key second = new Key("second", "The second key.", 1, mainChamber, 1);
+                DoorLocks doors = game.getDoors();
+                doors.lock(doors.getDoor(mainChamber, EAST), second.getMask());
+                game.getPlayer().addItem(new Key("spare", "A copy of the first key.", 1, mainChamber, 0));
+
+                WorldMap oneKey = new WorldMap(game);
+                boolean winnable = !artworkIn(oneKey, 5);   // nothing needed behind the ballroom door
+                mismatches += new WorldValidator(oneKey).isWinnable() == winnable ? 0 : 1;
+                mismatches += (new Solver(oneKey).solve() >= 0) == winnable ? 0 : 1;
+                mismatches += opensInMainChamber(oneKey, false, true);
+
+                game.getPlayer().addItem(second);
+                WorldMap bothKeys = new WorldMap(game);
+                mismatches += new WorldValidator(bothKeys).isWinnable() ? 0 : 1;
+                mismatches += new Solver(bothKeys).solve() >= 0 ? 0 : 1;
+                mismatches += opensInMainChamber(bothKeys, true, true);
+            }
+            return mismatches;
+        }
+        finally{
+            System.setOut(out);
+        }
+    }
+
+    /**
+     * Simulate going to the main chamber and using the spare key there.
+     *
+     * @param WorldMap the map of the game
+     * @param boolean TRUE if the door of the ballroom should open, FALSE otherwise
+     * @param boolean TRUE if the door of the audience hall should open, FALSE otherwise
+     * @return int return the number of doors in a wrong state
+     */
+    private static int opensInMainChamber(WorldMap map, boolean ballroom, boolean audienceHall)
+    {
+        Simulation simulation = new Simulation(map, 0);
+        simulation.begin();
+        simulation.step(Simulation.GO);     // north, to the main chamber
+        for(int item = 0; item < map.getItemCount(); item++)
+        {
+            if(map.getItemName(item).equals("spare")){
+                simulation.step(simulation.useAction(item));
+            }
+        }
+        int mismatches = simulation.getPlayerRoom() == 2 ? 0 : 1;
+        mismatches += simulation.canGo(2, EAST) == ballroom ? 0 : 1;
+        mismatches += simulation.canGo(5, WEST) == ballroom ? 0 : 1;
+        mismatches += simulation.canGo(2, WEST) == audienceHall ? 0 : 1;
+        return mismatches;
+    }
+
+    /**
+     * @return boolean return TRUE if a piece of artwork lies in the room or in a chest there
+     */
+    private static boolean artworkIn(WorldMap map, int room)
+    {
+        for(int item = 0; item < map.getItemCount(); item++)
+        {
+            if(map.isRequired(item) && (map.getItemRoom(item) == room
+                || map.getItemChest(item) >= 0 && map.getItemRoom(map.getItemChest(item)) == room)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return String return the line of the report, failing the check if anything differs
+     */
+    private String report(String name, int mismatches)
+    {
+        failed |= mismatches > 0;
+        return String.format("%-36s %10d  %s", name, mismatches, mismatches == 0 ? "PASS" : "FAIL");
+    }
+}
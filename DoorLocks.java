@@ -0,0 +1,281 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Class DoorLocks is a part of "Operation Wawel" application.
+ * It keeps the doors of a game: which are open, and which keys every
+ * locked door needs. A door is an exit of a room together with the exit
+ * of the neighbouring room leading back, so opening a door opens both.
+ *
+ * The doors are numbered and their states kept in sets of bits: one bit
+ * per door in the set of open doors, one bit per key (a Key's number) in
+ * the set of keys a door needs. The player carries the set of their keys,
+ * so whether they can open a door is a single AND of the two sets. For
+ * every key there is also the set of doors needing it, so opening all the
+ * doors a set of keys fits is a few operations on whole words of bits,
+ * not a search through the rooms.
+ *
+ * The set of open doors is the only state of the doors: once numbered,
+ * the rooms are attached to it and read the states of their exits from
+ * it. A door opened here tells the exit listeners of both its rooms.
+ * Only locked doors are opened with keys; a closed door needing no key
+ * stays closed whatever keys are used.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class DoorLocks
+{
+    private static final int DIRECTIONS = Room.DIRECTIONS.length;
+    private static final int KEYS = Long.SIZE;      // keys are numbered from 0 to 63
+
+    private Room[] rooms;           // room id -> room
+    private int[] doorOf;           // room id * DIRECTIONS + direction -> door, -1 if no exit
+    private int[] sides;            // door * 2 + side -> room id * DIRECTIONS + direction of
+                                    // the exits of the door, -1 if there is one exit only
+    private int doorCount;
+
+    private long[] open;            // the open doors
+    private long[] locked;          // the doors needing at least one key
+    private long[] required;        // door -> the keys the door needs, 0 if none
+    private long[][] needing;       // key number -> the doors needing the key, null if none
+    private long[] blocked;         // the doors needing a key not given, while opening
+
+    /**
+     * Number the doors of the rooms of a game, none of them locked, and
+     * attach the rooms to them. A door is open if the exit it was first
+     * found from is.
+     *
+     * @param ArrayList<Room> all the rooms of the game, indexed by their ids
+     */
+    public DoorLocks(ArrayList<Room> rooms)
+    {
+        this.rooms = rooms.toArray(new Room[0]);
+        doorOf = new int[this.rooms.length * DIRECTIONS];
+        Arrays.fill(doorOf, -1);
+        sides = new int[doorOf.length * 2];
+        for(Room room : this.rooms)
+        {
+            for(int direction = 0; direction < DIRECTIONS; direction++)
+            {
+                Room neighbour = room.getExit(direction);
+                int exit = room.getId() * DIRECTIONS + direction;
+                if(neighbour != null && doorOf[exit] < 0){
+                    int door = doorCount++;
+                    doorOf[exit] = door;
+                    sides[door * 2] = exit;
+                    sides[door * 2 + 1] = -1;
+                    if(neighbour.getExit(direction ^ 1) == room){   // the exit leading back
+                        int back = neighbour.getId() * DIRECTIONS + (direction ^ 1);
+                        doorOf[back] = door;
+                        sides[door * 2 + 1] = back;
+                    }
+                }
+            }
+        }
+
+        int words = (doorCount + Long.SIZE - 1) / Long.SIZE;
+        open = new long[words];
+        locked = new long[words];
+        blocked = new long[words];
+        required = new long[doorCount];
+        needing = new long[KEYS][];
+        for(int door = 0; door < doorCount; door++)
+        {
+            int exit = sides[door * 2];
+            if(this.rooms[exit / DIRECTIONS].isExitOpen(exit % DIRECTIONS)){
+                open[door >>> 6] |= 1L << door;
+            }
+        }
+        for(Room room : this.rooms)
+        {
+            room.attach(this);
+        }
+    }
+
+    /**
+     * @return int return the number of doors
+     */
+    public int getDoorCount()
+    {
+        return doorCount;
+    }
+
+    /**
+     * @param Room a room
+     * @param int index of the direction in Room.DIRECTIONS
+     * @return int return the door of the room's exit in that direction, -1 if there is no exit
+     */
+    public int getDoor(Room room, int direction)
+    {
+        return doorOf[room.getId() * DIRECTIONS + direction];
+    }
+
+    /**
+     * @param int a door
+     * @return boolean return TRUE if the door is open, FALSE otherwise
+     */
+    public boolean isOpen(int door)
+    {
+        return (open[door >>> 6] & 1L << door) != 0;
+    }
+
+    /**
+     * @param int a door
+     * @return long return the set of the keys the door needs, 0 if none
+     */
+    public long getRequiredKeys(int door)
+    {
+        return required[door];
+    }
+
+    /**
+     * Make a door need the given keys, besides those it needed already.
+     *
+     * @param int the door
+     * @param long the set of keys, f.e. Key.getMask()
+     */
+    public void lock(int door, long keys)
+    {
+        if(keys == 0){
+            return;
+        }
+        required[door] |= keys;
+        locked[door >>> 6] |= 1L << door;
+        for(long left = keys; left != 0; left &= left - 1)
+        {
+            int key = Long.numberOfTrailingZeros(left);
+            if(needing[key] == null){
+                needing[key] = new long[open.length];
+            }
+            needing[key][door >>> 6] |= 1L << door;
+        }
+    }
+
+    /**
+     * Make every closed door of a room need the given keys.
+     *
+     * @param Room the room
+     * @param long the set of keys, f.e. Key.getMask()
+     */
+    public void lockClosedDoors(Room room, long keys)
+    {
+        for(int direction = 0; direction < DIRECTIONS; direction++)
+        {
+            int door = getDoor(room, direction);
+            if(door >= 0 && !isOpen(door)){
+                lock(door, keys);
+            }
+        }
+    }
+
+    /**
+     * Check if a set of keys opens a door. Only a locked door is opened
+     * with keys.
+     *
+     * @param int the door
+     * @param long the set of keys
+     * @return boolean return TRUE if the door is locked and the keys include all
+     *                  it needs, FALSE otherwise
+     */
+    public boolean canOpen(int door, long keys)
+    {
+        return required[door] != 0 && (required[door] & ~keys) == 0;
+    }
+
+    /**
+     * Check if one of a set of keys is needed by a door of a room.
+     *
+     * @param Room the room
+     * @param long the set of keys
+     * @return boolean return TRUE if a door of the room needs one of the keys, FALSE otherwise
+     */
+    public boolean fits(Room room, long keys)
+    {
+        for(int direction = 0; direction < DIRECTIONS; direction++)
+        {
+            int door = getDoor(room, direction);
+            if(door >= 0 && (required[door] & keys) != 0){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Open the closed doors of a room that a set of keys opens, f.e. the
+     * keys the player carries.
+     *
+     * @param Room the room
+     * @param long the set of keys
+     * @return int return the number of doors opened
+     */
+    public int unlock(Room room, long keys)
+    {
+        int opened = 0;
+        for(int direction = 0; direction < DIRECTIONS; direction++)
+        {
+            int door = getDoor(room, direction);
+            if(door >= 0 && !isOpen(door) && canOpen(door, keys)){
+                open(door);
+                opened++;
+            }
+        }
+        return opened;
+    }
+
+    /**
+     * Open every closed door in the game that a set of keys opens.
+     *
+     * @param long the set of keys
+     * @return int return the number of doors opened
+     */
+    public int unlockAll(long keys)
+    {
+        // the doors needing a key that is not given stay locked
+        Arrays.fill(blocked, 0);
+        for(int key = 0; key < KEYS; key++)
+        {
+            long[] doors = needing[key];
+            if(doors != null && (keys & 1L << key) == 0){
+                for(int word = 0; word < blocked.length; word++)
+                {
+                    blocked[word] |= doors[word];
+                }
+            }
+        }
+
+        int opened = 0;
+        for(int word = 0; word < open.length; word++)
+        {
+            long opening = locked[word] & ~blocked[word] & ~open[word];
+            for(long left = opening; left != 0; left &= left - 1)
+            {
+                open(word * Long.SIZE + Long.numberOfTrailingZeros(left));
+                opened++;
+            }
+        }
+        return opened;
+    }
+
+    /**
+     * Open a door, whatever keys it needs, and tell the exit listeners of
+     * both its rooms. Used by Room.openExit(...) too.
+     *
+     * @param int the door
+     */
+    void open(int door)
+    {
+        if(isOpen(door)){
+            return;
+        }
+        open[door >>> 6] |= 1L << door;
+        for(int side = door * 2; side < door * 2 + 2; side++)
+        {
+            int exit = sides[side];
+            if(exit >= 0){
+                rooms[exit / DIRECTIONS].exitOpened(exit % DIRECTIONS);
+            }
+        }
+    }
+}
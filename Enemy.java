@@ -0,0 +1,246 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Class Enemy is a part of "Operation Wawel" application.
+ * It is an enemy soldier whose features are kept in an EnemyStore. It
+ * lets the enemy be used wherever a Character is expected, f.e. in a fight:
+ * all the methods read and change the store, the enemy object itself holds
+ * only the enemy's ID. The store keeps one such object for every enemy.
+ *
+ * The enemy's only item is their gun, kept in the store as a number of
+ * bullets. The items returned by getItem(...), getItems() and getWeapon()
+ * are a copy of it, made once and given the bullets left every time it is
+ * returned; the gun itself is created when the enemy drops their items.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class Enemy extends Character
+{
+    private EnemyStore store;
+    private int id;
+    private Weapon gun;         // the copy of the gun, null until it is first asked for
+    private Set<Item> items;    // the copy, as the only item
+
+    /**
+     * Constructor for objects of class Enemy, use EnemyStore.get(...)
+     *
+     * @param EnemyStore the store keeping the enemy's features
+     * @param int the ID of the enemy
+     */
+    Enemy(EnemyStore store, int id)
+    {
+        super(store.getRoom(store.indexOf(id)), store.getConfig());
+        this.store = store;
+        this.id = id;
+    }
+
+    /**
+     * @return int return the ID of the enemy
+     */
+    public int getId()
+    {
+        return id;
+    }
+
+    /**
+     * @return int return the position of the enemy in the store
+     */
+    private int index()
+    {
+        return store.indexOf(id);
+    }
+
+    /**
+     * Return the current location of the enemy.
+     *
+     * @return Room return current room
+     */
+    public Room getCurrentRoom()
+    {
+        return store.getRoom(index());
+    }
+
+    /**
+     * Change the current location to the one specified by the direction.
+     *
+     * @param String direction in which we want to move
+     */
+    public void changeRoom(String direction)
+    {
+        for(int i = 0; i < Room.DIRECTIONS.length; i++)
+        {
+            if(Room.DIRECTIONS[i].equals(direction)){
+                store.move(index(), i);
+            }
+        }
+    }
+
+    /**
+     * Check if a move is possible.
+     *
+     * @param String direction in which we want to move
+     * @return Character.MovePossibility return the possibility state of a move
+     */
+    public MovePossibility isMovePossible(String direction)
+    {
+        Room room = getCurrentRoom();
+        if(room.getExit(direction) == null){
+            return MovePossibility.NO_DOOR;
+        }
+        else if(!room.isExitOpen(direction)){
+            return MovePossibility.DOOR_CLOSED;
+        }
+        else{
+            return MovePossibility.POSSIBLE;
+        }
+    }
+
+    /**
+     * Shoot at the specified character with the enemy's gun.
+     *
+     * @param Character the character to be attacked
+     */
+    public void attack(Character character)
+    {
+        store.shoot(index(), character);
+    }
+
+    /**
+     * Get a copy of the enemy's gun, if it can be used.
+     *
+     * @return Weapon return the copy, null if the gun has no bullets
+     */
+    public Weapon getWeapon()
+    {
+        Weapon gun = gun();
+        return gun != null && gun.getBullets() > 0 ? gun : null;
+    }
+
+    /**
+     * @return Weapon return the copy of the enemy's gun, with the bullets left in the gun;
+     *                  null if the enemy has dropped it
+     */
+    private Weapon gun()
+    {
+        int index = index();
+        if(store.getBullets(index) < 0){
+            return null;
+        }
+        if(gun == null){
+            gun = store.copyGun(index);
+            items = Collections.singleton(gun);
+        }
+        gun.bullets = store.getBullets(index);
+        return gun;
+    }
+
+    /**
+     * Check if the enemy is able to attack others.
+     *
+     * @return Character.AttackPossibility return the possibility state of an attack
+     */
+    public AttackPossibility canAttack()
+    {
+        int bullets = store.getBullets(index());
+        if(bullets > 0){
+            return AttackPossibility.POSSIBLE;
+        }
+        else if(bullets == 0){
+            return AttackPossibility.NO_BULLETS;
+        }
+        else{
+            return AttackPossibility.NO_WEAPON;
+        }
+    }
+
+    /**
+     * @return int return the current number of injuries
+     */
+    public int getInjuriesNumber()
+    {
+        return store.getInjuries(index());
+    }
+
+    /**
+     * Receive an injury.
+     */
+    public void receiveInjury()
+    {
+        store.receiveInjury(index());
+    }
+
+    /**
+     * @return boolean return TRUE if the enemy is dead, FALSE otherwise
+     */
+    public boolean isDead()
+    {
+        return getInjuriesNumber() > maxInjuries;
+    }
+
+    /**
+     * @return int return the number of moves counted towards healing
+     */
+    public int getMovesToHeal()
+    {
+        return store.getMovesToHeal(index());
+    }
+
+    /**
+     * Drop the enemy's gun in the current room. Use when the enemy dies.
+     */
+    public void dropAllItems()
+    {
+        int index = index();
+        Weapon gun = store.dropGun(index);
+        if(gun != null){
+            store.getRoom(index).addItem(gun);
+        }
+    }
+
+    /**
+     * Drop the enemy's gun in a random room.
+     *
+     * @param ArrayList<Room> the list of rooms to choose from
+     * @param Random the generator used to choose the room
+     */
+    public void dropAllItems(ArrayList<Room> rooms, Random rand)
+    {
+        Weapon gun = store.dropGun(index());
+        if(gun != null){
+            rooms.get(rand.nextInt(rooms.size())).addItem(gun);
+        }
+    }
+
+    /**
+     * Get a copy of the enemy's gun, if it has the specified name.
+     *
+     * @param String name of the item
+     * @return Item return the copy, null if the enemy has no such item
+     */
+    public Item getItem(String itemName)
+    {
+        Weapon gun = gun();
+        return gun != null && gun.getName().equals(itemName) ? gun : null;
+    }
+
+    /**
+     * @return Set<Item> return a copy of the enemy's gun, or no items if they have dropped it
+     */
+    public Set<Item> getItems()
+    {
+        return gun() == null ? Collections.emptySet() : items;
+    }
+
+    /**
+     * @return int return the weight of the enemy's gun, 0 if they have dropped it
+     */
+    public int getCarriedWeight()
+    {
+        Weapon gun = gun();
+        return gun == null ? 0 : gun.getWeight();
+    }
+}
@@ -0,0 +1,900 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Class EnemyStore is a part of "Operation Wawel" application.
+ * It keeps the state of all the enemies of a game in arrays of numbers,
+ * one array per feature (the room, the injuries, the moves made towards
+ * healing and the bullets left in the gun), instead of an object for every
+ * enemy. Moving the enemies is then a sweep over a few arrays lying next to
+ * each other in memory, which stays fast with hundreds of thousands of
+ * enemies. A move only counts the moves of the enemy; the injuries they
+ * heal are worked out when the enemy's injuries are next read.
+ *
+ * Every enemy has an ID, given in the order the enemies are created. The
+ * enemies are kept in that order, also after some of them are removed, so
+ * games with the same seed play the same way. An enemy carries a gun only
+ * as a number of bullets, the gun becomes an item of the game when the
+ * enemy dies and drops it. Where an enemy has to be treated as a Character
+ * (f.e. in a fight), get(...) returns an Enemy reading and changing the
+ * arrays; it is created the first time it is asked for and kept for as
+ * long as the enemy lives. The enemies in every room are linked in a list,
+ * in the order of their IDs, so the enemy in a room is found at once.
+ *
+ * All the enemies move at once, in two phases. First every enemy chooses a
+ * direction and proposes a move into a room that was free at the start of
+ * the turn; then, of the enemies proposing the same room, the one with the
+ * lowest ID enters it and the others stay. The direction of an enemy
+ * depends only on a number drawn once a turn and on the enemy's ID, so the
+ * result is the same whatever order the enemies are moved in. Enemies
+ * who have heard a noise go towards it, the way shown by Hearing, and
+ * enemies pursuing the player take the direction shown by a FlowField,
+ * wherever these show one.
+ *
+ * Large numbers of enemies are moved on all cores. The rooms are then split
+ * into regions of neighbouring rooms, and every region owns its rooms, the
+ * enemies in them and its own lists: in every phase one task per region is
+ * the only one to change them. An enemy proposing to move into another
+ * region is put into the outbox of its region; between the phases the
+ * region owning the room reads the outboxes of the others to decide who
+ * enters the room and takes the enemies that did in. So the regions hand
+ * enemies over without locks, and the result does not depend on the number
+ * of regions either.
+ *
+ * The regions own their data, not threads. The tasks of a phase run on the
+ * common fork/join pool and are all joined before the next phase starts,
+ * which is also what makes the changes of one phase seen by the next; a
+ * region may be run by another thread in every phase. Threads of their own
+ * would have to be woken five times a turn for a short piece of work each,
+ * and every game would have to stop them. Items are not split into regions:
+ * an enemy's gun is only a number in the store until it is dropped, and the
+ * items are moved by the player's commands, one at a time, on the game's
+ * thread.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class EnemyStore
+{
+    private static final int FIRST_GUN_NUMBER = 2;  // gun1 is the player's
+    private static final int GUN_WEIGHT = 3;
+    private static final int NO_GUN = -1;           // bullets of an enemy who dropped their gun
+
+    // number of enemies from which they are moved in parallel
+    private static final int PARALLEL_THRESHOLD = 8192;
+
+    // the phases of moving the enemies
+    private static final int PROPOSE = 0;   // choose the rooms, put the ones in other regions into the outbox
+    private static final int RESOLVE = 1;   // claim the rooms proposed from other regions
+    private static final int LEAVE = 2;     // leave the rooms, if the claims were won
+    private static final int ENTER = 3;     // enter the rooms of the same region
+    private static final int ADMIT = 4;     // enter the rooms of the region from other regions
+
+    private GameConfig config;
+    private Room[] rooms;           // room id -> room
+    private int[] exits;            // room id * 6 + direction -> neighbour id or -1
+    private int[] occupants;        // room id -> number of enemies in the room
+    private int[] claims;           // room id -> the lowest position of an enemy proposing
+                                    // to enter the room this turn, MAX_VALUE if none
+    private int[] regionOf;         // room id -> the region the room belongs to
+    private int[] firstInRoom;      // room id -> ID of the enemy with the lowest ID in the room,
+    private int[] lastInRoom;       // and with the highest; -1 if the room is empty
+
+    private int count;              // number of enemies
+    private int nextId;
+    private int[] ids;              // the enemies' features, indexed by their
+    private int[] roomIds;          // position in the store, in the order of
+    private int[] injuries;         // their IDs
+    private int[] movesToHeal;      // as of the last time the healing was worked out
+    private int[] moves;            // moves made since then
+    private int[] bullets;
+    private int[] alerts;           // the room of the noise the enemy goes to, -1 if none
+    private int[] targets;          // the room the enemy enters this turn, -1 if none
+    private int[] origins;          // the room the enemy leaves this turn, if they do
+    private long turnSeed;          // the number the directions of this turn depend on
+    private FlowField pursuit;      // the way to the player this turn, null if not pursued
+    private Hearing hearing;        // the way to the noises heard, null if there are none
+    private int[] heard;            // room id -> the room of a noise heard there since the
+                                    // last move, -1 if none
+    private int[] heardRooms;       // the rooms a noise was heard in since the last move
+    private int heardCount;
+
+    // the enemies indexed by their IDs, whether they are in the store or not
+    private int[] positions;        // position in the store, -1 once removed
+    private int[] nextInRoom;       // ID of the next enemy in the same room, -1 if none
+    private int[] previousInRoom;   // ID of the previous enemy in the same room, -1 if none
+    private Enemy[] views;          // the enemy as a character, null until get(...) asks for it
+
+    // the regions, indexed by their numbers; every one changed only by its own task of a phase
+    private int regionCount;
+    private int fixedRegions;       // the number of regions set by setRegions(...), 0 to choose it
+    private int[][] members;        // positions of the enemies in the region's rooms
+    private int[] memberCounts;
+    private int[][] outboxes;       // positions of the enemies proposing rooms in other regions
+    private int[] outboxSizes;
+    private int[][] claimed;        // the rooms of the region claimed this turn
+    private int[] claimedCounts;
+    private boolean regionsChanged; // TRUE if the regions have to be filled again, because
+                                    // enemies were added, removed or moved one at a time
+
+    /**
+     * Create an empty store for the enemies of a game.
+     *
+     * @param ArrayList<Room> all the rooms of the game, indexed by their ids
+     * @param GameConfig the configuration of the game
+     */
+    public EnemyStore(ArrayList<Room> rooms, GameConfig config)
+    {
+        this.config = config;
+        this.rooms = rooms.toArray(new Room[0]);
+        int directions = Room.DIRECTIONS.length;
+        exits = new int[this.rooms.length * directions];
+        for(Room room : this.rooms)
+        {
+            for(int direction = 0; direction < directions; direction++)
+            {
+                Room neighbour = room.getExit(direction);
+                exits[room.getId() * directions + direction] = neighbour == null ? -1 : neighbour.getId();
+            }
+        }
+        occupants = new int[this.rooms.length];
+        claims = new int[this.rooms.length];
+        Arrays.fill(claims, Integer.MAX_VALUE);
+        regionOf = new int[this.rooms.length];
+        firstInRoom = new int[this.rooms.length];
+        Arrays.fill(firstInRoom, -1);
+        lastInRoom = new int[this.rooms.length];
+        Arrays.fill(lastInRoom, -1);
+        heard = new int[this.rooms.length];
+        Arrays.fill(heard, -1);
+        heardRooms = new int[this.rooms.length];
+
+        int capacity = Math.max(1, config.getEnemyCount());
+        ids = new int[capacity];
+        roomIds = new int[capacity];
+        injuries = new int[capacity];
+        movesToHeal = new int[capacity];
+        moves = new int[capacity];
+        bullets = new int[capacity];
+        alerts = new int[capacity];
+        targets = new int[capacity];
+        origins = new int[capacity];
+        positions = new int[capacity];
+        nextInRoom = new int[capacity];
+        previousInRoom = new int[capacity];
+        views = new Enemy[capacity];
+    }
+
+    /**
+     * Add an enemy, armed with a loaded gun.
+     *
+     * @param Room the room the enemy starts in
+     * @return int return the ID of the enemy
+     */
+    public int add(Room room)
+    {
+        if(count == ids.length){
+            int capacity = 2 * count;
+            ids = Arrays.copyOf(ids, capacity);
+            roomIds = Arrays.copyOf(roomIds, capacity);
+            injuries = Arrays.copyOf(injuries, capacity);
+            movesToHeal = Arrays.copyOf(movesToHeal, capacity);
+            moves = Arrays.copyOf(moves, capacity);
+            bullets = Arrays.copyOf(bullets, capacity);
+            alerts = Arrays.copyOf(alerts, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+            origins = Arrays.copyOf(origins, capacity);
+        }
+        if(nextId == positions.length){
+            int capacity = 2 * nextId;
+            positions = Arrays.copyOf(positions, capacity);
+            nextInRoom = Arrays.copyOf(nextInRoom, capacity);
+            previousInRoom = Arrays.copyOf(previousInRoom, capacity);
+            views = Arrays.copyOf(views, capacity);
+        }
+        ids[count] = nextId;
+        roomIds[count] = room.getId();
+        injuries[count] = 0;
+        movesToHeal[count] = 0;
+        moves[count] = 0;
+        bullets[count] = config.getBulletsPerWeapon();
+        alerts[count] = -1;
+        targets[count] = -1;
+        positions[nextId] = count;
+        link(nextId, room.getId());
+        occupants[room.getId()]++;
+        regionsChanged = true;
+        count++;
+        return nextId++;
+    }
+
+    /**
+     * Remove an enemy from the game, f.e. when they die. The room they
+     * were in is no longer occupied.
+     *
+     * @param int position of the enemy in the store
+     */
+    public void remove(int index)
+    {
+        occupants[roomIds[index]]--;
+        unlink(ids[index], roomIds[index]);
+        positions[ids[index]] = -1;
+        views[ids[index]] = null;
+        int moved = count - index - 1;     // shift the later enemies to keep the order
+        System.arraycopy(ids, index + 1, ids, index, moved);
+        System.arraycopy(roomIds, index + 1, roomIds, index, moved);
+        System.arraycopy(injuries, index + 1, injuries, index, moved);
+        System.arraycopy(movesToHeal, index + 1, movesToHeal, index, moved);
+        System.arraycopy(moves, index + 1, moves, index, moved);
+        System.arraycopy(bullets, index + 1, bullets, index, moved);
+        System.arraycopy(alerts, index + 1, alerts, index, moved);
+        regionsChanged = true;
+        count--;
+        for(int i = index; i < count; i++)
+        {
+            positions[ids[i]] = i;
+        }
+    }
+
+    /**
+     * Try to move every enemy in a random direction. An enemy moves only
+     * through an open door and only into a room no enemy was in at the start of
+     * the turn; when several enemies try to enter the same room, the one
+     * with the lowest ID does. Moving counts towards healing an injury.
+     *
+     * When a flow field is given, the enemies pursue the player: they take
+     * the way it shows, those in the player's room stay and only those who
+     * cannot reach the player walk at random. Enemies who have heard a
+     * noise go towards it first, until they get to its room.
+     *
+     * @param Random the generator used to choose the directions
+     * @param FlowField the way to the player, null to walk at random
+     * @param Hearing the way to the noises the enemies heard, null if noises are not heard
+     */
+    public void moveAll(Random rand, FlowField field, Hearing hearing)
+    {
+        if(count == 0){
+            heardCount = 0;
+            return;
+        }
+        turnSeed = rand.nextLong();
+        pursuit = field;
+        this.hearing = hearing;
+
+        int regions = 1;
+        if(fixedRegions > 0){
+            regions = Math.min(rooms.length, fixedRegions);
+        }
+        else if(count >= PARALLEL_THRESHOLD){
+            regions = Math.min(rooms.length, 4 * Runtime.getRuntime().availableProcessors());
+        }
+        if(regions != regionCount){
+            split(regions);
+        }
+        else if(regionsChanged){
+            fillRegions();
+        }
+
+        // every phase has to end in all the regions before the next one starts
+        for(int phase = PROPOSE; phase <= ADMIT; phase++)
+        {
+            if(regions == 1){
+                simulate(phase, 0);
+            }
+            else{
+                int movePhase = phase;
+                IntStream.range(0, regions).parallel().forEach(region -> simulate(movePhase, region));
+            }
+        }
+
+        // the noises have been heard
+        for(int i = 0; i < heardCount; i++)
+        {
+            heard[heardRooms[i]] = -1;
+        }
+        heardCount = 0;
+    }
+
+    /**
+     * Set the number of regions the enemies are moved in, however many of
+     * them there are. Used by MovementCheck to compare the moves made in
+     * different numbers of regions.
+     *
+     * @param int the number of regions, at most the number of rooms,
+     *                  0 to choose it by the number of enemies again
+     */
+    void setRegions(int regions)
+    {
+        fixedRegions = regions;
+    }
+
+    /**
+     * Publish a move of every enemy who moved in the last moveAll(...),
+     * in the order of their IDs. Has to be called right after it.
+     *
+     * @param EventBus the bus to publish on
+     * @param int the turn of the moves
+     */
+    public void publishMoves(EventBus bus, int turn)
+    {
+        for(int i = 0; i < count; i++)
+        {
+            if(targets[i] >= 0){
+                bus.publish(WorldEvent.Type.ENEMY_MOVED, turn, ids[i], -1, origins[i], targets[i], -1, null);
+            }
+        }
+    }
+
+    /**
+     * Alert the enemies in the given rooms to a noise. They start going
+     * towards it with their next move.
+     *
+     * @param int[] ids of the rooms the noise is heard in
+     * @param int id of the room the noise was made in
+     */
+    public void hear(int[] rooms, int source)
+    {
+        for(int room : rooms)
+        {
+            if(heard[room] < 0){
+                heardRooms[heardCount++] = room;
+            }
+            heard[room] = source;
+        }
+    }
+
+    /**
+     * Split the rooms into the given number of regions of neighbouring rooms,
+     * of about the same size, and put the enemies into the regions.
+     *
+     * @param int the number of regions
+     */
+    private void split(int regions)
+    {
+        // number the rooms in the order they are reached from the first one,
+        // so that the rooms numbered one after another lie next to each other
+        int directions = Room.DIRECTIONS.length;
+        int[] order = new int[rooms.length];
+        boolean[] reached = new boolean[rooms.length];
+        int size = 0;
+        for(int start = 0; start < rooms.length; start++)
+        {
+            if(!reached[start]){
+                reached[start] = true;
+                order[size++] = start;
+                for(int next = size - 1; next < size; next++)
+                {
+                    for(int direction = 0; direction < directions; direction++)
+                    {
+                        int neighbour = exits[order[next] * directions + direction];
+                        if(neighbour >= 0 && !reached[neighbour]){
+                            reached[neighbour] = true;
+                            order[size++] = neighbour;
+                        }
+                    }
+                }
+            }
+        }
+        for(int i = 0; i < rooms.length; i++)
+        {
+            regionOf[order[i]] = (int)((long)i * regions / rooms.length);
+        }
+
+        regionCount = regions;
+        members = new int[regions][];
+        memberCounts = new int[regions];
+        outboxes = new int[regions][];
+        outboxSizes = new int[regions];
+        claimed = new int[regions][];
+        claimedCounts = new int[regions];
+        for(int region = 0; region < regions; region++)
+        {
+            members[region] = new int[16];
+            outboxes[region] = new int[16];
+            claimed[region] = new int[rooms.length / regions + 1];
+        }
+        fillRegions();
+    }
+
+    /**
+     * Put every enemy into the region of their room, in the order of their IDs.
+     */
+    private void fillRegions()
+    {
+        Arrays.fill(memberCounts, 0);
+        for(int i = 0; i < count; i++)
+        {
+            int region = regionOf[roomIds[i]];
+            if(memberCounts[region] == members[region].length){
+                members[region] = Arrays.copyOf(members[region], 2 * memberCounts[region]);
+            }
+            members[region][memberCounts[region]++] = i;
+        }
+        regionsChanged = false;
+    }
+
+    /**
+     * Carry a phase of moving out in a region. Only the rooms of the region,
+     * the enemies in them and the region's own lists are changed; the rest
+     * is only read.
+     *
+     * @param int the phase: PROPOSE, RESOLVE, LEAVE, ENTER or ADMIT
+     * @param int the region
+     */
+    private void simulate(int phase, int region)
+    {
+        int directions = Room.DIRECTIONS.length;
+        int[] regionMembers = members[region];
+        int memberCount = memberCounts[region];
+        switch(phase)
+        {
+            case PROPOSE:
+                outboxSizes[region] = 0;
+                for(int m = 0; m < memberCount; m++)
+                {
+                    int i = regionMembers[m];
+                    int room = roomIds[i];
+                    int direction = chooseDirection(i, room);
+                    int target = direction < 0 ? -1 : exits[room * directions + direction];
+                    if(target >= 0 && occupants[target] == 0 && rooms[room].isExitOpen(direction)){
+                        targets[i] = target;
+                        if(regionOf[target] == region){
+                            claim(region, target, i);
+                        }
+                        else{
+                            if(outboxSizes[region] == outboxes[region].length){
+                                outboxes[region] = Arrays.copyOf(outboxes[region], 2 * outboxSizes[region]);
+                            }
+                            outboxes[region][outboxSizes[region]++] = i;
+                        }
+                    }
+                    else{
+                        targets[i] = -1;
+                    }
+                }
+                break;
+            case RESOLVE:
+                for(int other = 0; other < regionCount; other++)
+                {
+                    for(int k = 0; k < outboxSizes[other]; k++)
+                    {
+                        int i = outboxes[other][k];
+                        if(regionOf[targets[i]] == region){
+                            claim(region, targets[i], i);
+                        }
+                    }
+                }
+                break;
+            case LEAVE:
+                for(int m = 0; m < memberCount; m++)
+                {
+                    int i = regionMembers[m];
+                    int target = targets[i];
+                    if(target >= 0){
+                        if(claims[target] == i){
+                            origins[i] = roomIds[i];
+                            occupants[roomIds[i]]--;
+                            unlink(ids[i], roomIds[i]);
+                        }
+                        else{
+                            targets[i] = -1;    // another enemy enters the room
+                        }
+                    }
+                }
+                break;
+            case ENTER:
+                int stay = 0;
+                for(int m = 0; m < memberCount; m++)
+                {
+                    int i = regionMembers[m];
+                    int target = targets[i];
+                    if(target < 0 || regionOf[target] == region){
+                        if(target >= 0){
+                            occupants[target]++;
+                            roomIds[i] = target;
+                            link(ids[i], target);
+                            countMove(i);
+                        }
+                        regionMembers[stay++] = i;  // the others are taken by their new regions
+                    }
+                }
+                memberCounts[region] = stay;
+                for(int c = 0; c < claimedCounts[region]; c++)
+                {
+                    claims[claimed[region][c]] = Integer.MAX_VALUE;
+                }
+                claimedCounts[region] = 0;
+                break;
+            case ADMIT:
+                for(int other = 0; other < regionCount; other++)
+                {
+                    for(int k = 0; k < outboxSizes[other]; k++)
+                    {
+                        int i = outboxes[other][k];
+                        int target = targets[i];
+                        if(target >= 0 && regionOf[target] == region){
+                            occupants[target]++;
+                            roomIds[i] = target;
+                            link(ids[i], target);
+                            countMove(i);
+                            if(memberCounts[region] == members[region].length){
+                                members[region] = Arrays.copyOf(members[region], 2 * memberCounts[region]);
+                            }
+                            members[region][memberCounts[region]++] = i;
+                        }
+                    }
+                }
+                break;
+        }
+    }
+
+    /**
+     * Choose the direction an enemy tries this turn: towards the noise they
+     * heard, towards the player if pursuing them, or a random one.
+     *
+     * @param int position of the enemy in the store
+     * @param int id of the enemy's room
+     * @return int return the index of the direction in Room.DIRECTIONS, -1 to stay
+     */
+    private int chooseDirection(int index, int room)
+    {
+        if(heard[room] >= 0){
+            alerts[index] = heard[room];
+        }
+        if(alerts[index] >= 0 && hearing != null){
+            int direction = hearing.getStep(alerts[index], room);
+            if(direction >= 0){
+                return direction;
+            }
+        }
+        alerts[index] = -1;     // got to the noise, or lost the way to it
+
+        if(pursuit != null && pursuit.getDistance(room) != FlowField.UNREACHABLE){
+            return pursuit.getStep(room);   // -1 in the player's room
+        }
+        return directionOf(ids[index]);
+    }
+
+    /**
+     * Claim a room of the region for an enemy, unless an enemy at a lower
+     * position has claimed it.
+     */
+    private void claim(int region, int room, int index)
+    {
+        if(claims[room] == Integer.MAX_VALUE){
+            claimed[region][claimedCounts[region]++] = room;
+        }
+        if(index < claims[room]){
+            claims[room] = index;
+        }
+    }
+
+    /**
+     * @param int ID of an enemy
+     * @return int return the direction the enemy tries this turn
+     */
+    private int directionOf(int id)
+    {
+        long bits = turnSeed + (id + 1) * 0x9E3779B97F4A7C15L;     // mixed like in SplittableRandom
+        bits = (bits ^ (bits >>> 33)) * 0xFF51AFD7ED558CCDL;
+        bits = (bits ^ (bits >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        bits ^= bits >>> 33;
+        return (int)(((bits >>> 32) * Room.DIRECTIONS.length) >>> 32);
+    }
+
+    /**
+     * Move an enemy through the exit in the given direction, whether it is
+     * open or not.
+     *
+     * @param int position of the enemy in the store
+     * @param int index of the direction in Room.DIRECTIONS
+     */
+    public void move(int index, int direction)
+    {
+        int to = exits[roomIds[index] * Room.DIRECTIONS.length + direction];
+        if(to >= 0){
+            moveTo(index, to);
+            regionsChanged = true;
+        }
+    }
+
+    private void moveTo(int index, int to)
+    {
+        occupants[roomIds[index]]--;
+        unlink(ids[index], roomIds[index]);
+        roomIds[index] = to;
+        occupants[to]++;
+        link(ids[index], to);
+        countMove(index);
+    }
+
+    /**
+     * Put an enemy into the list of the enemies in a room, in the order of
+     * their IDs. Only the lists of the room are changed, so the regions can
+     * link the enemies into their own rooms at the same time. An enemy
+     * entering a room in moveAll(...) finds it empty, and an enemy added
+     * has the highest ID, so the list is searched only when an enemy is
+     * moved one at a time.
+     *
+     * @param int ID of the enemy
+     * @param int id of the room
+     */
+    private void link(int id, int room)
+    {
+        int previous = lastInRoom[room];
+        int next = -1;
+        while(previous > id)
+        {
+            next = previous;
+            previous = previousInRoom[previous];
+        }
+        previousInRoom[id] = previous;
+        nextInRoom[id] = next;
+        if(previous < 0){
+            firstInRoom[room] = id;
+        }
+        else{
+            nextInRoom[previous] = id;
+        }
+        if(next < 0){
+            lastInRoom[room] = id;
+        }
+        else{
+            previousInRoom[next] = id;
+        }
+    }
+
+    /**
+     * Take an enemy out of the list of the enemies in a room.
+     *
+     * @param int ID of the enemy
+     * @param int id of the room the enemy is in
+     */
+    private void unlink(int id, int room)
+    {
+        int previous = previousInRoom[id];
+        int next = nextInRoom[id];
+        if(previous < 0){
+            firstInRoom[room] = next;
+        }
+        else{
+            nextInRoom[previous] = next;
+        }
+        if(next < 0){
+            lastInRoom[room] = previous;
+        }
+        else{
+            previousInRoom[next] = previous;
+        }
+    }
+
+    /**
+     * Count a move of an enemy. The healing it brings is only worked out
+     * when the enemy's injuries are read or changed, see heal(...).
+     */
+    private void countMove(int index)
+    {
+        moves[index]++;
+    }
+
+    /**
+     * Heal the injuries the moves made since the last time have healed,
+     * the same way as if every move was counted when it was made: an injury
+     * heals every healing rate moves made while injured, and the moves made
+     * without injuries do not count.
+     *
+     * @param int position of the enemy in the store
+     */
+    private void heal(int index)
+    {
+        if(moves[index] == 0){
+            return;
+        }
+        int rate = config.getHealingRate();
+        if(injuries[index] > 0){
+            if(rate <= 0){  // the injuries never heal
+                movesToHeal[index] += moves[index];
+            }
+            else{
+                int counted = movesToHeal[index] + moves[index];
+                int healed = counted / rate;
+                if(healed >= injuries[index]){
+                    injuries[index] = 0;
+                    movesToHeal[index] = 0;
+                }
+                else{
+                    injuries[index] -= healed;
+                    movesToHeal[index] = counted - healed * rate;
+                }
+            }
+        }
+        moves[index] = 0;
+    }
+
+    /**
+     * Shoot at a character with the enemy's gun, if there are bullets left.
+     *
+     * @param int position of the enemy in the store
+     * @param Character the character to shoot at
+     */
+    public void shoot(int index, Character character)
+    {
+        if(bullets[index] > 0){
+            bullets[index]--;
+            character.receiveInjury();
+        }
+    }
+
+    /**
+     * Give an enemy an injury.
+     *
+     * @param int position of the enemy in the store
+     */
+    public void receiveInjury(int index)
+    {
+        heal(index);
+        injuries[index]++;
+    }
+
+    /**
+     * Give an enemy a number of injuries at once, f.e. all the hits of a
+     * round of a battle.
+     *
+     * @param int position of the enemy in the store
+     * @param int number of injuries
+     */
+    public void receiveInjuries(int index, int number)
+    {
+        heal(index);
+        injuries[index] += number;
+    }
+
+    /**
+     * Take the bullets an enemy has fired from their gun.
+     *
+     * @param int position of the enemy in the store
+     * @param int number of bullets fired, no more than there are left
+     */
+    public void useBullets(int index, int number)
+    {
+        bullets[index] -= number;
+    }
+
+    /**
+     * Turn the enemy's gun into an item of the game, taking it from the enemy.
+     *
+     * @param int position of the enemy in the store
+     * @return Weapon return the gun, null if the enemy has dropped it already
+     */
+    public Weapon dropGun(int index)
+    {
+        Weapon gun = copyGun(index);
+        bullets[index] = NO_GUN;
+        return gun;
+    }
+
+    /**
+     * @param int position of the enemy in the store
+     * @return Weapon return a new weapon like the enemy's gun, the enemy keeps
+     *                  their own; null if the enemy has dropped it
+     */
+    public Weapon copyGun(int index)
+    {
+        if(bullets[index] == NO_GUN){
+            return null;
+        }
+        return new Weapon("gun" + (FIRST_GUN_NUMBER + ids[index]), "A gun.", GUN_WEIGHT, bullets[index]);
+    }
+
+    /**
+     * @param int position of the enemy in the store
+     * @return Enemy return the enemy as a character, its features stay in the store;
+     *                  the same object every time for the same enemy
+     */
+    public Enemy get(int index)
+    {
+        int id = ids[index];
+        if(views[id] == null){
+            views[id] = new Enemy(this, id);
+        }
+        return views[id];
+    }
+
+    /**
+     * @param int ID of an enemy
+     * @return int return the position of the enemy in the store, a negative
+     *              number if they have been removed
+     */
+    public int indexOf(int id)
+    {
+        return id >= 0 && id < nextId ? positions[id] : -1;
+    }
+
+    /**
+     * @param int id of a room
+     * @return int return the position of the first enemy in the room, -1 if there is none
+     */
+    public int indexInRoom(int roomId)
+    {
+        int first = firstInRoom[roomId];
+        return first < 0 ? -1 : positions[first];
+    }
+
+    /**
+     * @param int id of a room
+     * @return boolean return TRUE if an enemy is in the room, FALSE otherwise
+     */
+    public boolean isOccupied(int roomId)
+    {
+        return occupants[roomId] > 0;
+    }
+
+    /**
+     * @return int return the number of enemies
+     */
+    public int size()
+    {
+        return count;
+    }
+
+    /**
+     * @return GameConfig return the configuration of the game
+     */
+    public GameConfig getConfig()
+    {
+        return config;
+    }
+
+    /**
+     * @return int return the ID of the enemy at the given position
+     */
+    public int getId(int index)
+    {
+        return ids[index];
+    }
+
+    /**
+     * @return int return the id of the room the enemy at the given position is in
+     */
+    public int getRoomId(int index)
+    {
+        return roomIds[index];
+    }
+
+    /**
+     * @return Room return the room the enemy at the given position is in
+     */
+    public Room getRoom(int index)
+    {
+        return rooms[roomIds[index]];
+    }
+
+    /**
+     * @return int return the number of injuries of the enemy at the given position
+     */
+    public int getInjuries(int index)
+    {
+        heal(index);
+        return injuries[index];
+    }
+
+    /**
+     * @return int return the moves the enemy at the given position made since they last healed
+     */
+    public int getMovesToHeal(int index)
+    {
+        heal(index);
+        return movesToHeal[index];
+    }
+
+    /**
+     * @return int return the bullets in the gun of the enemy at the given position,
+     *              -1 if they have dropped the gun
+     */
+    public int getBullets(int index)
+    {
+        return bullets[index];
+    }
+}
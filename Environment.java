@@ -0,0 +1,310 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+
+/**
+ * Class Environment is a part of "Operation Wawel" application.
+ * It wraps a Simulation in the step/reset interface used to train
+ * reinforcement learning agents.
+ *
+ * An agent picks one of getActionCount() actions. The actions are the
+ * commands of the game's command set, Game.COMMAND_WORDS, in its order,
+ * every word with each of its arguments: "go" in every direction, "back",
+ * "quit", "help", "collect", "drop" with every item of the world, "use",
+ * "open", "list" the player's items and the room's, and "attack enemy" with
+ * every item. The items are taken in the order of their names, so an
+ * action stands for the same command in every world with the same items;
+ * getCommand(...) gives the command an action stands for.
+ * The commands are played in a Simulation, by the rules of the game: a
+ * command that does nothing, like "help" or "list", wastes the turn, and
+ * "quit" ends the episode, except in a fight. A command word added to the
+ * game without an action here is refused when an environment is created.
+ * After every step the environment writes an observation of
+ * getObservationSize() numbers into the given array and returns a reward:
+ * 1 for winning, -1 for being killed and 0.1 for every piece of artwork
+ * picked up (or -0.1 for every piece lost). An episode ends when the game is
+ * over or after MAX_STEPS steps.
+ *
+ * Neither reset() nor step(...) print anything or allocate memory.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class Environment
+{
+    public static final int MAX_STEPS = 500;    // steps after which an episode is cut off
+
+    private static final float WIN_REWARD = 1.0f;
+    private static final float DEATH_REWARD = -1.0f;
+    private static final float ARTWORK_REWARD = 0.1f;
+
+    private static final int WAIT = -1;     // the simulation's action for a command that does nothing
+    private static final int QUIT = -2;     // the simulation's action for "quit", which ends the episode
+
+    private Simulation simulation;
+    private WorldMap map;
+    private String[] commands;          // action -> the command it stands for
+    private int[] simulationActions;    // action -> the simulation's action, WAIT or QUIT
+    private long seed;          // the seed of the next episode
+    private int steps;          // steps made in the current episode
+    private int artworkHeld;    // artwork carried after the last step
+    private boolean done;
+
+    /**
+     * Create an environment playing the game created with the given seed.
+     *
+     * @param long the seed of the game
+     */
+    public Environment(long seed)
+    {
+        this(new WorldMap(new Game(seed)), seed);
+    }
+
+    /**
+     * Create an environment playing in the given world.
+     *
+     * @param WorldMap the world, taken before the game has started
+     * @param long the seed of the random events of the first episode
+     * @throws IllegalStateException if a command word of the game has no actions
+     */
+    public Environment(WorldMap map, long seed)
+    {
+        this.map = map;
+        this.seed = seed;
+        simulation = new Simulation(map, seed);
+        createActions();
+    }
+
+    /**
+     * Number the commands of the game's command set, with their arguments.
+     */
+    private void createActions()
+    {
+        ArrayList<Integer> items = new ArrayList<>();
+        for(int item = 0; item < map.getItemCount(); item++)
+        {
+            items.add(item);
+        }
+        items.sort(Comparator.comparing(map::getItemName));
+
+        ArrayList<String> commandList = new ArrayList<>();
+        ArrayList<Integer> actionList = new ArrayList<>();
+        for(String commandWord : Game.COMMAND_WORDS)
+        {
+            for(int argument = 0; argument < argumentCount(commandWord); argument++)
+            {
+                int item = argument < items.size() ? items.get(argument) : -1;
+                switch(commandWord){
+                    case "go":
+                        commandList.add("go " + Room.DIRECTIONS[argument]);
+                        actionList.add(Simulation.GO + argument);
+                        break;
+                    case "back":
+                        commandList.add("back");
+                        actionList.add(Simulation.BACK);
+                        break;
+                    case "quit":
+                    case "help":
+                        commandList.add(commandWord);
+                        actionList.add(commandWord.equals("quit") ? QUIT : WAIT);
+                        break;
+                    case "list":
+                        commandList.add(argument == 0 ? "list player" : "list room");
+                        actionList.add(WAIT);
+                        break;
+                    case "collect":
+                        commandList.add("collect " + map.getItemName(item));
+                        actionList.add(simulation.collectAction(item));
+                        break;
+                    case "drop":
+                        commandList.add("drop " + map.getItemName(item));
+                        actionList.add(simulation.dropAction(item));
+                        break;
+                    case "open":
+                        commandList.add("open " + map.getItemName(item));
+                        actionList.add(simulation.openAction(item));
+                        break;
+                    case "use":
+                        commandList.add("use " + map.getItemName(item));
+                        actionList.add(simulation.useAction(item));
+                        break;
+                    default:    // attack
+                        commandList.add("attack enemy " + map.getItemName(item));
+                        actionList.add(simulation.attackAction(item));
+                        break;
+                }
+            }
+        }
+        commands = commandList.toArray(new String[0]);
+        simulationActions = new int[actionList.size()];
+        for(int action = 0; action < simulationActions.length; action++)
+        {
+            simulationActions[action] = actionList.get(action);
+        }
+    }
+
+    /**
+     * @param String a command word of the game
+     * @return int return the number of arguments the word is given in the actions
+     * @throws IllegalStateException if the word has no actions
+     */
+    private int argumentCount(String commandWord)
+    {
+        switch(commandWord){
+            case "go":
+                return Room.DIRECTIONS.length;
+            case "back":
+            case "quit":
+            case "help":
+                return 1;
+            case "list":
+                return 2;   // the player's items and the room's
+            case "collect":
+            case "drop":
+            case "open":
+            case "use":
+            case "attack":
+                return map.getItemCount();
+            default:
+                throw new IllegalStateException("The command \"" + commandWord + "\" has no actions.");
+        }
+    }
+
+    /**
+     * @return int return the number of possible actions
+     */
+    public int getActionCount()
+    {
+        return commands.length;
+    }
+
+    /**
+     * @param int the action
+     * @return String return the command the action stands for, as the player would type it
+     */
+    public String getCommand(int action)
+    {
+        return commands[action];
+    }
+
+    /**
+     * @return int return the number of values in an observation
+     */
+    public int getObservationSize()
+    {
+        return map.getRoomCount() + 4 + 3 * map.getItemCount()
+                + 2 * map.getEnemyCount() + WorldMap.DIRECTION_COUNT;
+    }
+
+    /**
+     * Start a new episode in the same world, with new random events.
+     *
+     * @param float[] the array to write the first observation into
+     * @param int the position of the observation in the array
+     */
+    public void reset(float[] observation, int offset)
+    {
+        seed = seed * 6364136223846793005L + 1442695040888963407L;
+        simulation.reset(seed);
+        simulation.begin();
+        steps = 0;
+        artworkHeld = simulation.getRequiredItemsHeld();
+        done = simulation.isFinished();
+        observe(observation, offset);
+    }
+
+    /**
+     * Perform the action and observe its outcome.
+     *
+     * @param int the action
+     * @param float[] the array to write the observation into
+     * @param int the position of the observation in the array
+     * @return float return the reward for the action
+     */
+    public float step(int action, float[] observation, int offset)
+    {
+        if(done){
+            observe(observation, offset);
+            return 0.0f;
+        }
+
+        int simulationAction = simulationActions[action];
+        if(simulationAction == QUIT && !simulation.isInFight()){
+            done = true;
+            observe(observation, offset);
+            return 0.0f;
+        }
+        simulation.step(simulationAction);     // QUIT in a fight wastes the round, like WAIT
+        steps++;
+
+        int held = simulation.getRequiredItemsHeld();
+        float reward = ARTWORK_REWARD * (held - artworkHeld);
+        artworkHeld = held;
+        if(simulation.hasWon()){
+            reward += WIN_REWARD;
+        }
+        else if(simulation.isDead()){
+            reward += DEATH_REWARD;
+        }
+        done = simulation.isFinished() || steps >= MAX_STEPS;
+
+        observe(observation, offset);
+        return reward;
+    }
+
+    /**
+     * @return boolean return TRUE if the episode is over, FALSE otherwise
+     */
+    public boolean isDone()
+    {
+        return done;
+    }
+
+    /**
+     * @return Simulation return the simulation played in the environment
+     */
+    public Simulation getSimulation()
+    {
+        return simulation;
+    }
+
+    /**
+     * Encode the state of the game: the player's room (one-hot), their
+     * injuries, whether they are fighting, the carried weight, for every item
+     * whether it is carried, lying in the player's room or still in a chest,
+     * for every enemy whether it is alive and in the player's room, and
+     * whether the door in every direction is open.
+     */
+    private void observe(float[] observation, int offset)
+    {
+        int position = offset;
+        int room = simulation.getPlayerRoom();
+        for(int i = 0; i < map.getRoomCount(); i++)
+        {
+            observation[position++] = i == room ? 1.0f : 0.0f;
+        }
+
+        observation[position++] = (float)simulation.getInjuries() / map.getPlayerMaxInjuries();
+        observation[position++] = simulation.isInFight() ? 1.0f : 0.0f;
+        observation[position++] = (float)simulation.getCarriedWeight() / map.getMaxWeight();
+        observation[position++] = (float)steps / MAX_STEPS;
+
+        for(int item = 0; item < map.getItemCount(); item++)
+        {
+            observation[position++] = simulation.getItemHolder(item) == WorldMap.PLAYER ? 1.0f : 0.0f;
+            observation[position++] = simulation.getItemRoom(item) == room ? 1.0f : 0.0f;
+            observation[position++] = simulation.getItemChest(item) >= 0 ? 1.0f : 0.0f;
+        }
+
+        for(int enemy = 0; enemy < map.getEnemyCount(); enemy++)
+        {
+            boolean alive = simulation.isEnemyAlive(enemy);
+            observation[position++] = alive ? 1.0f : 0.0f;
+            observation[position++] = alive && simulation.getEnemyRoom(enemy) == room ? 1.0f : 0.0f;
+        }
+
+        for(int direction = 0; direction < WorldMap.DIRECTION_COUNT; direction++)
+        {
+            observation[position++] = simulation.canGo(direction) ? 1.0f : 0.0f;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class EventBus is a part of "Operation Wawel" application.
+ * It passes the events of a game (see WorldEvent) from the game to any
+ * number of consumers, f.e. metrics, a journal or a spectator, which
+ * read them in their own threads, at their own pace.
+ *
+ * The events are kept in a ring of a fixed number of events, created
+ * together with the bus and reused, so publishing an event allocates no
+ * memory and takes no lock. Only the game's thread publishes. Every
+ * consumer remembers the number of the next event it is to read.
+ *
+ * The game never waits for the consumers. A consumer that falls behind
+ * by a whole ring misses the events written over in the meantime: it
+ * goes on from the oldest event still in the ring and counts the ones it
+ * missed. Every slot of the ring keeps the number of the event in it,
+ * written before and after the event, so that a consumer notices when
+ * an event it is copying is being written over.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class EventBus
+{
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+
+    private WorldEvent[] ring;
+    private int mask;                   // capacity - 1, the capacity is a power of two
+    private AtomicLongArray published;  // slot -> number of the event in it, -1 while written
+    private AtomicLong cursor;          // number of the last event published, -1 if none
+    private long next;                  // number of the next event, used by the game's thread only
+    private volatile int consumerCount;
+
+    /**
+     * Create a bus of the default capacity.
+     */
+    public EventBus()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a bus.
+     *
+     * @param int the number of events kept for the consumers, a power of two
+     */
+    public EventBus(int capacity)
+    {
+        if(capacity <= 0 || Integer.bitCount(capacity) != 1){
+            throw new IllegalArgumentException("The capacity has to be a power of two: " + capacity);
+        }
+        ring = new WorldEvent[capacity];
+        for(int slot = 0; slot < capacity; slot++)
+        {
+            ring[slot] = new WorldEvent();
+        }
+        mask = capacity - 1;
+        published = new AtomicLongArray(capacity);
+        for(int slot = 0; slot < capacity; slot++)
+        {
+            published.set(slot, -1);
+        }
+        cursor = new AtomicLong(-1);
+    }
+
+    /**
+     * @return boolean return TRUE if anyone reads the events, FALSE otherwise,
+     *                  so that events costly to find need not be published
+     */
+    public boolean hasConsumers()
+    {
+        return consumerCount > 0;
+    }
+
+    /**
+     * Publish an event. Only the game's thread may publish.
+     *
+     * @param WorldEvent.Type the type of the event
+     * @param int the turn the event happened in
+     * @param int the enemy's ID, or WorldEvent.PLAYER, who caused the event, -1 if none
+     * @param int the enemy's ID, or WorldEvent.PLAYER, the event happened to, -1 if none
+     * @param int id of the room the event happened in
+     * @param int id of the other room of a move or a door, -1 if none
+     * @param int index in Room.DIRECTIONS of the door opened, -1 if none
+     * @param Item the item collected, dropped or opened, null if none
+     */
+    public void publish(WorldEvent.Type type, int turn, int actor, int target, int room,
+                        int otherRoom, int direction, Item item)
+    {
+        long sequence = next++;
+        int slot = (int)sequence & mask;
+        published.set(slot, -1);        // the consumers copying the old event see it is gone
+        VarHandle.storeStoreFence();
+        ring[slot].set(type, sequence, turn, actor, target, room, otherRoom, direction, item);
+        published.setRelease(slot, sequence);
+        cursor.setRelease(sequence);
+    }
+
+    /**
+     * @return long return the number of events published so far
+     */
+    public long getPublishedCount()
+    {
+        return cursor.getAcquire() + 1;
+    }
+
+    /**
+     * Start reading the events, from the next one published.
+     *
+     * @return Consumer return the consumer reading them
+     */
+    public synchronized Consumer subscribe()
+    {
+        consumerCount++;
+        return new Consumer(cursor.getAcquire() + 1);
+    }
+
+    /**
+     * A reader of the events, used by one thread at a time.
+     */
+    public class Consumer
+    {
+        private long sequence;          // number of the next event to read
+        private long missed;            // events written over before they were read
+        private WorldEvent event;       // the copy handed to the handler
+        private boolean closed;
+
+        private Consumer(long sequence)
+        {
+            this.sequence = sequence;
+            event = new WorldEvent();
+        }
+
+        /**
+         * Hand all the events published since the last poll to a handler.
+         *
+         * @param EventHandler the handler of the events
+         * @return int return the number of events handled
+         */
+        public int poll(EventHandler handler)
+        {
+            int handled = 0;
+            long last = cursor.getAcquire();
+            while(sequence <= last)
+            {
+                if(last - sequence > mask){     // the ring has gone round since
+                    skipTo(last - mask);
+                }
+                int slot = (int)sequence & mask;
+                if(published.getAcquire(slot) == sequence){
+                    event.copy(ring[slot]);
+                    VarHandle.loadLoadFence();
+                    if(published.get(slot) == sequence){
+                        sequence++;
+                        handled++;
+                        handler.onEvent(event);
+                        continue;
+                    }
+                }
+                // the event is being written over, go on from the oldest one left
+                last = cursor.getAcquire();
+                skipTo(Math.max(sequence + 1, last - mask));
+            }
+            return handled;
+        }
+
+        /**
+         * Skip the events before the given one, counting them as missed.
+         */
+        private void skipTo(long first)
+        {
+            missed += first - sequence;
+            sequence = first;
+        }
+
+        /**
+         * @return long return the number of events the consumer missed
+         *                  because it fell behind by a whole ring
+         */
+        public long getMissed()
+        {
+            return missed;
+        }
+
+        /**
+         * @return long return the number of events published but not read yet
+         */
+        public long getBacklog()
+        {
+            return cursor.getAcquire() + 1 - sequence;
+        }
+
+        /**
+         * Stop reading the events.
+         */
+        public void close()
+        {
+            synchronized(EventBus.this)
+            {
+                if(!closed){
+                    closed = true;
+                    consumerCount--;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+/**
+ * Interface EventHandler is a part of "Operation Wawel" application.
+ * It is given the events a consumer of an EventBus reads, one at a time
+ * and in the order they were published.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public interface EventHandler
+{
+    /**
+     * Handle an event. The event is only valid until the method returns.
+     *
+     * @param WorldEvent the event
+     */
+    void onEvent(WorldEvent event);
+}
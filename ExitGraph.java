@@ -0,0 +1,110 @@
+import java.util.ArrayList;
+
+/**
+ * Class ExitGraph is a part of "Operation Wawel" application.
+ * It lists, for every room of a game, the exits of other rooms leading
+ * into it, so that the rooms the player or a noise can be reached from
+ * are found by going backwards from the player or the noise. The exits
+ * are listed once, when the graph is created; whether they are open is
+ * read from the rooms every time.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class ExitGraph
+{
+    private Room[] rooms;           // room id -> room
+    private int[] entryStarts;      // room id -> the first of its entries in the lists below
+    private int[] entryRooms;       // the rooms with an exit into the room,
+    private int[] entryDirections;  // and the directions of these exits
+
+    /**
+     * Create the graph of the rooms of a game.
+     *
+     * @param ArrayList<Room> all the rooms of the game, indexed by their ids
+     */
+    public ExitGraph(ArrayList<Room> rooms)
+    {
+        this.rooms = rooms.toArray(new Room[0]);
+        int directions = Room.DIRECTIONS.length;
+
+        // count the exits leading into every room, then list them grouped by the room
+        entryStarts = new int[this.rooms.length + 1];
+        for(Room room : this.rooms)
+        {
+            for(int direction = 0; direction < directions; direction++)
+            {
+                if(room.getExit(direction) != null){
+                    entryStarts[room.getExit(direction).getId() + 1]++;
+                }
+            }
+        }
+        for(int room = 0; room < this.rooms.length; room++)
+        {
+            entryStarts[room + 1] += entryStarts[room];
+        }
+        entryRooms = new int[entryStarts[this.rooms.length]];
+        entryDirections = new int[entryRooms.length];
+        int[] filled = new int[this.rooms.length];
+        for(Room room : this.rooms)
+        {
+            for(int direction = 0; direction < directions; direction++)
+            {
+                Room neighbour = room.getExit(direction);
+                if(neighbour != null){
+                    int entry = entryStarts[neighbour.getId()] + filled[neighbour.getId()]++;
+                    entryRooms[entry] = room.getId();
+                    entryDirections[entry] = direction;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return int return the number of rooms
+     */
+    public int getRoomCount()
+    {
+        return rooms.length;
+    }
+
+    /**
+     * @return int return the first entry into the given room
+     */
+    public int getEntryStart(int room)
+    {
+        return entryStarts[room];
+    }
+
+    /**
+     * @return int return the entry after the last one into the given room
+     */
+    public int getEntryEnd(int room)
+    {
+        return entryStarts[room + 1];
+    }
+
+    /**
+     * @return int return the room the entry leads from
+     */
+    public int getEntryRoom(int entry)
+    {
+        return entryRooms[entry];
+    }
+
+    /**
+     * @return int return the index in Room.DIRECTIONS of the exit the entry is
+     */
+    public int getEntryDirection(int entry)
+    {
+        return entryDirections[entry];
+    }
+
+    /**
+     * @return boolean return TRUE if the door of the entry is open, FALSE otherwise
+     */
+    public boolean isEntryOpen(int entry)
+    {
+        return rooms[entryRooms[entry]].isExitOpen(entryDirections[entry]);
+    }
+}
@@ -0,0 +1,19 @@
+/**
+ * Interface ExitListener is a part of "Operation Wawel" application.
+ * It is told by a room whenever one of the room's closed exits is opened,
+ * so that whatever depends on the doors of the building (f.e. the paths
+ * the enemies take) can be updated instead of being worked out again.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public interface ExitListener
+{
+    /**
+     * A closed exit of a room has been opened.
+     *
+     * @param Room the room whose exit has been opened
+     * @param int index of the exit's direction in Room.DIRECTIONS
+     */
+    void exitOpened(Room room, int direction);
+}
@@ -0,0 +1,128 @@
+import java.util.Arrays;
+
+/**
+ * Class FlowField is a part of "Operation Wawel" application.
+ * It shows every room the way to the player: the number of moves through
+ * open doors the room is away from the player's room, and the direction
+ * of the first of these moves. All the enemies pursuing the player share
+ * one flow field, so thousands of them cost a single search through the
+ * building instead of one search each.
+ *
+ * The field is searched again only when the player has changed rooms.
+ * When a door opens the paths can only get shorter, so only the rooms
+ * that get closer to the player are updated, starting from the door.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class FlowField implements ExitListener
+{
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private ExitGraph graph;        // the rooms and the exits leading into them
+    private int source = -1;        // the room the distances are counted to, -1 if none yet
+    private int[] distances;        // room id -> moves to the source, UNREACHABLE if none
+    private int[] steps;            // room id -> direction of the first move, -1 if none
+    private int[] queue;
+
+    /**
+     * Create an empty flow field for the rooms of a game.
+     *
+     * @param ExitGraph the graph of the rooms of the game
+     */
+    public FlowField(ExitGraph graph)
+    {
+        this.graph = graph;
+        distances = new int[graph.getRoomCount()];
+        steps = new int[graph.getRoomCount()];
+        queue = new int[graph.getRoomCount()];
+    }
+
+    /**
+     * Make the field lead to the given room, searching the building again
+     * if it led somewhere else.
+     *
+     * @param Room the room the field is to lead to, i.e. the player's room
+     */
+    public void update(Room target)
+    {
+        if(target.getId() == source){
+            return;
+        }
+        source = target.getId();
+        Arrays.fill(distances, UNREACHABLE);
+        Arrays.fill(steps, -1);
+        distances[source] = 0;
+        queue[0] = source;
+        spread(1);
+    }
+
+    /**
+     * Update the rooms that get closer to the player through the opened exit.
+     *
+     * @param Room the room whose exit has been opened
+     * @param int index of the exit's direction in Room.DIRECTIONS
+     */
+    public void exitOpened(Room room, int direction)
+    {
+        if(source < 0){
+            return;
+        }
+        int from = room.getId();
+        int to = room.getExit(direction).getId();
+        if(distances[to] != UNREACHABLE && distances[to] + 1 < distances[from]){
+            distances[from] = distances[to] + 1;
+            steps[from] = direction;
+            queue[0] = from;
+            spread(1);
+        }
+    }
+
+    /**
+     * Go through the rooms in the queue, in the order of their distances,
+     * and make the rooms with an open exit into them closer where it is
+     * shorter to go that way. The rooms made closer join the queue.
+     *
+     * @param int number of rooms in the queue
+     */
+    private void spread(int size)
+    {
+        for(int next = 0; next < size; next++)
+        {
+            int room = queue[next];
+            int distance = distances[room] + 1;
+            for(int entry = graph.getEntryStart(room); entry < graph.getEntryEnd(room); entry++)
+            {
+                int neighbour = graph.getEntryRoom(entry);
+                if(distance < distances[neighbour] && graph.isEntryOpen(entry)){
+                    // the queue starts from one room, so the rooms are reached in
+                    // the order of their new distances and every one joins it once
+                    queue[size++] = neighbour;
+                    distances[neighbour] = distance;
+                    steps[neighbour] = graph.getEntryDirection(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param int id of a room
+     * @return int return the number of moves from the room to the player,
+     *              UNREACHABLE if the player cannot be reached
+     */
+    public int getDistance(int room)
+    {
+        return distances[room];
+    }
+
+    /**
+     * @param int id of a room
+     * @return int return the index in Room.DIRECTIONS of the exit leading
+     *              towards the player, -1 in the player's room and in the
+     *              rooms the player cannot be reached from
+     */
+    public int getStep(int room)
+    {
+        return steps[room];
+    }
+}
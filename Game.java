@@ -1,6 +1,9 @@
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  *  This class is the main class of the "Operation Wawel" application. 
@@ -36,14 +39,51 @@ public class Game
                                         // room, because that would eliminate
                                         // the chance of opening the door
     
-    private HashSet<Room> occupiedRooms;    // a set of rooms occupied by enemies
-                                            // necessary to keep a room occupied 
-                                            // only by one enemy
+    private EnemyStore enemies;     // stores all the enemies and the rooms they occupy,
+                                    // necessary to keep a room occupied only by one enemy
+    private Battle battle;          // the player's fight with an enemy, a battle of two,
+                                    // cleared and reused for every fight
     
-    private HashSet<Character> enemies;     // stores all the enemies
+    private FlowField flowField;    // the way to the player for the enemies pursuing them,
+                                    // null if the enemies walk at random
+    private Hearing hearing;        // carries the noises the player makes to the enemies,
+                                    // null if the enemies do not hear them
     
     private HashSet<Item> artwork;      // stores all the items that need to be 
                                         // collected in order to win the game
+    
+    private Objectives objectives;      // the goals set besides winning, f.e. killing
+                                        // a number of enemies, none by default
+    
+    private EventBus events;    // what happens in the game, for whoever watches it,
+                                // null until someone asks for it
+    private int turn;           // number of the current turn, counted from 1
+    
+    private TimingWheel timers;     // the tasks to be done in later turns,
+                                    // null until something is scheduled
+    private RoomTriggers triggers;  // the scripted reactions attached to the rooms
+    
+    private ArrayList<Key> keys;    // all the keys in the game
+    private DoorLocks doors;        // the doors and the keys they need
+    
+    private Random rand;    // the source of all randomness in the game, a game
+                            // created with a given seed always plays the same way
+    
+    private GameConfig config;  // the numbers the balance of the game depends on
+    
+    private GameMetrics metrics;    // counters and latencies shared by all the games
+    private long session;           // number of the game in this virtual machine,
+                                    // recorded in the flight recorder events
+    private long waitNanos;         // time spent waiting for commands, left out of the latencies
+    
+    private static final AtomicLong sessions = new AtomicLong();    // games created so far
+    
+    // all the valid command words
+    public static final String[] COMMAND_WORDS = {"go", "back", "quit", "help", "collect",
+                                                  "drop", "use", "open", "list", "attack"};
+    
+    private static final int MAX_WORLD_ATTEMPTS = 1000;     // worlds created before giving up
+                                                            // on finding a winnable one
                                         
         
     /**
@@ -51,15 +91,98 @@ public class Game
      */
     public Game() 
     {
-        Room startingRoom = createRooms();    // create all the rooms
+        this(new Random().nextLong());
+    }
+    
+    /**
+     * Create the game with the given seed and initialise its internal map.
+     * Games created with the same seed have the same layout of enemies and items.
+     * 
+     * @param long the seed of the game's random generator
+     */
+    public Game(long seed)
+    {
+        this(seed, new GameConfig());
+    }
+    
+    /**
+     * Create the game with the given seed and configuration and initialise 
+     * its internal map.
+     * 
+     * @param long the seed of the game's random generator
+     * @param GameConfig the numbers the balance of the game depends on
+     */
+    public Game(long seed, GameConfig config)
+    {
+        this(seed, config, System.in);
+    }
+    
+    /**
+     * Create the game with the given seed and configuration, reading the
+     * player's commands from the given stream instead of the terminal.
+     * 
+     * @param long the seed of the game's random generator
+     * @param GameConfig the numbers the balance of the game depends on
+     * @param InputStream source of the player's commands
+     */
+    public Game(long seed, GameConfig config, InputStream input)
+    {
+        rand = new Random(seed);
+        this.config = config;
+        metrics = GameMetrics.getInstance();
+        session = sessions.incrementAndGet();
         
-        player = new Player(startingRoom);   // create the player
+        // create the world again until it is one the game can be won in
+        WorldValidator validator = null;
+        for(int attempt = 0; validator == null || !validator.isWinnable(); attempt++)
+        {
+            if(attempt == MAX_WORLD_ATTEMPTS){
+                throw new IllegalStateException("No winnable world created in " + attempt
+                                                + " attempts: " + validator.getProblem());
+            }
+            
+            Room startingRoom = createRooms();    // create all the rooms
+            
+            player = new Player(startingRoom, config);   // create the player
+            
+            createEnemies();    // create enemies of the player
+            
+            createItems();  // create all items in the game
+            player.setTargets(artwork);     // the player counts the artwork they carry
+            
+            // every door closed at the start is locked with the key of its room
+            doors = new DoorLocks(rooms);
+            for(Key key : keys)
+            {
+                doors.lockClosedDoors(key.getCorrespondingRoom(), key.getMask());
+            }
+            
+            validator = new WorldValidator(new WorldMap(this));
+        }
         
-        createEnemies();    // create enemies of the player
+        ExitGraph graph = new ExitGraph(rooms);
+        if(config.isPursuit()){
+            flowField = new FlowField(graph);
+        }
+        if(config.getNoiseRadius() > 0){
+            hearing = new Hearing(graph, config.getNoiseRadius());
+        }
+        for(Room room : rooms)
+        {
+            room.setExitListener(this::exitOpened);     // the doors opened later change
+                                                        // the enemies' ways
+        }
         
-        createItems();  // create all items in the game
+        objectives = new Objectives();
+        triggers = new RoomTriggers(rooms.size());
+        player.setTriggers(triggers);
         
-        createParser();     // create the parser and add valid commands
+        int period = config.getReinforcementPeriod();
+        if(period > 0){
+            getTimers().schedule(period, period, this::reinforce, 0);
+        }
+        
+        createParser(input);    // create the parser and add valid commands
     }
 
     /**
@@ -75,31 +198,13 @@ public class Game
         Room outside, dragonsDen, mainChamber, cathedral, audienceHall, ballroom, arsenal;
       
         // create the rooms
-        outside = new Room("outside the main entrance of the Wawel Castle");
-        rooms.add(outside);
-        openRooms.add(outside);
-        
-        dragonsDen = new Room("in the Dragon's Den");
-        rooms.add(dragonsDen);
-        openRooms.add(dragonsDen);
-        
-        mainChamber = new Room("in the main chamber");
-        rooms.add(mainChamber);
-        openRooms.add(mainChamber);
-        
-        cathedral = new Room("in the cathedral");
-        rooms.add(cathedral);
-        openRooms.add(cathedral);
-        
-        audienceHall = new Room("in the audience hall");
-        rooms.add(audienceHall);
-        
-        ballroom = new Room("in the ballroom");
-        rooms.add(ballroom);
-        
-        arsenal = new Room("in the arsenal");
-        rooms.add(arsenal);
-        openRooms.add(arsenal);
+        outside = createRoom("outside the main entrance of the Wawel Castle", true);
+        dragonsDen = createRoom("in the Dragon's Den", true);
+        mainChamber = createRoom("in the main chamber", true);
+        cathedral = createRoom("in the cathedral", true);
+        audienceHall = createRoom("in the audience hall", false);
+        ballroom = createRoom("in the ballroom", false);
+        arsenal = createRoom("in the arsenal", true);
         
         // initialise room exits
         outside.setExit("east", cathedral, true);
@@ -124,34 +229,44 @@ public class Game
         return outside;  // start game outside, i.e. return starting location
     }
 
+    /**
+     * Create a single room and add it to the list of rooms. The room's
+     * index in the list becomes its id.
+     * 
+     * @param String description of the room
+     * @param boolean TRUE if the room can be entered without a key, FALSE otherwise
+     * @return Room the created room
+     */
+    private Room createRoom(String description, boolean open)
+    {
+        Room room = new Room(description, rooms.size());
+        rooms.add(room);
+        if(open){
+            openRooms.add(room);
+        }
+        return room;
+    }
+
     /**
      * Create all the enemies.
      */
     private void createEnemies()
     {
-        occupiedRooms = new HashSet<>();
-        enemies = new HashSet<>();
-        
-        // generate pseudorandom index of the starting room for an enemy
-        Random rand = new Random();
-        int roomIndex = 1 + rand.nextInt(rooms.size() - 1);     // first room from the list
-                                                                // not considered, we do not
-                                                                // want any enemies in the same
-                                                                // room as th player at the
-                                                                // beginning of the game
+        enemies = new EnemyStore(rooms, config);    // kept in the order of creation, so that
+                                                    // games with the same seed play the same way
+        battle = new Battle(enemies, 0);    // the enemy has only the player to aim at
         
-        // create enemy no. 1
-        Room enemyLocation = rooms.get(roomIndex);
-        Character enemy = new Character(enemyLocation);
-        enemies.add(enemy);
-        occupiedRooms.add(enemyLocation);
-        
-        //create enemy no.2
-        roomIndex = 1 + rand.nextInt(rooms.size() - 1);
-        enemyLocation = rooms.get(roomIndex);
-        enemy = new Character(enemyLocation);
-        enemies.add(enemy);
-        occupiedRooms.add(enemyLocation);
+        // create the enemies, each in a pseudorandom room
+        for(int i = 0; i < config.getEnemyCount(); i++)
+        {
+            int roomIndex = 1 + rand.nextInt(rooms.size() - 1);     // first room from the list
+                                                                    // not considered, we do not
+                                                                    // want any enemies in the same
+                                                                    // room as th player at the
+                                                                    // beginning of the game
+            Room enemyLocation = rooms.get(roomIndex);
+            enemies.add(enemyLocation);     // every enemy is armed with a gun
+        }
     }
     
     /**
@@ -159,9 +274,9 @@ public class Game
      */
     private void createItems()
     {       
-        artwork = new HashSet<>();
+        artwork = new LinkedHashSet<>();
+        keys = new ArrayList<>();
         Item item;      // temporary variable to store consecutively created items
-        Random rand = new Random();
         int roomIndex;
         Room room;      // temporary variable to store rooms in which the items are disposed
         
@@ -196,39 +311,153 @@ public class Game
         roomIndex = 1 + rand.nextInt(openRooms.size() - 1);
         room = openRooms.get(roomIndex);        // dispose in one of the open rooms
         room.addItem(item);
+        keys.add((Key)item);
         
-        item = new Weapon("gun1", "A gun.", 3, 10);
+        item = new Weapon("gun1", "A gun.", 3, config.getBulletsPerWeapon());
         player.addItem(item);       // give weapon to the player
-        
-        // create and give weapons to the enemies
-        int gunNumber = 2;
-        for(Character enemy : enemies)
-        {
-            item = new Weapon("gun" + gunNumber, "A gun.", 3, 10);
-            enemy.addItem(item);
-            gunNumber++;
-        }
     }
     
     /**
      * Create the parser.
+     * 
+     * @param InputStream source of the player's commands
      */
-    private void createParser()
+    private void createParser(InputStream input)
     {
         // create the parser 
-        parser = new Parser();
+        parser = new Parser(input);
         
         // add all valid commands
-        parser.addCommand("go");
-        parser.addCommand("back");
-        parser.addCommand("quit");
-        parser.addCommand("help");
-        parser.addCommand("collect");
-        parser.addCommand("drop");
-        parser.addCommand("use");
-        parser.addCommand("open");
-        parser.addCommand("list");
-        parser.addCommand("attack");
+        for(String commandWord : COMMAND_WORDS)
+        {
+            parser.addCommand(commandWord);
+        }
+    }
+    
+    /**
+     * @return ArrayList<Room> return all the rooms in the game, the first
+     *                          one is the starting location
+     */
+    public ArrayList<Room> getRooms()
+    {
+        return rooms;
+    }
+    
+    /**
+     * @return ArrayList<Room> return the rooms that can be entered without a key,
+     *                          captured players and their items end up in them
+     */
+    public ArrayList<Room> getOpenRooms()
+    {
+        return openRooms;
+    }
+    
+    /**
+     * @return EnemyStore return the enemies still alive
+     */
+    public EnemyStore getEnemies()
+    {
+        return enemies;
+    }
+    
+    /**
+     * @return HashSet<Item> return the items that have to be collected to win
+     */
+    public HashSet<Item> getArtwork()
+    {
+        return artwork;
+    }
+    
+    /**
+     * @return Objectives return the objectives of the game, to which new
+     *                      ones can be added before the game is played
+     */
+    public Objectives getObjectives()
+    {
+        return objectives;
+    }
+    
+    /**
+     * Return the bus the events of the game are published on, creating it
+     * the first time, so that the games no one watches do not keep one.
+     * The bus is only published on by the thread playing the game.
+     * 
+     * @return EventBus return the bus of the game's events
+     */
+    public EventBus getEventBus()
+    {
+        if(events == null){
+            events = new EventBus();
+        }
+        return events;
+    }
+    
+    /**
+     * Return the timing wheel the tasks to be done in later turns are
+     * scheduled on, creating it the first time. The wheel moves on at the
+     * start of every turn.
+     * 
+     * @return TimingWheel return the game's timing wheel
+     */
+    public TimingWheel getTimers()
+    {
+        if(timers == null){
+            timers = new TimingWheel();
+        }
+        return timers;
+    }
+    
+    /**
+     * @return RoomTriggers return the triggers attached to the rooms, to which
+     *                      new ones can be added before or during the game
+     */
+    public RoomTriggers getTriggers()
+    {
+        return triggers;
+    }
+    
+    /**
+     * @return DoorLocks return the doors of the game and the keys they need
+     */
+    public DoorLocks getDoors()
+    {
+        return doors;
+    }
+    
+    /**
+     * @return GameConfig return the configuration of the game
+     */
+    public GameConfig getConfig()
+    {
+        return config;
+    }
+
+    /**
+     * Set the seed of the game's random generator, so that the rest of the
+     * game is played like a Simulation given the same seed.
+     * Package-private, so that ReplayCheck can compare the two.
+     *
+     * @param long the seed
+     */
+    void reseed(long seed)
+    {
+        rand.setSeed(seed);
+    }
+    
+    /**
+     * @return long return the number of the game in this virtual machine
+     */
+    public long getSession()
+    {
+        return session;
+    }
+    
+    /**
+     * @return Player return the player
+     */
+    public Player getPlayer()
+    {
+        return player;
     }
     
     /**
@@ -252,35 +481,82 @@ public class Game
                 
         boolean finished = false;
         while (! finished) {
-            moveCharacters();   // try to move each enemy around the building
-            
-            Room currentRoom = player.getCurrentRoom();
-            boolean roomOccupied = isOccupied(currentRoom);
-            
-            boolean endTheGame;
-            
-            if(roomOccupied){   // if the room was entered by an enemy, trigger interaction
-                endTheGame = interact(currentRoom);
-            }
-            else{       // else, read and process command
-                System.out.println();
-                System.out.println(player.getCurrentRoom().getLongDescription());
-
-                Command command = parser.getCommand();
-                endTheGame = processCommand(command);
-            }
-            
-            if(!endTheGame){   // if there was no signal to end the game, meaning
-                               // the player did not die, check if the player won
-                finished = checkForWin();
-            }
-            else{
-                finished = true;
-            }
+            finished = playTurn();
         }
         System.out.println("Thank you for playing.  Good bye.");
     }
 
+    /**
+     * Play a single turn: move the enemies, then either let the player meet
+     * the enemy in their room or read and process the player's command.
+     * 
+     * @return boolean return TRUE if the game is over, FALSE otherwise
+     */
+    public boolean playTurn()
+    {
+        metrics.turnPlayed();
+        objectives.fire(Objectives.Event.TURN_PLAYED);
+        turn++;
+        if(timers != null){
+            timers.advance();   // do what is due this turn
+        }
+        
+        GameEvents.TurnEvent moveEvent = GameEvents.Phase.MOVE_CHARACTERS.begin();
+        moveCharacters();   // try to move each enemy around the building
+        GameEvents.end(moveEvent, session, player.getCurrentRoom(), null);
+        
+        Room currentRoom = player.getCurrentRoom();
+        GameEvents.TurnEvent occupancyEvent = GameEvents.Phase.OCCUPANCY_CHECK.begin();
+        boolean roomOccupied = isOccupied(currentRoom);
+        GameEvents.end(occupancyEvent, session, currentRoom, null);
+        
+        boolean endTheGame;
+        
+        if(roomOccupied){   // if the room was entered by an enemy, trigger interaction
+            endTheGame = interact(currentRoom);
+        }
+        else{       // else, read and process command
+            System.out.println();
+            System.out.println(player.getCurrentRoom().getLongDescription());
+
+            Command command = readCommand();
+            GameEvents.TurnEvent commandEvent = GameEvents.Phase.PROCESS_COMMAND.begin();
+            endTheGame = processCommand(command);
+            GameEvents.end(commandEvent, session, currentRoom, command.getCommandWord());
+        }
+        
+        if(!endTheGame){   // if there was no signal to end the game, meaning
+                           // the player did not die, check if the player won
+            return checkForWin();
+        }
+        else{
+            return true;
+        }
+    }
+    
+    /**
+     * Wait for the player's command and parse it. Both phases are recorded
+     * as flight recorder events, and the time spent waiting is added up, to
+     * be left out of the latencies.
+     * 
+     * @return Command return the command
+     */
+    private Command readCommand()
+    {
+        Room room = player.getCurrentRoom();
+        
+        GameEvents.TurnEvent waitEvent = GameEvents.Phase.COMMAND_WAIT.begin();
+        long start = System.nanoTime();
+        parser.readLine();
+        waitNanos += System.nanoTime() - start;
+        GameEvents.end(waitEvent, session, room, null);
+        
+        GameEvents.TurnEvent parseEvent = GameEvents.Phase.COMMAND_PARSE.begin();
+        Command command = parser.parse();
+        GameEvents.end(parseEvent, session, room, command.getCommandWord());
+        return command;
+    }
+
     /**
      * Print out the opening message for the player.
      */
@@ -297,6 +573,10 @@ public class Game
         System.out.println("Number of items you have to collect to win: " + artwork.size());
         System.out.println("Number of enemies in the game: " + enemies.size());
         System.out.println("Maximum number of injuries: " + player.getMaxInjuriesNumber());
+        for(Objective objective : objectives.getObjectives())
+        {
+            System.out.println("Objective: " + objective.getDescription());
+        }
         System.out.println();
         System.out.println("Type 'help' if you need help.");
     }
@@ -308,6 +588,22 @@ public class Game
      * @return boolean return TRUE if the command ends the game, FALSE otherwise
      */
     private boolean processCommand(Command command)
+    {
+        long start = System.nanoTime();
+        long waited = waitNanos;    // a fight started by the command reads commands too
+        boolean endTheGame = executeCommand(command);
+        metrics.recordLatency(GameMetrics.slotOf(command.getCommandWord()),
+                              System.nanoTime() - start - (waitNanos - waited));
+        return endTheGame;
+    }
+    
+    /**
+     * Execute the command, on behalf of processCommand(...).
+     * 
+     * @param Command the command to be executed
+     * @return boolean return TRUE if the command ends the game, FALSE otherwise
+     */
+    private boolean executeCommand(Command command)
     {
         boolean endTheGame = false;
 
@@ -364,52 +660,81 @@ public class Game
     
     /**
      * Move all the characters (except the player).
+     * Package-private, so that it can be measured by Benchmarks.
      */
-    private void moveCharacters()
+    void moveCharacters()
     {
-        if(enemies.size() > 0){     // execute only if there exist characters
-            String[] directions = {"north", "south", "east", "west", "up", "down"};
-            Random rand = new Random();
-            
-            for(Character enemy : enemies)
-            {
-                int index = rand.nextInt(6);    // generate one of 6 possible directions
-                String direction = directions[index];
-                
-                // check if the character can move in the desired direction
-                Character.MovePossibility canMove = enemy.isMovePossible(direction);
-                
-                // if the move is possible try to make it
-                if(canMove == Character.MovePossibility.POSSIBLE){
-                    Room room = enemy.getCurrentRoom().getExit(direction);
-                    boolean roomOccupied = isOccupied(room);
-                    
-                    // move to another room only if there are no 
-                    // other characters there
-                    if(!roomOccupied){
-                        moveCharacter(enemy, direction);
-                    }
-                }
-            }
+        // each enemy tries a random direction, or the one towards the
+        // player if pursuing them, and moves to another room only if
+        // the door is open and there are no other characters there
+        if(flowField != null){
+            flowField.update(player.getCurrentRoom());
+        }
+        enemies.moveAll(rand, flowField, hearing);
+        if(events != null && events.hasConsumers()){
+            enemies.publishMoves(events, turn);
         }
     }
     
     /**
-     * Move a single character.
+     * Let an enemy reinforcement into a random room, unless the room is
+     * occupied or the player is in it. Scheduled every few turns.
      * 
-     * @param Character the character to move
-     * @param String direction in which to move the character
+     * @param int not used
      */
-    private void moveCharacter(Character character, String direction)
+    private void reinforce(int argument)
     {
-        // remove the old location from the list of occupied rooms
-        occupiedRooms.remove(character.getCurrentRoom());
-        
-        // change character's location
-        character.changeRoom(direction);
-        
-        // add the new location to the list of occupied rooms
-        occupiedRooms.add(character.getCurrentRoom());
+        Room room = rooms.get(1 + rand.nextInt(rooms.size() - 1));  // never outside
+        if(room != player.getCurrentRoom() && !isOccupied(room)){
+            enemies.add(room);
+        }
+    }
+    
+    /**
+     * Tell the enemies' ways that a closed exit has been opened.
+     * 
+     * @param Room the room whose exit has been opened
+     * @param int index of the exit's direction in Room.DIRECTIONS
+     */
+    private void exitOpened(Room room, int direction)
+    {
+        if(flowField != null){
+            flowField.exitOpened(room, direction);
+        }
+        if(hearing != null){
+            hearing.exitOpened(room, direction);
+        }
+        publish(WorldEvent.Type.DOOR_OPENED, -1, -1, room.getId(), room.getExit(direction).getId(),
+                direction, null);
+    }
+    
+    /**
+     * Publish an event of the game, if anyone has asked for the bus.
+     * 
+     * @param WorldEvent.Type the type of the event
+     * @param int the enemy's ID, or WorldEvent.PLAYER, who caused the event, -1 if none
+     * @param int the enemy's ID, or WorldEvent.PLAYER, the event happened to, -1 if none
+     * @param int id of the room the event happened in
+     * @param int id of the other room of a move or a door, -1 if none
+     * @param int index in Room.DIRECTIONS of the door opened, -1 if none
+     * @param Item the item collected, dropped or opened, null if none
+     */
+    private void publish(WorldEvent.Type type, int actor, int target, int room, int otherRoom,
+                         int direction, Item item)
+    {
+        if(events != null){
+            events.publish(type, turn, actor, target, room, otherRoom, direction, item);
+        }
+    }
+    
+    /**
+     * Make a noise in the player's room, the enemies close enough hear it.
+     */
+    private void makeNoise()
+    {
+        if(hearing != null){
+            hearing.makeNoise(player.getCurrentRoom(), enemies);
+        }
     }
     
     /**
@@ -451,20 +776,27 @@ public class Game
      */
     private boolean interact(Room room)
     {
-        printInteractionMessage();
+        GameEvents.TurnEvent interactEvent = GameEvents.Phase.INTERACT.begin();
         
-        Random rand = new Random();
+        printInteractionMessage();
         
         int enemyAction = rand.nextInt();
         
-        // only approx. one time out of five the player will be 
-        // captured and teleported
-        if(enemyAction % 5 != 0){
+        // only approx. one time out of five (by default) the player 
+        // will be captured and teleported
+        if(enemyAction % config.getCaptureOdds() != 0){
             printFightMessage();
-            Character enemy = enemyInRoom(room);    // get the enemy
+            Enemy enemy = enemyInRoom(room);    // get the enemy
             
             // engage the characters in a fight
+            metrics.fightStarted();
+            GameEvents.TurnEvent fightEvent = GameEvents.Phase.FIGHT.begin();
+            long start = System.nanoTime();
+            long waited = waitNanos;
             boolean endTheGame = fight(player, enemy);     
+            metrics.recordLatency(GameMetrics.FIGHT, System.nanoTime() - start - (waitNanos - waited));
+            GameEvents.end(fightEvent, session, room, null);
+            GameEvents.end(interactEvent, session, room, null);
             return endTheGame;
         }
         else{
@@ -478,7 +810,13 @@ public class Game
             
             // move the player to the destination and drop all
             // their items in random open rooms
-            player.teleport(destination, openRooms);
+            int enemyId = enemyInRoom(room).getId();
+            player.teleport(destination, openRooms, rand);
+            metrics.playerCaptured();
+            publish(WorldEvent.Type.CAPTURED, enemyId, WorldEvent.PLAYER, room.getId(),
+                    destination.getId(), -1, null);
+            objectives.fire(Objectives.Event.PLAYER_CAPTURED);
+            GameEvents.end(interactEvent, session, room, null);
             return false;   // the game is not finished
         }
     }
@@ -505,24 +843,26 @@ public class Game
     /**
      * Process a fight between two characters: the player and an enemy.
      * The fight goes on until one of the characters dies or the player 
-     * decides to run away.
+     * decides to run away. It is played as a battle of the two: in every
+     * round the enemy fires first, then the player is asked for a command
+     * and fires if they attack.
      * 
      * @param Player the player
-     * @param Character the enemy
+     * @param Enemy the enemy
      * @return boolean return TRUE if the result ends the game, FALSE otherwise
      */
-    private boolean fight(Player player, Character enemy)
+    boolean fight(Player player, Enemy enemy)
     {
-        Character.AttackPossibility canEnemyAttack;
+        battle.clear();
+        int playerCombatant = battle.addPlayer(player, true);
+        int enemyCombatant = battle.addEnemy(enemies.indexOf(enemy.getId()));
         
         while(true)
         {
-            // check if the enemy can attack the player
-            // if they can, perform the attack
-            // if they can't, do nothing
-            canEnemyAttack = enemy.canAttack();
-            if(canEnemyAttack == Character.AttackPossibility.POSSIBLE){
-                enemy.attack(player, enemy.getWeapon());
+            // the enemy attacks the player if they have bullets left
+            if(battle.resolveVolley(Battle.ENEMIES) > 0){
+                publish(WorldEvent.Type.HIT, enemy.getId(), WorldEvent.PLAYER,
+                        player.getCurrentRoom().getId(), -1, -1, null);
                 System.out.println();
                 System.out.println("You have been hit!");
                 System.out.println("Number of injuries: " + player.getInjuriesNumber() + "/"
@@ -533,7 +873,7 @@ public class Game
             // the player might have been killed with the first 
             // enemy attack in this fight
             if(!player.isDead()){
-                Command command = parser.getCommand();
+                Command command = readCommand();
                 String commandWord = command.getCommandWord();
                 
                 if(command.isUnknown()) {
@@ -555,7 +895,7 @@ public class Game
                     return endTheGame;
                 }
                 else if(commandWord.equals("attack")){
-                    processAttack(command, enemy);
+                    processAttack(command, enemy, playerCombatant, enemyCombatant);
                 }
                 else{
                     System.out.println("You cannot use this command now!");
@@ -566,11 +906,10 @@ public class Game
                     // all the enemy's items are dropped in the current room
                     enemy.dropAllItems();
                     
+                    // remove the enemy from the game,
                     // the current room is no longer occupied
-                    occupiedRooms.remove(enemy.getCurrentRoom());
-                    
-                    // remove the enemy from the game
-                    enemies.remove(enemy);
+                    enemies.remove(enemies.indexOf(enemy.getId()));
+                    objectives.fire(Objectives.Event.ENEMY_KILLED);
                     
                     System.out.println("You eliminated the enemy soldier!");
                     System.out.println("Enemies left: " + enemies.size());
@@ -580,6 +919,8 @@ public class Game
             }
             else{
                 System.out.println("The enemy killed you! You lost!");
+                metrics.playerKilled();
+                finishObjectives(false);
                 return true;    // send a signal to end the game
             }
         }
@@ -593,26 +934,32 @@ public class Game
     private boolean checkForWin()
     {
         Room currentRoom = player.getCurrentRoom();
-        if(currentRoom == rooms.get(0)){    // the player has to be outside
-            for(Item item : artwork)
-            {
-                // try to find the artwork in the player's inventory
-                String artworkName = item.getName();
-                Item soughtItem = player.getItem(artworkName);
-                
-                // if at least one of the sought items is not in the 
-                // player's inventory there is no need to look further,
-                // the player has not won
-                if(soughtItem == null){
-                    return false;
-                }
-            }
+        // the player has to be outside, carrying all the artwork
+        if(currentRoom == rooms.get(0) && player.carriesAllTargets()){
             System.out.println("You win!");
+            metrics.gameWon();
+            finishObjectives(true);
             return true;    // the player has won, send a signal to end the game
         }
         return false;   // the player did not win if they are not outside
     }
     
+    /**
+     * Decide the objectives still pending at the end of the game and print
+     * out which of them the player has achieved.
+     * 
+     * @param boolean TRUE if the player has won, FALSE otherwise
+     */
+    private void finishObjectives(boolean won)
+    {
+        objectives.finish(won);
+        for(Objective objective : objectives.getObjectives())
+        {
+            System.out.println("Objective " + objective.getStatus().toString().toLowerCase()
+                               + ": " + objective.getDescription());
+        }
+    }
+    
     /**
      * Check if the given room is currently occupied by an enemy soldier.
      * 
@@ -621,29 +968,20 @@ public class Game
      */
     private boolean isOccupied(Room room)
     {
-        for(Room location : occupiedRooms)
-        {
-            if(room == location)
-                return true;
-        }
-        
-        // if we get here the room is not occupied, i.e. there are no characters in the room
-        return false;
+        return enemies.isOccupied(room.getId());
     }
     
     /**
      * Get the enemy soldier in the specified room.
      * 
      * @param Room the room to get the enemy from
-     * @return Character return the enemy if there is one, null otherwise
+     * @return Enemy return the enemy if there is one, null otherwise
      */
-    private Character enemyInRoom(Room room)
+    private Enemy enemyInRoom(Room room)
     {
-        for(Character enemy : enemies)
-        {
-            if(enemy.getCurrentRoom() == room){
-                return enemy;
-            }
+        int index = enemies.indexInRoom(room.getId());
+        if(index >= 0){
+            return enemies.get(index);
         }
         
         // if we get here, there are no characters in the room
@@ -674,7 +1012,10 @@ public class Game
         // act accordingly to the result of the checking
         switch(canMove){
             case POSSIBLE:
+                Room previousRoom = player.getCurrentRoom();
                 player.goRoom(direction);
+                publish(WorldEvent.Type.PLAYER_MOVED, WorldEvent.PLAYER, -1, previousRoom.getId(),
+                        player.getCurrentRoom().getId(), -1, null);
                 break;
             case DOOR_CLOSED:
                 System.out.println("This door is closed!");
@@ -700,7 +1041,12 @@ public class Game
      */
     private boolean processBack()
     {
+        Room previousRoom = player.getCurrentRoom();
         player.goBack();
+        if(player.getCurrentRoom() != previousRoom){
+            publish(WorldEvent.Type.PLAYER_MOVED, WorldEvent.PLAYER, -1, previousRoom.getId(),
+                    player.getCurrentRoom().getId(), -1, null);
+        }
         
         // invoke interaction(...) method to see if an interaction
         // should be triggered
@@ -709,12 +1055,15 @@ public class Game
     }
     
     /**
-     * Process the "attack" command.
+     * Process the "attack" command: the player fires the weapon they name
+     * in their volley of the battle.
      * 
      * @param Command the command to process
-     * @param Character the enemy to be attacked
+     * @param Enemy the enemy to be attacked
+     * @param int the player's number in the battle
+     * @param int the enemy's number in the battle
      */
-    private void processAttack(Command command, Character enemy)
+    private void processAttack(Command command, Enemy enemy, int playerCombatant, int enemyCombatant)
     {
         // check if the player can attack at all
         Character.AttackPossibility canPlayerAttack = player.canAttack();
@@ -726,8 +1075,21 @@ public class Game
                         if(command.hasThirdWord()){
                             String weaponName = command.getThirdWord();
                             
-                            // attack 'enemy' with 'weaponName'
-                            player.attack(enemy, weaponName);        
+                            // attack 'enemy' with 'weaponName', the shot is heard
+                            Item weapon = player.getItem(weaponName);
+                            if(player.isUseableWeapon(weapon)){
+                                battle.order(playerCombatant, enemyCombatant, (Weapon)weapon);
+                                battle.resolveVolley(Battle.PLAYERS);
+                                System.out.println("You have attacked the enemy.");
+                                System.out.println("Number of enemy's injuries: " + enemy.getInjuriesNumber() + "/"
+                                                     + enemy.getMaxInjuriesNumber());
+                                makeNoise();
+                                publish(WorldEvent.Type.HIT, WorldEvent.PLAYER, enemy.getId(),
+                                        player.getCurrentRoom().getId(), -1, -1, null);
+                            }
+                            else{
+                                System.out.println("This item is not a weapon or is not useable right now.");
+                            }
                         }
                         else{
                             System.out.println("You must specify the weapon.");
@@ -794,7 +1156,11 @@ public class Game
             return;
         }
         String itemName = command.getSecondWord();
-        player.collectItem(itemName);
+        Item item = player.collectItem(itemName);
+        if(item != null){
+            publish(WorldEvent.Type.ITEM_COLLECTED, WorldEvent.PLAYER, -1,
+                    player.getCurrentRoom().getId(), -1, -1, item);
+        }
     }
     
     /**
@@ -810,7 +1176,11 @@ public class Game
             return;
         }
         String itemName = command.getSecondWord();
-        player.dropItem(itemName);
+        Item item = player.dropItem(itemName);
+        if(item != null){
+            publish(WorldEvent.Type.ITEM_DROPPED, WorldEvent.PLAYER, -1,
+                    player.getCurrentRoom().getId(), -1, -1, item);
+        }
     }
     
     /**
@@ -833,8 +1203,15 @@ public class Game
                 // to invoke the correct method, we can do this because
                 // we already know that 'chest' is an instance of Chest,
                 
-                // open the chest
+                // open the chest, which can be heard unless it was open
+                boolean wasOpen = ((Chest)chest).isOpen();
                 ((Chest)chest).use(player.getCurrentRoom());
+                if(!wasOpen){
+                    makeNoise();
+                    objectives.fire(Objectives.Event.CHEST_OPENED);
+                    publish(WorldEvent.Type.CHEST_OPENED, WorldEvent.PLAYER, -1,
+                            player.getCurrentRoom().getId(), -1, -1, chest);
+                }
             }
             else
                 System.out.println("This item is not a chest.");
@@ -861,22 +1238,44 @@ public class Game
             else if(key instanceof Key){
                 // we can only try to use a key if we know that
                 // it actually is a key
+                Room currentRoom = player.getCurrentRoom();
+                long mask = ((Key)key).getMask();
+                if(!doors.fits(currentRoom, mask)){
+                    System.out.println("This key cannot be used in this room!");
+                    return;
+                }
                 
-                String[] directions = {"north", "south", "east", "west", "up", "down"};
-                for(String direction : directions)
+                // the doors need the keys the player carries, not only this one
+                long keys = player.getKeys();
+                for(int direction = 0; direction < Room.DIRECTIONS.length; direction++)
                 {   
                     // add newly opened rooms to the list of opened rooms,
                     // does not work for the further rooms linked
                     // to a newly opened one
-                    Room currentRoom = player.getCurrentRoom();
-                    Room room = currentRoom.getExit(direction);
-                    if(room != null && !currentRoom.isExitOpen(direction)){
-                        openRooms.add(room);
+                    int door = doors.getDoor(currentRoom, direction);
+                    Room next = currentRoom.getExit(direction);
+                    if(door >= 0 && !doors.isOpen(door) && doors.canOpen(door, keys)
+                        && !openRooms.contains(next)){
+                        openRooms.add(next);
                     }
                 }
                 
-                // open all directions
-                ((Key)key).use(player.getCurrentRoom());
+                // open the doors the keys fit, which can be heard
+                if(doors.unlock(currentRoom, keys) > 0){
+                    makeNoise();
+                    if(allDoorsOpen(currentRoom)){
+                        System.out.println("You have opened all the exits in the room.");
+                    }
+                    else{
+                        System.out.println("You have opened the doors your keys fit.");
+                    }
+                }
+                else if(closedDoorFits(currentRoom, mask)){
+                    System.out.println("You need more keys to open the doors this key fits.");
+                }
+                else{
+                    System.out.println("The doors this key fits are already open.");
+                }
             }
             else
                 System.out.println("This item is not a key.");
@@ -885,6 +1284,38 @@ public class Game
             System.out.println("Use what?");
     }
 
+    /**
+     * @param Room a room
+     * @param long the set of keys, f.e. Key.getMask()
+     * @return boolean return TRUE if a closed door of the room needs one of the keys, FALSE otherwise
+     */
+    private boolean closedDoorFits(Room room, long keys)
+    {
+        for(int direction = 0; direction < Room.DIRECTIONS.length; direction++)
+        {
+            int door = doors.getDoor(room, direction);
+            if(door >= 0 && !doors.isOpen(door) && (doors.getRequiredKeys(door) & keys) != 0){
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * @param Room a room
+     * @return boolean return TRUE if all the exits of the room are open, FALSE otherwise
+     */
+    private boolean allDoorsOpen(Room room)
+    {
+        for(int direction = 0; direction < Room.DIRECTIONS.length; direction++)
+        {
+            if(room.getExit(direction) != null && !room.isExitOpen(direction)){
+                return false;
+            }
+        }
+        return true;
+    }
+    
     /**
      * Print out help information.
      * Here we print helpful information and a list of the 
@@ -0,0 +1,335 @@
+/**
+ * Class GameConfig is a part of "Operation Wawel" application.
+ * It holds the numbers the balance of the game depends on. A game is
+ * created with a configuration and passes it on to its characters and
+ * items. The default configuration gives the original game; other ones
+ * are made with a builder, which checks the numbers they are given.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class GameConfig
+{
+    private int healingRate;        // number of moves a character has to perform to heal one injury
+    private int maxWeight;          // maximum weight a character can carry, in kilograms
+    private int playerMaxInjuries;  // maximum number of injuries the player survives
+    private int enemyMaxInjuries;   // maximum number of injuries an enemy survives
+    private int bulletsPerWeapon;   // bullets in every weapon at the start of the game
+    private int captureOdds;        // an interaction is a capture one time out of this many
+    private int enemyCount;
+    private boolean pursuit;        // TRUE if the enemies pursue the player, FALSE if they walk at random
+    private int noiseRadius;        // the most moves away the enemies hear shots and opening
+                                    // chests and doors from, 0 if they do not hear them
+    private int reinforcementPeriod;    // turns between the arrivals of enemy reinforcements,
+                                        // 0 if none arrive
+    private int trackDepth;         // the most rooms the player remembers for the "back" command
+
+    // the default configuration, i.e. the original game
+    public static final int DEFAULT_HEALING_RATE = 2;
+    public static final int DEFAULT_MAX_WEIGHT = 45;
+    public static final int DEFAULT_PLAYER_MAX_INJURIES = 6;
+    public static final int DEFAULT_ENEMY_MAX_INJURIES = 1;
+    public static final int DEFAULT_BULLETS_PER_WEAPON = 10;
+    public static final int DEFAULT_CAPTURE_ODDS = 5;
+    public static final int DEFAULT_ENEMY_COUNT = 2;
+    public static final int DEFAULT_TRACK_DEPTH = 256;
+
+    /**
+     * Create the default configuration.
+     */
+    public GameConfig()
+    {
+        this(new Builder());
+    }
+
+    /**
+     * Create a configuration from a builder, checking its numbers.
+     *
+     * @param Builder the builder
+     * @throws IllegalArgumentException if the capture odds are not positive,
+     *                  or a number of injuries, bullets, enemies, moves or turns is negative
+     */
+    private GameConfig(Builder builder)
+    {
+        healingRate = builder.healingRate;
+        maxWeight = builder.maxWeight;
+        playerMaxInjuries = requireNotNegative(builder.playerMaxInjuries, "player's maximum injuries");
+        enemyMaxInjuries = requireNotNegative(builder.enemyMaxInjuries, "enemy's maximum injuries");
+        bulletsPerWeapon = requireNotNegative(builder.bulletsPerWeapon, "bullets per weapon");
+        if(builder.captureOdds <= 0){
+            throw new IllegalArgumentException("The capture odds must be positive: " + builder.captureOdds);
+        }
+        captureOdds = builder.captureOdds;
+        enemyCount = requireNotNegative(builder.enemyCount, "enemy count");
+        pursuit = builder.pursuit;
+        noiseRadius = requireNotNegative(builder.noiseRadius, "noise radius");
+        reinforcementPeriod = requireNotNegative(builder.reinforcementPeriod, "reinforcement period");
+        trackDepth = requireNotNegative(builder.trackDepth, "track depth");
+    }
+
+    private static int requireNotNegative(int value, String name)
+    {
+        if(value < 0){
+            throw new IllegalArgumentException("The " + name + " cannot be negative: " + value);
+        }
+        return value;
+    }
+
+    /**
+     * Start a configuration. The numbers not set are the default ones.
+     *
+     * @return Builder return a builder with the default numbers
+     */
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    /**
+     * @return int return the number of moves needed to heal one injury
+     */
+    public int getHealingRate()
+    {
+        return healingRate;
+    }
+
+    /**
+     * @return int return the maximum weight a character can carry
+     */
+    public int getMaxWeight()
+    {
+        return maxWeight;
+    }
+
+    /**
+     * @return int return the maximum number of injuries the player survives
+     */
+    public int getPlayerMaxInjuries()
+    {
+        return playerMaxInjuries;
+    }
+
+    /**
+     * @return int return the maximum number of injuries an enemy survives
+     */
+    public int getEnemyMaxInjuries()
+    {
+        return enemyMaxInjuries;
+    }
+
+    /**
+     * @return int return the number of bullets in every weapon
+     */
+    public int getBulletsPerWeapon()
+    {
+        return bulletsPerWeapon;
+    }
+
+    /**
+     * @return int return the odds of a capture: one time out of this many
+     */
+    public int getCaptureOdds()
+    {
+        return captureOdds;
+    }
+
+    /**
+     * @return int return the number of enemies
+     */
+    public int getEnemyCount()
+    {
+        return enemyCount;
+    }
+
+    /**
+     * @return boolean return TRUE if the enemies pursue the player, FALSE if they walk at random
+     */
+    public boolean isPursuit()
+    {
+        return pursuit;
+    }
+
+    /**
+     * @return int return the most moves away the enemies hear noises from, 0 if they do not
+     */
+    public int getNoiseRadius()
+    {
+        return noiseRadius;
+    }
+
+    /**
+     * @return int return the number of turns between the arrivals of enemy
+     *                  reinforcements, 0 if none arrive
+     */
+    public int getReinforcementPeriod()
+    {
+        return reinforcementPeriod;
+    }
+
+    /**
+     * @return int return the most rooms the player remembers for the "back" command
+     */
+    public int getTrackDepth()
+    {
+        return trackDepth;
+    }
+
+    /**
+     * @return String return the configuration in a single line
+     */
+    public String toString()
+    {
+        return "healing=" + healingRate + " weight=" + maxWeight
+                + " injuries=" + playerMaxInjuries + "/" + enemyMaxInjuries
+                + " bullets=" + bulletsPerWeapon + " capture=1:" + captureOdds
+                + " enemies=" + enemyCount + (pursuit ? " pursuit" : "")
+                + (noiseRadius > 0 ? " noise=" + noiseRadius : "")
+                + (reinforcementPeriod > 0 ? " reinforcements=" + reinforcementPeriod : "")
+                + (trackDepth != DEFAULT_TRACK_DEPTH ? " track=" + trackDepth : "");
+    }
+
+    /**
+     * Builder of configurations. Every number starts as in the default
+     * configuration, so only the ones that differ have to be set,
+     * f.e. GameConfig.builder().enemyCount(100).pursuit(true).build().
+     * The numbers are checked when the configuration is built.
+     */
+    public static class Builder
+    {
+        private int healingRate = DEFAULT_HEALING_RATE;
+        private int maxWeight = DEFAULT_MAX_WEIGHT;
+        private int playerMaxInjuries = DEFAULT_PLAYER_MAX_INJURIES;
+        private int enemyMaxInjuries = DEFAULT_ENEMY_MAX_INJURIES;
+        private int bulletsPerWeapon = DEFAULT_BULLETS_PER_WEAPON;
+        private int captureOdds = DEFAULT_CAPTURE_ODDS;
+        private int enemyCount = DEFAULT_ENEMY_COUNT;
+        private boolean pursuit;
+        private int noiseRadius;
+        private int reinforcementPeriod;
+        private int trackDepth = DEFAULT_TRACK_DEPTH;
+
+        private Builder()
+        {
+        }
+
+        /**
+         * @param int number of moves needed to heal one injury, 0 or less if injuries never heal
+         * @return Builder return this builder
+         */
+        public Builder healingRate(int healingRate)
+        {
+            this.healingRate = healingRate;
+            return this;
+        }
+
+        /**
+         * @param int maximum weight a character can carry
+         * @return Builder return this builder
+         */
+        public Builder maxWeight(int maxWeight)
+        {
+            this.maxWeight = maxWeight;
+            return this;
+        }
+
+        /**
+         * @param int maximum number of injuries the player survives
+         * @return Builder return this builder
+         */
+        public Builder playerMaxInjuries(int playerMaxInjuries)
+        {
+            this.playerMaxInjuries = playerMaxInjuries;
+            return this;
+        }
+
+        /**
+         * @param int maximum number of injuries an enemy survives
+         * @return Builder return this builder
+         */
+        public Builder enemyMaxInjuries(int enemyMaxInjuries)
+        {
+            this.enemyMaxInjuries = enemyMaxInjuries;
+            return this;
+        }
+
+        /**
+         * @param int bullets in every weapon
+         * @return Builder return this builder
+         */
+        public Builder bulletsPerWeapon(int bulletsPerWeapon)
+        {
+            this.bulletsPerWeapon = bulletsPerWeapon;
+            return this;
+        }
+
+        /**
+         * @param int an interaction is a capture one time out of this many
+         * @return Builder return this builder
+         */
+        public Builder captureOdds(int captureOdds)
+        {
+            this.captureOdds = captureOdds;
+            return this;
+        }
+
+        /**
+         * @param int number of enemies
+         * @return Builder return this builder
+         */
+        public Builder enemyCount(int enemyCount)
+        {
+            this.enemyCount = enemyCount;
+            return this;
+        }
+
+        /**
+         * @param boolean TRUE if the enemies pursue the player, FALSE if they walk at random
+         * @return Builder return this builder
+         */
+        public Builder pursuit(boolean pursuit)
+        {
+            this.pursuit = pursuit;
+            return this;
+        }
+
+        /**
+         * @param int the most moves away the enemies hear noises from, 0 if they do not
+         * @return Builder return this builder
+         */
+        public Builder noiseRadius(int noiseRadius)
+        {
+            this.noiseRadius = noiseRadius;
+            return this;
+        }
+
+        /**
+         * @param int turns between the arrivals of enemy reinforcements, 0 if none arrive
+         * @return Builder return this builder
+         */
+        public Builder reinforcementPeriod(int reinforcementPeriod)
+        {
+            this.reinforcementPeriod = reinforcementPeriod;
+            return this;
+        }
+
+        /**
+         * @param int the most rooms the player remembers for the "back" command
+         * @return Builder return this builder
+         */
+        public Builder trackDepth(int trackDepth)
+        {
+            this.trackDepth = trackDepth;
+            return this;
+        }
+
+        /**
+         * @return GameConfig return the configuration with the numbers set
+         * @throws IllegalArgumentException if the capture odds are not positive,
+         *                  or a number of injuries, bullets, enemies, moves or turns is negative
+         */
+        public GameConfig build()
+        {
+            return new GameConfig(this);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import java.util.function.Supplier;
+
+/**
+ * Class GameEvents is a part of "Operation Wawel" application.
+ * It holds the JDK Flight Recorder events emitted by a game, one for every
+ * phase of a turn, so that a recording shows where the time of a turn went.
+ * Every event has the game's session number, the player's room and, for
+ * the phases handling a command, the command word.
+ *
+ * A phase is started with begin() of its Phase and ended with end(...).
+ * When no recording is running the events are disabled and begin() only
+ * checks a flag: no event object is created, so a disabled event costs
+ * nothing and does not allocate memory. Start a recording with f.e.
+ * "java -XX:StartFlightRecording Game".
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class GameEvents
+{
+    /**
+     * The phases of a turn, each with its own type of event.
+     */
+    public enum Phase
+    {
+        MOVE_CHARACTERS(MoveCharacters.class, MoveCharacters::new),
+        OCCUPANCY_CHECK(OccupancyCheck.class, OccupancyCheck::new),
+        INTERACT(Interact.class, Interact::new),
+        FIGHT(Fight.class, Fight::new),
+        COMMAND_WAIT(CommandWait.class, CommandWait::new),
+        COMMAND_PARSE(CommandParse.class, CommandParse::new),
+        PROCESS_COMMAND(ProcessCommand.class, ProcessCommand::new);
+
+        private EventType type;
+        private Supplier<TurnEvent> factory;
+
+        Phase(Class<? extends TurnEvent> eventClass, Supplier<TurnEvent> factory)
+        {
+            type = EventType.getEventType(eventClass);
+            this.factory = factory;
+        }
+
+        /**
+         * Start timing the phase.
+         *
+         * @return TurnEvent return the started event, null if the event is not recorded
+         */
+        public TurnEvent begin()
+        {
+            if(!type.isEnabled()){
+                return null;
+            }
+            TurnEvent event = factory.get();
+            event.begin();
+            return event;
+        }
+    }
+
+    /**
+     * Finish timing a phase and record its event.
+     *
+     * @param TurnEvent the event returned by begin(), may be null
+     * @param long the session number of the game
+     * @param Room the player's room
+     * @param String the command word, or null
+     */
+    public static void end(TurnEvent event, long session, Room room, String command)
+    {
+        if(event != null){
+            event.commit(session, room, command);
+        }
+    }
+
+    /**
+     * Fields shared by all the events of a turn.
+     */
+    @Category({"Operation Wawel", "Turn"})
+    @StackTrace(false)
+    public abstract static class TurnEvent extends Event
+    {
+        @Label("Session")
+        @Description("Number of the game in this virtual machine")
+        long session;
+
+        @Label("Room")
+        String room;
+
+        @Label("Command")
+        @Description("Command word, if the phase handles a command")
+        String command;
+
+        /**
+         * Fill the fields in and record the event, if it is to be recorded.
+         *
+         * @param long the session number of the game
+         * @param Room the player's room
+         * @param String the command word, or null
+         */
+        public void commit(long session, Room room, String command)
+        {
+            if(shouldCommit()){
+                this.session = session;
+                this.room = room.getShortDescription();
+                this.command = command;
+                commit();
+            }
+        }
+    }
+
+    @Name("operationwawel.MoveCharacters")
+    @Label("Move Characters")
+    public static class MoveCharacters extends TurnEvent {}
+
+    @Name("operationwawel.OccupancyCheck")
+    @Label("Occupancy Check")
+    public static class OccupancyCheck extends TurnEvent {}
+
+    @Name("operationwawel.Interact")
+    @Label("Interact")
+    @Description("Meeting an enemy, including the fight")
+    public static class Interact extends TurnEvent {}
+
+    @Name("operationwawel.Fight")
+    @Label("Fight")
+    public static class Fight extends TurnEvent {}
+
+    @Name("operationwawel.CommandWait")
+    @Label("Command Wait")
+    @Description("Waiting for the player to type a command")
+    public static class CommandWait extends TurnEvent {}
+
+    @Name("operationwawel.CommandParse")
+    @Label("Command Parse")
+    public static class CommandParse extends TurnEvent {}
+
+    @Name("operationwawel.ProcessCommand")
+    @Label("Process Command")
+    public static class ProcessCommand extends TurnEvent {}
+}
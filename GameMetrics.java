@@ -0,0 +1,254 @@
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Class GameMetrics is a part of "Operation Wawel" application.
+ * It counts what happens in all the games running in the virtual machine
+ * (turns, fights, captures, wins and deaths) and records how long every
+ * command takes to process, in a latency histogram per command word.
+ * There is one instance, shared by all the games and published over JMX.
+ *
+ * Recording takes nanoseconds, needs no locks and does not allocate
+ * memory, see LatencyHistogram.
+ *
+ * A command that starts a fight is timed together with the fight. The time
+ * spent waiting for the player to type a command is never counted, also
+ * when the commands of a fight are read while it is timed.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class GameMetrics implements GameMetricsMXBean
+{
+    public static final int UNKNOWN = Game.COMMAND_WORDS.length;   // index of unknown commands
+    public static final int FIGHT = UNKNOWN + 1;                    // index of whole fights
+
+    private static final int SLOTS = FIGHT + 1;
+
+    // indices of the counters
+    private static final int TURNS = 0;
+    private static final int FIGHTS = 1;
+    private static final int CAPTURES = 2;
+    private static final int WINS = 3;
+    private static final int DEATHS = 4;
+
+    private static final GameMetrics INSTANCE = register(new GameMetrics());
+
+    private LatencyHistogram[] latencies;  // slot -> histogram of its latencies
+    private AtomicLongArray counters;      // TURNS, FIGHTS, ...
+
+    /**
+     * Create empty metrics.
+     */
+    private GameMetrics()
+    {
+        latencies = new LatencyHistogram[SLOTS];
+        for(int slot = 0; slot < SLOTS; slot++)
+        {
+            latencies[slot] = new LatencyHistogram();
+        }
+        counters = new AtomicLongArray(DEATHS + 1);
+    }
+
+    /**
+     * @return GameMetrics return the metrics of all the games
+     */
+    public static GameMetrics getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Publish the metrics over JMX.
+     */
+    private static GameMetrics register(GameMetrics metrics)
+    {
+        try{
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics,
+                new ObjectName("OperationWawel:type=GameMetrics"));
+        }
+        catch(JMException e){
+            // the metrics are still recorded, only not published
+        }
+        return metrics;
+    }
+
+    // recording, called by the games:
+
+    /**
+     * @param String the command word, null for an unknown command
+     * @return int return the slot the command's latencies are recorded in
+     */
+    public static int slotOf(String commandWord)
+    {
+        for(int i = 0; i < Game.COMMAND_WORDS.length; i++)
+        {
+            if(Game.COMMAND_WORDS[i].equals(commandWord)){
+                return i;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Record how long a command or a fight took.
+     *
+     * @param int the slot of the command, see slotOf(...), or FIGHT
+     * @param long the latency in nanoseconds
+     */
+    public void recordLatency(int slot, long nanos)
+    {
+        latencies[slot].record(nanos);
+    }
+
+    /**
+     * Count a turn.
+     */
+    public void turnPlayed()
+    {
+        counters.incrementAndGet(TURNS);
+    }
+
+    /**
+     * Count a fight.
+     */
+    public void fightStarted()
+    {
+        counters.incrementAndGet(FIGHTS);
+    }
+
+    /**
+     * Count a capture of the player.
+     */
+    public void playerCaptured()
+    {
+        counters.incrementAndGet(CAPTURES);
+    }
+
+    /**
+     * Count a game won.
+     */
+    public void gameWon()
+    {
+        counters.incrementAndGet(WINS);
+    }
+
+    /**
+     * Count a death of the player.
+     */
+    public void playerKilled()
+    {
+        counters.incrementAndGet(DEATHS);
+    }
+
+    // reading, through JMX:
+
+    public long getTurns()
+    {
+        return counters.get(TURNS);
+    }
+
+    public long getFights()
+    {
+        return counters.get(FIGHTS);
+    }
+
+    public long getCaptures()
+    {
+        return counters.get(CAPTURES);
+    }
+
+    public long getWins()
+    {
+        return counters.get(WINS);
+    }
+
+    public long getDeaths()
+    {
+        return counters.get(DEATHS);
+    }
+
+    public Map<String, Long> getCommandCounts()
+    {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for(int slot = 0; slot < SLOTS; slot++)
+        {
+            counts.put(nameOf(slot), latencies[slot].getCount());
+        }
+        return counts;
+    }
+
+    public Map<String, Long> getMedianLatencies()
+    {
+        return percentiles(50);
+    }
+
+    public Map<String, Long> getP99Latencies()
+    {
+        return percentiles(99);
+    }
+
+    public Map<String, Long> getMaxLatencies()
+    {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for(int slot = 0; slot < SLOTS; slot++)
+        {
+            values.put(nameOf(slot), latencies[slot].getMax());
+        }
+        return values;
+    }
+
+    public long getLatencyPercentile(String command, double percentile)
+    {
+        for(int slot = 0; slot < SLOTS; slot++)
+        {
+            if(nameOf(slot).equals(command)){
+                return latencies[slot].getPercentile(percentile);
+            }
+        }
+        return -1;
+    }
+
+    public void reset()
+    {
+        for(LatencyHistogram histogram : latencies)
+        {
+            histogram.reset();
+        }
+        for(int i = 0; i < counters.length(); i++)
+        {
+            counters.set(i, 0);
+        }
+    }
+
+    /**
+     * @return Map<String, Long> return the given percentile of every command's latencies
+     */
+    private Map<String, Long> percentiles(double percentile)
+    {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for(int slot = 0; slot < SLOTS; slot++)
+        {
+            values.put(nameOf(slot), latencies[slot].getPercentile(percentile));
+        }
+        return values;
+    }
+
+    /**
+     * @return String return the name of the slot
+     */
+    private static String nameOf(int slot)
+    {
+        if(slot == UNKNOWN){
+            return "unknown";
+        }
+        if(slot == FIGHT){
+            return "fight";
+        }
+        return Game.COMMAND_WORDS[slot];
+    }
+}
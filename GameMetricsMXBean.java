@@ -0,0 +1,72 @@
+import java.util.Map;
+
+/**
+ * Interface GameMetricsMXBean is a part of "Operation Wawel" application.
+ * It is the management interface through which the GameMetrics of all the
+ * games running in the virtual machine are published over JMX, under the
+ * name "OperationWawel:type=GameMetrics". All latencies are in nanoseconds.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public interface GameMetricsMXBean
+{
+    /**
+     * @return long return the number of turns played
+     */
+    long getTurns();
+
+    /**
+     * @return long return the number of fights started
+     */
+    long getFights();
+
+    /**
+     * @return long return the number of times the player was captured
+     */
+    long getCaptures();
+
+    /**
+     * @return long return the number of games won
+     */
+    long getWins();
+
+    /**
+     * @return long return the number of times the player was killed
+     */
+    long getDeaths();
+
+    /**
+     * @return Map<String, Long> return the number of times every command
+     *                          (and "unknown", "fight") was processed
+     */
+    Map<String, Long> getCommandCounts();
+
+    /**
+     * @return Map<String, Long> return the median latency of every command
+     */
+    Map<String, Long> getMedianLatencies();
+
+    /**
+     * @return Map<String, Long> return the 99th percentile latency of every command
+     */
+    Map<String, Long> getP99Latencies();
+
+    /**
+     * @return Map<String, Long> return the longest latency of every command
+     */
+    Map<String, Long> getMaxLatencies();
+
+    /**
+     * @param String the command word, "unknown" or "fight"
+     * @param double the percentile, from 0 to 100
+     * @return long return the latency below which the given percent of the
+     *              command's latencies lie, -1 if there is no such command
+     */
+    long getLatencyPercentile(String command, double percentile);
+
+    /**
+     * Set all the counters and histograms back to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,244 @@
+import java.util.SplittableRandom;
+
+/**
+ * Class GreedyPlayer is a part of "Operation Wawel" application.
+ * It is a simple automated player for a Simulation, fast enough to play
+ * thousands of games. It always heads for the nearest thing worth having
+ * (artwork, a key, a chest with something in it, a door its key opens)
+ * along the shortest path through open doors, picks it up or uses it, and
+ * goes back outside once it carries all the artwork. In a fight it shoots
+ * while it has bullets and runs away when it has none.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class GreedyPlayer
+{
+    private SplittableRandom rand;
+    private int[] firstSteps;   // room -> direction of the first step on the way to it
+    private int[] visited;      // room -> number of the search that reached it
+    private int[] queue;
+    private int[] targets;      // room -> number of the search it is a target in
+    private int search;         // number of the current search
+
+    /**
+     * Create a player.
+     *
+     * @param long the seed of the player's random choices
+     */
+    public GreedyPlayer(long seed)
+    {
+        rand = new SplittableRandom(seed);
+        firstSteps = new int[0];
+    }
+
+    /**
+     * Choose the next action in the simulated game.
+     *
+     * @param Simulation the game
+     * @return int return the action
+     */
+    public int chooseAction(Simulation simulation)
+    {
+        WorldMap map = simulation.getMap();
+        if(firstSteps.length != map.getRoomCount()){
+            firstSteps = new int[map.getRoomCount()];
+            visited = new int[map.getRoomCount()];
+            queue = new int[map.getRoomCount()];
+            targets = new int[map.getRoomCount()];
+            search = 0;
+        }
+
+        int weapon = useableWeapon(simulation);
+        if(simulation.isInFight()){
+            if(weapon >= 0){
+                return simulation.attackAction(weapon);
+            }
+            for(int direction = 0; direction < WorldMap.DIRECTION_COUNT; direction++)
+            {
+                if(simulation.canGo(direction)){
+                    return Simulation.GO + direction;   // run away
+                }
+            }
+            return Simulation.BACK;
+        }
+
+        int action = actInRoom(simulation, weapon);
+        if(action >= 0){
+            return action;
+        }
+        return move(simulation);
+    }
+
+    /**
+     * Find something worth doing in the player's room.
+     *
+     * @return int return the action, -1 if there is nothing to do
+     */
+    private int actInRoom(Simulation simulation, int weapon)
+    {
+        WorldMap map = simulation.getMap();
+        int room = simulation.getPlayerRoom();
+        int free = map.getMaxWeight() - simulation.getCarriedWeight();
+        for(int item = 0; item < map.getItemCount(); item++)
+        {
+            if(simulation.getItemRoom(item) == room){
+                int kind = map.getItemKind(item);
+                boolean wanted = map.isRequired(item) || isUsefulKey(simulation, item)
+                                || (kind == WorldMap.WEAPON && weapon < 0 && simulation.getBullets(item) > 0);
+                if(wanted){
+                    if(map.getItemWeight(item) <= free){
+                        return simulation.collectAction(item);
+                    }
+                    int ballast = ballast(simulation);
+                    if(ballast >= 0 && map.isRequired(item)){
+                        return simulation.dropAction(ballast);     // make room for the artwork
+                    }
+                }
+                if(kind == WorldMap.CHEST && !simulation.isChestOpen(item) && hasContents(simulation, item)){
+                    return simulation.openAction(item);
+                }
+            }
+            else if(simulation.getItemHolder(item) == WorldMap.PLAYER && map.fits(room, map.getKeyMask(item))
+                    && hasClosedDoor(simulation, room)){
+                return simulation.useAction(item);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Take the first step towards the nearest target, found with a
+     * breadth-first search through open doors.
+     *
+     * @return int return the action
+     */
+    private int move(Simulation simulation)
+    {
+        WorldMap map = simulation.getMap();
+        search++;
+        markTargets(simulation);
+
+        int start = simulation.getPlayerRoom();
+        visited[start] = search;
+        queue[0] = start;
+        int head = 0;
+        int tail = 1;
+        while(head < tail)
+        {
+            int room = queue[head++];
+            if(room != start && targets[room] == search){
+                return Simulation.GO + firstSteps[room];
+            }
+            for(int direction = 0; direction < WorldMap.DIRECTION_COUNT; direction++)
+            {
+                int next = map.getExit(room, direction);
+                if(next >= 0 && visited[next] != search && simulation.canGo(room, direction)){
+                    visited[next] = search;
+                    firstSteps[next] = room == start ? direction : firstSteps[room];
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        // nothing to head for, wander around
+        int direction = rand.nextInt(WorldMap.DIRECTION_COUNT);
+        for(int i = 0; i < WorldMap.DIRECTION_COUNT; i++)
+        {
+            int candidate = (direction + i) % WorldMap.DIRECTION_COUNT;
+            if(simulation.canGo(candidate)){
+                return Simulation.GO + candidate;
+            }
+        }
+        return Simulation.BACK;
+    }
+
+    /**
+     * Mark the rooms worth going to in the current search.
+     */
+    private void markTargets(Simulation simulation)
+    {
+        WorldMap map = simulation.getMap();
+        if(simulation.getRequiredItemsHeld() == simulation.getRequiredItemCount()){
+            targets[map.getStartRoom()] = search;   // all the artwork is here, go outside
+            return;
+        }
+        for(int item = 0; item < map.getItemCount(); item++)
+        {
+            int room = simulation.getItemRoom(item);
+            int kind = map.getItemKind(item);
+            if(room >= 0){
+                if(map.isRequired(item) || isUsefulKey(simulation, item)
+                    || (kind == WorldMap.CHEST && !simulation.isChestOpen(item) && hasContents(simulation, item))){
+                    targets[room] = search;
+                }
+            }
+            else if(simulation.getItemHolder(item) == WorldMap.PLAYER && isUsefulKey(simulation, item)){
+                targets[map.getKeyRoom(item)] = search;
+            }
+        }
+    }
+
+    /**
+     * @return int return a useable weapon the player carries, -1 if none
+     */
+    private int useableWeapon(Simulation simulation)
+    {
+        WorldMap map = simulation.getMap();
+        for(int item = 0; item < map.getItemCount(); item++)
+        {
+            if(simulation.getItemHolder(item) == WorldMap.PLAYER && map.getItemKind(item) == WorldMap.WEAPON
+                && simulation.getBullets(item) > 0){
+                return item;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return int return a carried item that is neither artwork nor a useful key, -1 if none
+     */
+    private int ballast(Simulation simulation)
+    {
+        WorldMap map = simulation.getMap();
+        for(int item = 0; item < map.getItemCount(); item++)
+        {
+            if(simulation.getItemHolder(item) == WorldMap.PLAYER && !map.isRequired(item)
+                && !isUsefulKey(simulation, item)){
+                return item;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return boolean return TRUE if the item is a key to a room with a closed door, FALSE otherwise
+     */
+    private boolean isUsefulKey(Simulation simulation, int item)
+    {
+        WorldMap map = simulation.getMap();
+        return map.getItemKind(item) == WorldMap.KEY && hasClosedDoor(simulation, map.getKeyRoom(item));
+    }
+
+    private boolean hasContents(Simulation simulation, int chest)
+    {
+        for(int item = 0; item < simulation.getMap().getItemCount(); item++)
+        {
+            if(simulation.getItemChest(item) == chest){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasClosedDoor(Simulation simulation, int room)
+    {
+        for(int direction = 0; direction < WorldMap.DIRECTION_COUNT; direction++)
+        {
+            if(simulation.getMap().getExit(room, direction) >= 0 && !simulation.canGo(room, direction)){
+                return true;
+            }
+        }
+        return false;
+    }
+}
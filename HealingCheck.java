@@ -0,0 +1,140 @@
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Class HealingCheck is a part of "Operation Wawel" application.
+ * It makes sure the injuries heal as if every move was counted when it
+ * was made. Characters and enemies only count their moves, and work out
+ * the injuries the moves healed when the injuries are next read or changed;
+ * the check plays random moves and injuries, and compares every read with
+ * the eager rule: an injured character counts a move towards healing, and
+ * heals an injury when the count reaches the healing rate, starting again
+ * from zero.
+ *
+ * It checks a Character, a Player going there and back, and an enemy in
+ * EnemyStore, for healing rates from -1 (injuries never heal) to 5. When
+ * any read differs, the program ends with exit status 1, so it can be run
+ * after every change: "java HealingCheck".
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class HealingCheck
+{
+    private static final int MIN_RATE = -1;
+    private static final int MAX_RATE = 5;
+    private static final int STEPS = 200_000;
+
+    private boolean failed;
+
+    public static void main(String[] args)
+    {
+        HealingCheck check = new HealingCheck();
+        check.runAll();
+        System.exit(check.failed ? 1 : 0);
+    }
+
+    /**
+     * Run all the checks and print their results.
+     */
+    public void runAll()
+    {
+        System.out.println(String.format("%-24s %10s %10s", "check", "reads", "mismatches"));
+        for(int rate = MIN_RATE; rate <= MAX_RATE; rate++)
+        {
+            System.out.println(check(rate));
+        }
+    }
+
+    /**
+     * Move and injure a character, a player and an enemy together, at random,
+     * and compare what they read with the eager rule.
+     *
+     * @param int the healing rate
+     * @return String return the line of the report
+     */
+    private String check(int rate)
+    {
+        GameConfig config = GameConfig.builder().healingRate(rate).enemyMaxInjuries(STEPS)
+                                .playerMaxInjuries(STEPS).enemyCount(1).build();
+        ArrayList<Room> rooms = new ArrayList<>();
+        Room south = new Room("in the south room", 0);
+        Room north = new Room("in the north room", 1);
+        south.setExit("north", north, true);
+        north.setExit("south", south, true);
+        rooms.add(south);
+        rooms.add(north);
+
+        Character character = new Character(south, config);
+        Player player = new Player(south, config);
+        EnemyStore store = new EnemyStore(rooms, config);
+        store.add(south);
+        int northward = indexOf("north");
+        int southward = indexOf("south");
+
+        // the eager rule
+        int injuries = 0;
+        int movesToHeal = 0;
+
+        Random rand = new Random(rate);
+        int reads = 0;
+        int mismatches = 0;
+        for(int step = 0; step < STEPS; step++)
+        {
+            int choice = rand.nextInt(10);
+            if(choice < 6){     // move
+                boolean inSouth = character.getCurrentRoom() == south;
+                character.changeRoom(inSouth ? "north" : "south");
+                if(inSouth){
+                    player.goRoom("north");
+                }
+                else{
+                    player.goBack();
+                }
+                store.move(0, inSouth ? northward : southward);
+                if(injuries > 0){
+                    movesToHeal++;
+                    if(movesToHeal == rate){
+                        injuries--;
+                        movesToHeal = 0;
+                    }
+                }
+            }
+            else if(choice < 8){    // injure
+                character.receiveInjury();
+                player.receiveInjury();
+                store.receiveInjury(0);
+                injuries++;
+            }
+            else{   // read
+                reads++;
+                if(character.getInjuriesNumber() != injuries || character.getMovesToHeal() != movesToHeal){
+                    mismatches++;
+                }
+                if(player.getInjuriesNumber() != injuries || player.getMovesToHeal() != movesToHeal){
+                    mismatches++;
+                }
+                if(store.getInjuries(0) != injuries || store.getMovesToHeal(0) != movesToHeal){
+                    mismatches++;
+                }
+            }
+        }
+        failed |= mismatches > 0;
+        return String.format("%-24s %10d %10d  %s", "healing rate " + rate, reads, mismatches,
+                             mismatches == 0 ? "PASS" : "FAIL");
+    }
+
+    /**
+     * @return int return the index of the direction in Room.DIRECTIONS
+     */
+    private static int indexOf(String direction)
+    {
+        for(int i = 0; i < Room.DIRECTIONS.length; i++)
+        {
+            if(Room.DIRECTIONS[i].equals(direction)){
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,160 @@
+import java.util.Arrays;
+
+/**
+ * Class Hearing is a part of "Operation Wawel" application.
+ * It carries noises (shots, chests and doors being opened) through the
+ * open doors of the building to the enemies in the rooms at most a given
+ * number of moves away. The enemies who hear a noise go to see what made
+ * it, taking the shortest way to the room it was made in.
+ *
+ * The rooms a noise made in a room is heard in, and the way from each of
+ * them to the room, are found once and kept. When a door opens they are
+ * found again, but only for the rooms whose noise now gets further through
+ * the door. So noises made again and again stay cheap on large maps.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class Hearing implements ExitListener
+{
+    private ExitGraph graph;        // the rooms and the exits leading into them
+    private int radius;             // the most moves a noise is heard from
+
+    // room id of a noise -> the rooms it is heard in, null if not found yet;
+    // for every one of them, in the same order, the moves to the noise
+    // and the direction of the first move
+    private int[][] hearers;
+    private int[][] distances;
+    private int[][] steps;
+
+    private int[] sources;          // the rooms whose hearers have been found
+    private int sourceCount;
+
+    private int[] searchDistances;  // room id -> moves to the noise during a search, -1 if not reached
+    private int[] searchSteps;
+    private int[] queue;
+
+    /**
+     * Create hearing for the rooms of a game.
+     *
+     * @param ExitGraph the graph of the rooms of the game
+     * @param int the most moves a noise is heard from
+     */
+    public Hearing(ExitGraph graph, int radius)
+    {
+        this.graph = graph;
+        this.radius = radius;
+        int rooms = graph.getRoomCount();
+        hearers = new int[rooms][];
+        distances = new int[rooms][];
+        steps = new int[rooms][];
+        sources = new int[rooms];
+        searchDistances = new int[rooms];
+        Arrays.fill(searchDistances, -1);
+        searchSteps = new int[rooms];
+        queue = new int[rooms];
+    }
+
+    /**
+     * Make a noise in a room: the enemies in the rooms it is heard in are alerted.
+     *
+     * @param Room the room the noise is made in
+     * @param EnemyStore the enemies
+     */
+    public void makeNoise(Room room, EnemyStore enemies)
+    {
+        int source = room.getId();
+        if(hearers[source] == null){
+            sources[sourceCount++] = source;
+            search(source);
+        }
+        enemies.hear(hearers[source], source);
+    }
+
+    /**
+     * @param int id of the room a noise was made in
+     * @param int id of a room the noise was heard in
+     * @return int return the index in Room.DIRECTIONS of the exit leading
+     *              towards the noise, -1 in the room of the noise and in
+     *              the rooms the noise is not heard in
+     */
+    public int getStep(int source, int room)
+    {
+        int[] rooms = hearers[source];
+        if(rooms != null){
+            for(int i = 0; i < rooms.length; i++)
+            {
+                if(rooms[i] == room){
+                    return steps[source][i];
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Find the hearers again for the noises that now get through the opened
+     * exit, i.e. those heard in the room it leads to from fewer moves than
+     * the radius.
+     *
+     * @param Room the room whose exit has been opened
+     * @param int index of the exit's direction in Room.DIRECTIONS
+     */
+    public void exitOpened(Room room, int direction)
+    {
+        int to = room.getExit(direction).getId();
+        for(int s = 0; s < sourceCount; s++)
+        {
+            int source = sources[s];
+            int[] rooms = hearers[source];
+            for(int i = 0; i < rooms.length; i++)
+            {
+                if(rooms[i] == to && distances[source][i] < radius){
+                    search(source);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the rooms a noise made in the given room is heard in, going
+     * backwards through the open exits leading into the rooms reached.
+     *
+     * @param int id of the room of the noise
+     */
+    private void search(int source)
+    {
+        searchDistances[source] = 0;
+        searchSteps[source] = -1;
+        queue[0] = source;
+        int size = 1;
+        for(int next = 0; next < size; next++)
+        {
+            int room = queue[next];
+            int distance = searchDistances[room] + 1;
+            if(distance > radius){
+                break;  // the rooms are reached in the order of their distances
+            }
+            for(int entry = graph.getEntryStart(room); entry < graph.getEntryEnd(room); entry++)
+            {
+                int neighbour = graph.getEntryRoom(entry);
+                if(searchDistances[neighbour] < 0 && graph.isEntryOpen(entry)){
+                    searchDistances[neighbour] = distance;
+                    searchSteps[neighbour] = graph.getEntryDirection(entry);
+                    queue[size++] = neighbour;
+                }
+            }
+        }
+
+        hearers[source] = Arrays.copyOf(queue, size);
+        distances[source] = new int[size];
+        steps[source] = new int[size];
+        for(int i = 0; i < size; i++)
+        {
+            distances[source][i] = searchDistances[queue[i]];
+            steps[source][i] = searchSteps[queue[i]];
+            searchDistances[queue[i]] = -1;     // only the rooms reached are cleared
+        }
+    }
+}
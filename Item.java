@@ -10,6 +10,7 @@ public class Item
     private int weight;
     private String name;
     private String description;
+    private Container container;    // the container the item is in, null if none
 
     /**
      * Constructor for objects of class Item
@@ -44,4 +45,23 @@ public class Item
     {
         return weight;
     }
+    
+    /**
+     * @return Container return the container the item is in, null if none
+     */
+    public Container getContainer()
+    {
+        return container;
+    }
+    
+    /**
+     * Record the container the item has been put in, or taken out of.
+     * Used by Container only.
+     * 
+     * @param Container the container, null when the item is taken out
+     */
+    void setContainer(Container container)
+    {
+        this.container = container;
+    }
 }
@@ -1,42 +1,67 @@
 /**
  * Class Key is a part of "Operation Wawel" application.
- * It extends class Tool with features and behaviours 
- * characteristic for keys. The class provides implementations
- * of Tool's abstract methods.
+ * It extends class Item with features characteristic for keys.
+ * A key is numbered, and opens the locked doors of its room that
+ * need a key of that number. A key does nothing on its own: the
+ * game's DoorLocks opens the doors the keys the player carries fit.
  *
  * @author Kamil Kuzara
  * @version 2018.11
  */
-public class Key extends Tool
+public class Key extends Item
 {
     private Room correspondingRoom;     // the room in which the key can be used
+    private int number;                 // keys with different numbers open different doors
     
     /**
      * Constructor for objects of class Key
      */
     public Key(String name, String description, int weight, Room room)
+    {
+        this(name, description, weight, room, 0);
+    }
+    
+    /**
+     * Constructor for objects of class Key
+     * 
+     * @param String name of the key
+     * @param String description of the key
+     * @param int weight of the key
+     * @param Room the room in which the key can be used
+     * @param int number of the key, from 0 to 63
+     * @throws IllegalArgumentException if the number is not from 0 to 63
+     */
+    public Key(String name, String description, int weight, Room room, int number)
     {
         super(name,description,weight);
+        if(number < 0 || number >= Long.SIZE){
+            throw new IllegalArgumentException("A key is numbered from 0 to 63: " + number);
+        }
         correspondingRoom = room;
+        this.number = number;
+    }
+    
+    /**
+     * @return int return the number of the key, from 0 to 63
+     */
+    public int getNumber()
+    {
+        return number;
     }
 
     /**
-     * Use the key, i.e. open all exits in the given room.
-     * The method will only be executed if the provided parameter
-     * is of type Room.
-     * 
-     * @param Object object to work with (must be of type Room)
+     * @return long return the bit of the key in a set of keys, see DoorLocks
      */
-    public void use(Object object)
+    public long getMask()
     {
-        if(object instanceof Room){     // a room has to be given as the parameter
-            Room room = (Room)object;
-            if(room == correspondingRoom)
-            {
-                room.openExits();
-            }
-            else
-                System.out.println("This key cannot be used in this room!");
-        }
+        return 1L << number;
+    }
+
+    /**
+     * @return Room return the room in which the key can be used
+     */
+    public Room getCorrespondingRoom()
+    {
+        return correspondingRoom;
     }
-}
\ No newline at end of file
+}
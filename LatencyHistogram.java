@@ -0,0 +1,152 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class LatencyHistogram is a part of "Operation Wawel" application.
+ * It counts latencies in nanoseconds, so that their percentiles can be
+ * read at any time.
+ *
+ * The histogram is log-linear, like HdrHistogram: values below 32 ns have
+ * a bucket each, above that every power of two is split into 16 buckets,
+ * so a latency is known to within about 6%. Recording a value is a single
+ * atomic increment of a preallocated array, plus an update of the maximum
+ * if it is exceeded: it takes nanoseconds, needs no locks, can be done by
+ * many threads at once and does not allocate memory.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class LatencyHistogram
+{
+    private static final int SUB_BUCKETS = 16;     // buckets every power of two is split into
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    private AtomicLongArray counts;    // bucket -> number of latencies in it
+    private AtomicLongArray max;       // the longest latency, in a one-element array
+
+    /**
+     * Create an empty histogram.
+     */
+    public LatencyHistogram()
+    {
+        counts = new AtomicLongArray(BUCKETS);
+        max = new AtomicLongArray(1);
+    }
+
+    /**
+     * Record a latency.
+     *
+     * @param long the latency in nanoseconds
+     */
+    public void record(long nanos)
+    {
+        counts.incrementAndGet(bucketOf(nanos));
+        long longest = max.get(0);
+        while(nanos > longest && !max.compareAndSet(0, longest, nanos))
+        {
+            longest = max.get(0);
+        }
+    }
+
+    /**
+     * @return long return the number of latencies recorded
+     */
+    public long getCount()
+    {
+        long count = 0;
+        for(int bucket = 0; bucket < BUCKETS; bucket++)
+        {
+            count += counts.get(bucket);
+        }
+        return count;
+    }
+
+    /**
+     * @return long return the longest latency recorded
+     */
+    public long getMax()
+    {
+        return max.get(0);
+    }
+
+    /**
+     * @param double the percentile, from 0 to 100
+     * @return long return the latency below which the given percent of the
+     *              latencies lie, 0 if none were recorded
+     */
+    public long getPercentile(double percentile)
+    {
+        long[] copy = new long[BUCKETS];   // the histogram may change meanwhile
+        long total = 0;
+        for(int bucket = 0; bucket < BUCKETS; bucket++)
+        {
+            copy[bucket] = counts.get(bucket);
+            total += copy[bucket];
+        }
+        long rank = Math.max(1, (long)Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for(int bucket = 0; bucket < BUCKETS; bucket++)
+        {
+            seen += copy[bucket];
+            if(seen >= rank){
+                return Math.min(highestIn(bucket), getMax());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Add all the latencies of another histogram to this one.
+     *
+     * @param LatencyHistogram the other histogram
+     */
+    public void add(LatencyHistogram other)
+    {
+        for(int bucket = 0; bucket < BUCKETS; bucket++)
+        {
+            counts.addAndGet(bucket, other.counts.get(bucket));
+        }
+        long longest = max.get(0);
+        while(other.getMax() > longest && !max.compareAndSet(0, longest, other.getMax()))
+        {
+            longest = max.get(0);
+        }
+    }
+
+    /**
+     * Forget all the latencies.
+     */
+    public void reset()
+    {
+        for(int bucket = 0; bucket < BUCKETS; bucket++)
+        {
+            counts.set(bucket, 0);
+        }
+        max.set(0, 0);
+    }
+
+    /**
+     * @param long a latency
+     * @return int return the bucket the latency falls into
+     */
+    private static int bucketOf(long nanos)
+    {
+        if(nanos < 2 * SUB_BUCKETS){
+            return (int)Math.max(nanos, 0);
+        }
+        int shift = 64 - Long.numberOfLeadingZeros(nanos) - 5;     // keep the 5 highest bits
+        return shift * SUB_BUCKETS + (int)(nanos >>> shift);
+    }
+
+    /**
+     * @param int a bucket
+     * @return long return the highest latency that falls into the bucket
+     */
+    private static long highestIn(int bucket)
+    {
+        if(bucket < 2 * SUB_BUCKETS){
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return ((long)(bucket - shift * SUB_BUCKETS + 1) << shift) - 1;
+    }
+}
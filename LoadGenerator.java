@@ -0,0 +1,370 @@
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Class LoadGenerator is a part of "Operation Wawel" application.
+ * It simulates many players playing at once, each in a game of their own
+ * running in this virtual machine, to find out how many players a machine
+ * can serve and how long they wait for the answers to their commands.
+ *
+ * Every simulated player types a command, waits for the game to process it
+ * and then thinks for a random time (exponentially distributed around the
+ * given mean) before typing the next one. The commands are drawn from a mix
+ * of moving around, collecting and dropping items, listing, fighting and
+ * opening doors and chests. When a game ends the player starts a new one.
+ *
+ * The players are split between worker threads, each keeping its players
+ * in a heap ordered by the time of their next command. For every type of
+ * command the latency percentiles are reported twice: the response time
+ * is counted from the moment the player wanted to type the command, so it
+ * includes waiting for a busy worker, the service time only from the moment
+ * the game started processing it. Turns in which the player did not type
+ * anything (captured by an enemy) are reported as "none".
+ *
+ * Arguments: number of players (1000 by default), seconds of measurement
+ * (30), mean think time in milliseconds (1000), number of worker threads
+ * (one per core), seconds of warm-up not measured (5).
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class LoadGenerator
+{
+    // the types of commands and how often (relative weights) the players type them
+    private static final String[] TYPES = {"go", "back", "collect", "drop", "list",
+                                           "attack", "open", "use", "none"};
+    private static final int[] WEIGHTS = {40, 10, 10, 5, 12, 15, 4, 4, 0};
+    private static final int NONE = TYPES.length - 1;
+
+    // the commands of every type, one is chosen at random
+    private static final byte[][][] COMMANDS = {
+        lines("go north", "go south", "go east", "go west", "go up", "go down"),
+        lines("back"),
+        lines("collect leonardo", "collect raphael", "collect rembrandt", "collect key",
+              "collect gun2", "collect gun3"),
+        lines("drop leonardo", "drop raphael", "drop rembrandt", "drop key", "drop gun1"),
+        lines("list room", "list player"),
+        lines("attack enemy gun1", "attack enemy gun2", "attack enemy gun3"),
+        lines("open chest"),
+        lines("use key"),
+    };
+
+    private int threads;
+    private long thinkNanos;
+    private long warmupEnd;     // time the measurement starts
+    private long end;           // time the measurement ends
+    private SimulatedPlayer[][] slices;     // worker -> its players
+
+    private LatencyHistogram[] responseTimes;   // type -> latencies
+    private LatencyHistogram[] serviceTimes;
+    private AtomicLong turns;
+    private AtomicLong games;
+
+    public static void main(String[] args)
+    {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int thinkMillis = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        int warmup = args.length > 4 ? Integer.parseInt(args[4]) : 5;
+
+        System.out.println("Players: " + players + ", think time: " + thinkMillis + " ms, threads: "
+                            + threads + ", warm-up: " + warmup + " s, measurement: " + seconds + " s");
+        LoadGenerator generator = new LoadGenerator(players, thinkMillis, threads);
+        generator.run(warmup, seconds);
+    }
+
+    /**
+     * Create the players and their games.
+     *
+     * @param int number of players
+     * @param int mean think time in milliseconds
+     * @param int number of worker threads
+     */
+    public LoadGenerator(int players, int thinkMillis, int threads)
+    {
+        this.threads = Math.max(1, Math.min(threads, players));
+        thinkNanos = thinkMillis * 1_000_000L;
+        responseTimes = new LatencyHistogram[TYPES.length];
+        serviceTimes = new LatencyHistogram[TYPES.length];
+        for(int type = 0; type < TYPES.length; type++)
+        {
+            responseTimes[type] = new LatencyHistogram();
+            serviceTimes[type] = new LatencyHistogram();
+        }
+        turns = new AtomicLong();
+        games = new AtomicLong();
+
+        slices = new SimulatedPlayer[this.threads][];
+        for(int worker = 0; worker < this.threads; worker++)
+        {
+            int from = (int)((long)players * worker / this.threads);
+            int to = (int)((long)players * (worker + 1) / this.threads);
+            slices[worker] = new SimulatedPlayer[to - from];
+            for(int i = from; i < to; i++)
+            {
+                slices[worker][i - from] = new SimulatedPlayer(i);
+            }
+        }
+    }
+
+    /**
+     * Let the players play and print the report.
+     *
+     * @param int seconds of warm-up
+     * @param int seconds of measurement
+     */
+    public void run(int warmup, int seconds)
+    {
+        long start = System.nanoTime();
+        warmupEnd = start + warmup * 1_000_000_000L;
+        end = warmupEnd + seconds * 1_000_000_000L;
+
+        PrintStream out = System.out;
+        System.setOut(new SilentPrintStream());     // the games' messages are not needed
+        Thread[] workers = new Thread[threads];
+        for(int worker = 0; worker < threads; worker++)
+        {
+            SimulatedPlayer[] slice = slices[worker];
+            workers[worker] = new Thread(() -> work(slice, start), "load-worker-" + worker);
+            workers[worker].start();
+        }
+        for(Thread worker : workers)
+        {
+            try{
+                worker.join();
+            }
+            catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }
+        System.setOut(out);
+        report(seconds);
+    }
+
+    /**
+     * The loop of a worker: play the turn of the player whose command is
+     * due first, or wait until it is due.
+     *
+     * @param SimulatedPlayer[] the worker's players
+     * @param long the time the players start
+     */
+    private void work(SimulatedPlayer[] players, long start)
+    {
+        // a binary heap of the players, ordered by the time of their next command
+        int size = players.length;
+        long[] due = new long[size];
+        SimulatedPlayer[] heap = new SimulatedPlayer[size];
+        for(int i = 0; i < size; i++)   // spread the first commands over one think time
+        {
+            heap[i] = players[i];
+            due[i] = start + (long)(players[i].rand.nextDouble() * thinkNanos);
+        }
+        for(int i = size / 2 - 1; i >= 0; i--)
+        {
+            siftDown(heap, due, i, size);
+        }
+
+        while(true)
+        {
+            long now = System.nanoTime();
+            if(now >= end){
+                return;
+            }
+            if(due[0] > now){
+                LockSupport.parkNanos(Math.min(due[0], end) - now);
+                continue;
+            }
+
+            SimulatedPlayer player = heap[0];
+            long wanted = due[0];
+            int type = player.playTurn();
+            long finished = System.nanoTime();
+            if(now >= warmupEnd && finished < end){
+                responseTimes[type].record(finished - wanted);
+                serviceTimes[type].record(finished - now);
+                turns.incrementAndGet();
+            }
+            if(player.game == null){
+                games.incrementAndGet();
+                player.newGame();
+            }
+
+            due[0] = System.nanoTime() + player.thinkTime(thinkNanos);
+            siftDown(heap, due, 0, size);
+        }
+    }
+
+    private static void siftDown(SimulatedPlayer[] heap, long[] due, int index, int size)
+    {
+        while(true)
+        {
+            int child = 2 * index + 1;
+            if(child >= size){
+                return;
+            }
+            if(child + 1 < size && due[child + 1] < due[child]){
+                child++;
+            }
+            if(due[index] <= due[child]){
+                return;
+            }
+            long time = due[index];
+            due[index] = due[child];
+            due[child] = time;
+            SimulatedPlayer player = heap[index];
+            heap[index] = heap[child];
+            heap[child] = player;
+            index = child;
+        }
+    }
+
+    /**
+     * Print the throughput and the latencies of every type of command.
+     */
+    private void report(int seconds)
+    {
+        long total = turns.get();
+        System.out.println(String.format("Turns: %d, %.1f turns/s, games finished: %d",
+                            total, (double)total / seconds, games.get()));
+        System.out.println(String.format("%-8s %10s %10s %10s %10s %10s %10s",
+                            "command", "count", "resp p50", "resp p99", "resp max", "serv p50", "serv p99"));
+        for(int type = 0; type < TYPES.length; type++)
+        {
+            LatencyHistogram response = responseTimes[type];
+            LatencyHistogram service = serviceTimes[type];
+            System.out.println(String.format("%-8s %10d %10s %10s %10s %10s %10s", TYPES[type],
+                                response.getCount(), micros(response.getPercentile(50)),
+                                micros(response.getPercentile(99)), micros(response.getMax()),
+                                micros(service.getPercentile(50)), micros(service.getPercentile(99))));
+        }
+        System.out.println("(latencies in microseconds)");
+    }
+
+    private static String micros(long nanos)
+    {
+        return String.format("%.1f", nanos / 1000.0);
+    }
+
+    private static byte[][] lines(String... commands)
+    {
+        byte[][] lines = new byte[commands.length][];
+        for(int i = 0; i < commands.length; i++)
+        {
+            lines[i] = (commands[i] + "\n").getBytes(StandardCharsets.UTF_8);
+        }
+        return lines;
+    }
+
+    /**
+     * A simulated player. It is the input of its game: whenever the game
+     * reads a command, the player makes one up.
+     */
+    private static class SimulatedPlayer extends InputStream
+    {
+        private static final int TOTAL_WEIGHT = totalWeight();
+
+        private long seed;
+        private SplittableRandom rand;
+        private Game game;
+        private int firstType;      // type of the first command typed in the current turn
+        private byte[] pending;     // the rest of a command read one byte at a time
+        private int pendingPosition;
+
+        SimulatedPlayer(long seed)
+        {
+            this.seed = seed;
+            rand = new SplittableRandom(seed);
+            newGame();
+        }
+
+        void newGame()
+        {
+            game = new Game(seed, new GameConfig(), this);
+            seed += 1_000_003;     // the next game is a different one
+        }
+
+        /**
+         * Play a turn of the player's game.
+         *
+         * @return int return the type of the first command typed in the turn
+         */
+        int playTurn()
+        {
+            firstType = NONE;
+            if(game.playTurn()){
+                game = null;    // the game is over
+            }
+            return firstType;
+        }
+
+        /**
+         * @return long return a random think time with the given mean
+         */
+        long thinkTime(long mean)
+        {
+            return (long)(-Math.log(1.0 - rand.nextDouble()) * mean);
+        }
+
+        /**
+         * Make up the next command and copy it into the buffer.
+         */
+        public int read(byte[] buffer, int offset, int length)
+        {
+            if(pending == null){
+                pending = nextCommand();
+                pendingPosition = 0;
+            }
+            int count = Math.min(length, pending.length - pendingPosition);
+            System.arraycopy(pending, pendingPosition, buffer, offset, count);
+            pendingPosition += count;
+            if(pendingPosition == pending.length){
+                pending = null;
+            }
+            return count;
+        }
+
+        public int read()
+        {
+            if(pending == null){
+                pending = nextCommand();
+                pendingPosition = 0;
+            }
+            int value = pending[pendingPosition++];
+            if(pendingPosition == pending.length){
+                pending = null;
+            }
+            return value;
+        }
+
+        private byte[] nextCommand()
+        {
+            int choice = rand.nextInt(TOTAL_WEIGHT);
+            int type = 0;
+            while(choice >= WEIGHTS[type])
+            {
+                choice -= WEIGHTS[type];
+                type++;
+            }
+            if(firstType == NONE){
+                firstType = type;
+            }
+            byte[][] commands = COMMANDS[type];
+            return commands[rand.nextInt(commands.length)];
+        }
+
+        private static int totalWeight()
+        {
+            int total = 0;
+            for(int weight : WEIGHTS)
+            {
+                total += weight;
+            }
+            return total;
+        }
+    }
+}
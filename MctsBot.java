@@ -0,0 +1,359 @@
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class MctsBot is a part of "Operation Wawel" application.
+ * It is an automated player that chooses its commands with Monte Carlo
+ * Tree Search. For every decision it plays thousands of short games on
+ * copies of a Simulation: it descends the tree of actions tried so far,
+ * preferring the promising ones (UCT), tries a new action and finishes the
+ * game with random moves. The random events of the game (the moves of
+ * the enemies, fights and captures) are drawn anew in every playout, so
+ * the tree is keyed by actions only and averages over them.
+ *
+ * With more than one thread every thread grows its own tree from the same
+ * position (root parallelisation) and the visits of the first actions are
+ * added up at the end. The searches run on worker threads the bot starts
+ * once and keeps for all its decisions; call close() to stop them. If the
+ * thread waiting for a decision is interrupted, the searches are told to
+ * stop, and the decision is made from the trees grown so far once all of
+ * them have stopped.
+ *
+ * The bot can only play games configured without pursuit, hearing and
+ * reinforcements, as the Simulation does not follow them.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class MctsBot
+{
+    private static final double EXPLORATION = 1.4;  // weight of exploration in UCT
+    private static final int PLAYOUT_DEPTH = 200;   // actions in a playout before it is scored
+
+    private int iterations;     // playouts per decision
+    private int threads;
+    private SplittableRandom seeds;
+    private ExecutorService workers;    // null if the bot searches in the calling thread
+
+    /**
+     * Create a bot.
+     *
+     * @param int the number of playouts for every decision
+     * @param int the number of threads searching in parallel
+     * @param long the seed of the bot's random choices
+     */
+    public MctsBot(int iterations, int threads, long seed)
+    {
+        this.iterations = iterations;
+        this.threads = Math.max(1, threads);
+        seeds = new SplittableRandom(seed);
+        if(this.threads > 1){
+            AtomicInteger started = new AtomicInteger();
+            workers = Executors.newFixedThreadPool(this.threads, task -> {
+                Thread thread = new Thread(task, "mcts-worker-" + started.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Stop the worker threads. The bot cannot choose actions afterwards.
+     */
+    public void close()
+    {
+        if(workers != null){
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Choose the command the bot would type in the current situation of
+     * a game. The game must be waiting for a command outside a fight.
+     *
+     * @param Game the game
+     * @return String return the command
+     */
+    public String chooseCommand(Game game)
+    {
+        Simulation simulation = new Simulation(new WorldMap(game), seeds.nextLong());
+        return simulation.describeAction(chooseAction(simulation));
+    }
+
+    /**
+     * Choose the best action in the current state of the simulation.
+     *
+     * @param Simulation the simulation, it is not changed
+     * @return int return the action, -1 if the game is over
+     * @throws IllegalStateException if the bot has been closed
+     */
+    public int chooseAction(Simulation root)
+    {
+        if(workers != null && workers.isShutdown()){
+            throw new IllegalStateException("The bot has been closed.");
+        }
+        if(root.isFinished()){
+            return -1;
+        }
+
+        Search[] searches = new Search[threads];
+        AtomicBoolean stop = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(threads);
+        for(int i = 0; i < threads; i++)
+        {
+            int share = iterations / threads + (i < iterations % threads ? 1 : 0);
+            searches[i] = new Search(root, share, seeds.split(), stop, done);
+            if(workers != null){
+                workers.execute(searches[i]);
+            }
+            else{
+                searches[i].run();
+            }
+        }
+
+        // the trees are read only once every search has stopped
+        boolean interrupted = false;
+        while(done.getCount() > 0)
+        {
+            try{
+                done.await();
+            }
+            catch(InterruptedException e){
+                interrupted = true;
+                stop.set(true);     // stop early, and wait for the searches to notice
+            }
+        }
+        if(interrupted){
+            Thread.currentThread().interrupt();
+        }
+
+        // add up the visits of the first actions of all trees
+        int[] visits = new int[root.getActionCount()];
+        for(int i = 0; i < threads; i++)
+        {
+            Node[] children = searches[i].root.children;
+            for(int action = 0; action < visits.length; action++)
+            {
+                if(children != null && children[action] != null){
+                    visits[action] += children[action].visits;
+                }
+            }
+        }
+
+        int best = -1;
+        int[] legal = new int[root.getActionCount()];
+        int count = root.getLegalActions(legal);
+        for(int i = 0; i < count; i++)
+        {
+            if(best < 0 || visits[legal[i]] > visits[best]){
+                best = legal[i];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Score the state at the end of a playout: 1 for a win, 0 for
+     * a death, and partial credit for the artwork carried otherwise.
+     */
+    private static double score(Simulation simulation)
+    {
+        if(simulation.hasWon()){
+            return 1.0;
+        }
+        if(simulation.isDead()){
+            return 0.0;
+        }
+        int required = Math.max(1, simulation.getRequiredItemCount());
+        return 0.1 + 0.5 * simulation.getRequiredItemsHeld() / required;
+    }
+
+    /**
+     * Play a whole game with the bot, printing every command it chooses.
+     * Arguments: seed, playouts per decision, threads.
+     */
+    public static void main(String[] args)
+    {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : new Random().nextLong();
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2])
+                                      : Runtime.getRuntime().availableProcessors();
+
+        Simulation game = new Simulation(new WorldMap(new Game(seed)), seed);
+        game.begin();
+        MctsBot bot = new MctsBot(iterations, threads, seed);
+
+        long start = System.nanoTime();
+        int decisions = 0;
+        System.out.println("Seed: " + seed);
+        while(!game.isFinished() && game.getTurns() < 1000)
+        {
+            int action = bot.chooseAction(game);
+            System.out.println((game.isInFight() ? "[fight] " : "") + "> " + game.describeAction(action));
+            game.step(action);
+            decisions++;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        bot.close();
+
+        if(game.hasWon()){
+            System.out.println("The bot won in " + game.getTurns() + " turns.");
+        }
+        else if(game.isDead()){
+            System.out.println("The bot was killed after " + game.getTurns() + " turns.");
+        }
+        else{
+            System.out.println("The bot gave up after " + game.getTurns() + " turns.");
+        }
+        System.out.println("Playouts per second: " + Math.round(decisions * (double)iterations / seconds));
+    }
+
+    /**
+     * A node of the search tree. The children are indexed by actions.
+     */
+    private static class Node
+    {
+        private int visits;
+        private double reward;      // sum of the scores of the playouts through the node
+        private Node[] children;
+    }
+
+    /**
+     * The search of a single thread, with its own tree and simulations.
+     */
+    private static class Search implements Runnable
+    {
+        private Simulation start;
+        private Simulation simulation;
+        private int iterations;
+        private SplittableRandom rand;
+        private AtomicBoolean stop;     // set to end all the searches of a decision early
+        private CountDownLatch done;    // counted down when the search ends
+        private Node root;
+        private int[] legal;
+        private Node[] path;
+
+        private Search(Simulation start, int iterations, SplittableRandom rand, AtomicBoolean stop,
+                       CountDownLatch done)
+        {
+            this.start = start;
+            this.iterations = iterations;
+            this.rand = rand;
+            this.stop = stop;
+            this.done = done;
+            simulation = new Simulation(start.getMap(), 0);
+            root = new Node();
+            legal = new int[start.getActionCount()];
+            path = new Node[PLAYOUT_DEPTH + 1];
+        }
+
+        public void run()
+        {
+            try{
+                for(int i = 0; i < iterations && !stop.get(); i++)
+                {
+                    simulation.copyFrom(start);
+                    simulation.reseed(rand.nextLong());
+                    playout();
+                }
+            }
+            finally{
+                done.countDown();
+            }
+        }
+
+        /**
+         * Descend the tree, add one node and finish the game at random.
+         */
+        private void playout()
+        {
+            Node node = root;
+            path[0] = root;
+            int depth = 0;
+            boolean expanded = false;
+
+            while(!simulation.isFinished() && depth < PLAYOUT_DEPTH)
+            {
+                int count = simulation.getLegalActions(legal);
+                if(count == 0){
+                    break;
+                }
+                int action;
+                if(!expanded){
+                    if(node.children == null){
+                        node.children = new Node[legal.length];
+                    }
+                    action = select(node, count);
+                    if(node.children[action] == null){
+                        node.children[action] = new Node();
+                        expanded = true;    // leave the tree after the new node
+                    }
+                    node = node.children[action];
+                    path[depth + 1] = node;
+                }
+                else{
+                    action = legal[rand.nextInt(count)];
+                }
+                simulation.step(action);
+                depth++;
+            }
+
+            double score = score(simulation);
+            for(int i = 0; i <= depth && path[i] != null; i++)
+            {
+                path[i].visits++;
+                path[i].reward += score;
+                if(path[i] == node){
+                    break;
+                }
+            }
+        }
+
+        /**
+         * Choose an untried legal action at random or, if all have been
+         * tried, the one with the best upper confidence bound.
+         */
+        private int select(Node node, int count)
+        {
+            int untried = 0;
+            for(int i = 0; i < count; i++)
+            {
+                if(node.children[legal[i]] == null){
+                    untried++;
+                }
+            }
+            if(untried > 0){
+                int pick = rand.nextInt(untried);
+                for(int i = 0; i < count; i++)
+                {
+                    if(node.children[legal[i]] == null){
+                        if(pick == 0){
+                            return legal[i];
+                        }
+                        pick--;
+                    }
+                }
+            }
+
+            int best = legal[0];
+            double bestValue = Double.NEGATIVE_INFINITY;
+            double logVisits = Math.log(Math.max(1, node.visits));
+            for(int i = 0; i < count; i++)
+            {
+                Node child = node.children[legal[i]];
+                double value = child.reward / child.visits
+                                + EXPLORATION * Math.sqrt(logVisits / child.visits);
+                if(value > bestValue){
+                    bestValue = value;
+                    best = legal[i];
+                }
+            }
+            return best;
+        }
+    }
+}
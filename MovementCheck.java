@@ -0,0 +1,220 @@
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Class MovementCheck is a part of "Operation Wawel" application.
+ * It makes sure the enemies end up in the same rooms however their moves
+ * are computed. Big crowds of enemies are moved in regions of the building,
+ * in parallel; the result must not depend on the number of regions nor on
+ * the number of threads moving them. And the Simulation the bots play in
+ * must move its enemies as the game does.
+ *
+ * The crowds walk in a building of rooms laid out in a square, some of the
+ * doors closed, at random, pursuing the player and going towards noises.
+ * Every run of a crowd is compared turn by turn with the same crowd moved
+ * in a single region, on the thread of the check. When any room of any
+ * enemy differs, the program ends with exit status 1, so it can be run
+ * after every change: "java MovementCheck".
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class MovementCheck
+{
+    private static final int SIDE = 64;             // rooms along a side of the building
+    private static final int TURNS = 200;
+    private static final int NOISE_PERIOD = 10;     // turns between the noises made
+    private static final int NOISE_RADIUS = 8;
+
+    // the numbers of regions and threads the crowds are moved with, in pairs
+    private static final int[][] SPLITS = {{2, 1}, {2, 2}, {7, 4}, {64, 3}, {256, 8}};
+
+    // the seeded games the simulation is compared with
+    private static final int SIMULATED_GAMES = 200;
+    private static final int SIMULATED_TURNS = 100;
+
+    private boolean failed;
+
+    public static void main(String[] args) throws Exception
+    {
+        MovementCheck check = new MovementCheck();
+        check.runAll();
+        System.exit(check.failed ? 1 : 0);
+    }
+
+    /**
+     * Run all the checks and print their results.
+     */
+    public void runAll() throws Exception
+    {
+        System.out.println(String.format("%-48s %10s", "check", "mismatches"));
+        ArrayList<Room> rooms = buildSquare(new Random(1));
+        for(int enemies : new int[]{50, 20_000})
+        {
+            for(int mode = 0; mode < 3; mode++)
+            {
+                String name = enemies + (mode == 0 ? " enemies at random"
+                                            : mode == 1 ? " enemies pursuing" : " enemies hearing");
+                long[] expected = run(rooms, enemies, mode, 1, 0);
+                for(int[] split : SPLITS)
+                {
+                    long[] actual = run(rooms, enemies, mode, split[0], split[1]);
+                    System.out.println(report(name + ", " + split[0] + " regions, " + split[1] + " threads",
+                                              mismatches(expected, actual)));
+                }
+            }
+        }
+        System.out.println(report("Simulation as EnemyStore", checkSimulation()));
+    }
+
+    /**
+     * Lay the rooms out in a square, every one with a door to each of its
+     * neighbours; about one door in ten is closed.
+     *
+     * @param Random the generator the closed doors are chosen with
+     * @return ArrayList<Room> return the rooms, indexed by their ids
+     */
+    private static ArrayList<Room> buildSquare(Random rand)
+    {
+        ArrayList<Room> rooms = new ArrayList<>();
+        for(int id = 0; id < SIDE * SIDE; id++)
+        {
+            rooms.add(new Room("in room " + id, id));
+        }
+        for(int id = 0; id < SIDE * SIDE; id++)
+        {
+            Room room = rooms.get(id);
+            if(id % SIDE < SIDE - 1){
+                boolean open = rand.nextInt(10) > 0;
+                room.setExit("east", rooms.get(id + 1), open);
+                rooms.get(id + 1).setExit("west", room, open);
+            }
+            if(id + SIDE < SIDE * SIDE){
+                boolean open = rand.nextInt(10) > 0;
+                room.setExit("south", rooms.get(id + SIDE), open);
+                rooms.get(id + SIDE).setExit("north", room, open);
+            }
+        }
+        return rooms;
+    }
+
+    /**
+     * Move a crowd of enemies for a number of turns.
+     *
+     * @param ArrayList<Room> the rooms of the building
+     * @param int the number of enemies
+     * @param int 0 to walk at random, 1 to pursue the player, 2 to go towards noises
+     * @param int the number of regions
+     * @param int the number of threads, 0 to move the crowd on the thread of the check
+     * @return long[] return a hash of the rooms of all the enemies after every turn
+     */
+    private static long[] run(ArrayList<Room> rooms, int enemies, int mode, int regions, int threads)
+        throws Exception
+    {
+        GameConfig config = GameConfig.builder().enemyCount(enemies).build();
+        EnemyStore store = new EnemyStore(rooms, config);
+        Random placing = new Random(enemies);
+        for(int i = 0; i < enemies; i++)
+        {
+            store.add(rooms.get(placing.nextInt(rooms.size())));
+        }
+        store.setRegions(regions);
+        ExitGraph graph = new ExitGraph(rooms);
+        FlowField field = null;
+        if(mode == 1){
+            field = new FlowField(graph);
+            field.update(rooms.get(rooms.size() / 2 + SIDE / 2));
+        }
+        Hearing hearing = mode == 2 ? new Hearing(graph, NOISE_RADIUS) : null;
+
+        long[] hashes = new long[TURNS];
+        Random rand = new Random(mode);
+        Random noises = new Random(-mode);
+        FlowField pursuit = field;
+        Runnable turns = () -> {
+            for(int turn = 0; turn < TURNS; turn++)
+            {
+                if(hearing != null && turn % NOISE_PERIOD == 0){
+                    hearing.makeNoise(rooms.get(noises.nextInt(rooms.size())), store);
+                }
+                store.moveAll(rand, pursuit, hearing);
+                long hash = 0;
+                for(int i = 0; i < store.size(); i++)
+                {
+                    hash = 31 * hash + store.getRoomId(i);
+                }
+                hashes[turn] = hash;
+            }
+        };
+        if(threads == 0){
+            turns.run();
+        }
+        else{
+            // the regions are moved by parallel streams, which run in the pool they are started from
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try{
+                pool.submit(turns).get();
+            }
+            finally{
+                pool.shutdown();
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Move the enemies of seeded games in the simulation and in the game,
+     * with the same numbers for the turns.
+     *
+     * @return int return the number of enemies in different rooms, summed over the turns
+     */
+    private static int checkSimulation()
+    {
+        int mismatches = 0;
+        for(int seed = 0; seed < SIMULATED_GAMES; seed++)
+        {
+            GameConfig config = GameConfig.builder().enemyCount(3 + seed % 9).build();
+            Game game = new Game(seed, config, new CannedInput("quit"));
+            Simulation simulation = new Simulation(new WorldMap(game), 0);
+            EnemyStore store = game.getEnemies();
+            for(int turn = 0; turn < SIMULATED_TURNS; turn++)
+            {
+                long seedOfTurn = seed * 1000L + turn;
+                simulation.moveEnemies(new Random(seedOfTurn).nextLong());
+                store.moveAll(new Random(seedOfTurn), null, null);
+                for(int i = 0; i < store.size(); i++)
+                {
+                    if(simulation.getEnemyRoom(i) != store.getRoomId(i)){
+                        mismatches++;
+                    }
+                }
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * @return int return the number of turns after which the hashes differ
+     */
+    private static int mismatches(long[] expected, long[] actual)
+    {
+        int mismatches = 0;
+        for(int turn = 0; turn < expected.length; turn++)
+        {
+            if(expected[turn] != actual[turn]){
+                mismatches++;
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * @return String return the line of the report, failing the check if anything differs
+     */
+    private String report(String name, int mismatches)
+    {
+        failed |= mismatches > 0;
+        return String.format("%-48s %10d  %s", name, mismatches, mismatches == 0 ? "PASS" : "FAIL");
+    }
+}
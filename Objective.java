@@ -0,0 +1,140 @@
+/**
+ * Class Objective is a part of "Operation Wawel" application.
+ * It is a goal the player can set themselves besides winning the game,
+ * f.e. killing a number of enemies or never being captured. An objective
+ * counts one kind of game event: it is achieved when the event has
+ * happened at least a given number of times, or failed when it has
+ * happened more times than allowed.
+ *
+ * Objectives are added to the Objectives of a game, which tell every
+ * objective the new count whenever its event happens.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class Objective
+{
+    /**
+     * The states an objective can be in.
+     */
+    public enum Status
+    {
+        PENDING, ACHIEVED, FAILED
+    }
+
+    private String description;
+    private Objectives.Event event;     // the event counted
+    private int limit;
+    private boolean atMost;     // TRUE if the event may happen at most limit times,
+                                // FALSE if it has to happen at least limit times
+    private Status status;
+
+    /**
+     * Create an objective.
+     *
+     * @param String description of the objective shown to the player
+     * @param Objectives.Event the event counted
+     * @param int the number of times the event has to or may happen
+     * @param boolean TRUE if the event may happen at most that many times,
+     *                FALSE if it has to happen at least that many times
+     */
+    public Objective(String description, Objectives.Event event, int limit, boolean atMost)
+    {
+        this.description = description;
+        this.event = event;
+        this.limit = limit;
+        this.atMost = atMost;
+        status = Status.PENDING;
+    }
+
+    /**
+     * @param int the number of enemies to kill
+     * @return Objective return the objective of killing that many enemies
+     */
+    public static Objective killEnemies(int enemies)
+    {
+        String description = "Kill " + enemies + (enemies == 1 ? " enemy" : " enemies");
+        return new Objective(description, Objectives.Event.ENEMY_KILLED, enemies, false);
+    }
+
+    /**
+     * @return Objective return the objective of winning without being captured
+     */
+    public static Objective neverCaptured()
+    {
+        return new Objective("Never get captured", Objectives.Event.PLAYER_CAPTURED, 0, true);
+    }
+
+    /**
+     * @param int the number of turns
+     * @return Objective return the objective of winning within that many turns
+     */
+    public static Objective finishWithin(int turns)
+    {
+        return new Objective("Finish within " + turns + " turns", Objectives.Event.TURN_PLAYED, turns, true);
+    }
+
+    /**
+     * @param int the number of chests in the game
+     * @return Objective return the objective of opening all of them
+     */
+    public static Objective openChests(int chests)
+    {
+        return new Objective("Open every chest", Objectives.Event.CHEST_OPENED, chests, false);
+    }
+
+    /**
+     * Decide the objective, if it can be decided, from the number of times
+     * its event has happened.
+     *
+     * @param int the number of times the event has happened
+     * @return boolean return TRUE if the objective has been decided, FALSE if it is still pending
+     */
+    boolean update(int count)
+    {
+        if(atMost && count > limit){
+            status = Status.FAILED;
+        }
+        else if(!atMost && count >= limit){
+            status = Status.ACHIEVED;
+        }
+        return status != Status.PENDING;
+    }
+
+    /**
+     * Decide the objective at the end of the game. The limits not exceeded
+     * are achieved if the game was won, the counts not reached are failed.
+     *
+     * @param boolean TRUE if the player has won, FALSE otherwise
+     */
+    void finish(boolean won)
+    {
+        if(status == Status.PENDING){
+            status = atMost && won ? Status.ACHIEVED : Status.FAILED;
+        }
+    }
+
+    /**
+     * @return String return the description of the objective
+     */
+    public String getDescription()
+    {
+        return description;
+    }
+
+    /**
+     * @return Objectives.Event return the event the objective counts
+     */
+    public Objectives.Event getEvent()
+    {
+        return event;
+    }
+
+    /**
+     * @return Status return the state of the objective
+     */
+    public Status getStatus()
+    {
+        return status;
+    }
+}
@@ -0,0 +1,125 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class Objectives is a part of "Operation Wawel" application.
+ * It keeps the objectives of a game up to date as the game goes on.
+ * The game tells it about every event (a turn played, an enemy killed,
+ * ...) and it counts the events of each type.
+ *
+ * Every objective only listens to the type of event it counts, and stops
+ * listening once it is decided. So an event costs a counter increment
+ * plus a check of the pending objectives counting that event, and
+ * hundreds of objectives do not slow down the events they do not count.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class Objectives
+{
+    /**
+     * The types of events the objectives count.
+     */
+    public enum Event
+    {
+        TURN_PLAYED, ENEMY_KILLED, PLAYER_CAPTURED, CHEST_OPENED
+    }
+
+    private static final Event[] EVENTS = Event.values();
+
+    private ArrayList<Objective> objectives;    // all the objectives, in the order of adding
+    private int[] counts;                       // event type -> the number of events so far
+    private Objective[][] listeners;            // event type -> the pending objectives counting it
+    private int[] listenerCounts;
+
+    /**
+     * Create a game's objectives, none at first.
+     */
+    public Objectives()
+    {
+        objectives = new ArrayList<>();
+        counts = new int[EVENTS.length];
+        listeners = new Objective[EVENTS.length][0];
+        listenerCounts = new int[EVENTS.length];
+    }
+
+    /**
+     * Add an objective. It is decided at once if the events that already
+     * happened decide it.
+     *
+     * @param Objective the objective to add
+     */
+    public void add(Objective objective)
+    {
+        objectives.add(objective);
+        int event = objective.getEvent().ordinal();
+        if(objective.update(counts[event])){
+            return;
+        }
+        if(listenerCounts[event] == listeners[event].length){
+            listeners[event] = Arrays.copyOf(listeners[event], Math.max(4, 2 * listenerCounts[event]));
+        }
+        listeners[event][listenerCounts[event]++] = objective;
+    }
+
+    /**
+     * Count an event and update the pending objectives counting it.
+     *
+     * @param Event the event that happened
+     */
+    public void fire(Event type)
+    {
+        int event = type.ordinal();
+        int count = ++counts[event];
+        Objective[] pending = listeners[event];
+        int i = 0;
+        while(i < listenerCounts[event])
+        {
+            if(pending[i].update(count)){
+                // the decided objective stops listening, the last one takes its place
+                pending[i] = pending[--listenerCounts[event]];
+                pending[listenerCounts[event]] = null;
+            }
+            else{
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Decide all the objectives still pending at the end of the game.
+     *
+     * @param boolean TRUE if the player has won, FALSE otherwise
+     */
+    public void finish(boolean won)
+    {
+        for(int event = 0; event < EVENTS.length; event++)
+        {
+            for(int i = 0; i < listenerCounts[event]; i++)
+            {
+                listeners[event][i].finish(won);
+                listeners[event][i] = null;
+            }
+            listenerCounts[event] = 0;
+        }
+    }
+
+    /**
+     * @param Event a type of event
+     * @return int return the number of events of that type so far
+     */
+    public int getCount(Event type)
+    {
+        return counts[type.ordinal()];
+    }
+
+    /**
+     * @return List<Objective> return all the objectives, in the order of adding
+     */
+    public List<Objective> getObjectives()
+    {
+        return Collections.unmodifiableList(objectives);
+    }
+}
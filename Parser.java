@@ -1,4 +1,10 @@
-import java.util.Scanner;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 
 /**
  * This class is part of the "Operation Wawel" application.  
@@ -12,21 +18,62 @@ import java.util.Scanner;
  * the known commands, and if the input is not one of the known commands, it
  * returns a command object that is marked as an unknown command.
  * 
+ * The input is read into a reused buffer. Every distinct word and command
+ * is turned into an object only the first time it is typed, later the same
+ * objects are returned (commands cannot be changed, so they can be shared),
+ * so reading commands a player has used before does not allocate memory.
+ * Once a table is full, new words and commands are created every time
+ * they are typed, and still compared by their contents.
+ *
  * @author  Michael Kölling, David J. Barnes, Kamil Kuzara
  * @version 2018.11
  */
 public class Parser 
 {
+    // capacities of the word and command tables, powers of two; the tables
+    // start small, so that many parsers can be kept in memory at once
+    private static final int MIN_TABLE_SIZE = 16;
+    private static final int MAX_TABLE_SIZE = 1024;
+
     private CommandWords commands;  // holds all valid command words
-    private Scanner reader;         // source of command input
+    private InputStream reader;     // source of command input
+    private byte[] buffer;          // input read but not used yet
+    private int position;
+    private int limit;
+    private byte[] line;            // the last line read
+    private int lineLength;
+    private String[] lineWords;     // the first three words of the line, null if there are fewer
+
+    private byte[][] wordBytes;     // the words typed so far, in an open-addressing table
+    private String[] words;
+    private int wordCount;
+    private Command[] cachedCommands;   // the commands typed so far, in the same kind of table
+    private int commandCount;
 
     /**
      * Create a parser to read from the terminal window.
      */
     public Parser() 
+    {
+        this(System.in);
+    }
+
+    /**
+     * Create a parser to read from the given stream, f.e. prepared input
+     * of an automated game.
+     *
+     * @param InputStream source of command input
+     */
+    public Parser(InputStream input)
     {
         commands = new CommandWords();
-        reader = new Scanner(System.in);
+        reader = input;
+        buffer = new byte[256];
+        line = new byte[64];
+        lineWords = new String[3];
+        wordBytes = new byte[MIN_TABLE_SIZE][];
+        words = new String[MIN_TABLE_SIZE];
+        cachedCommands = new Command[MIN_TABLE_SIZE];
     }
 
     /**
@@ -34,36 +81,232 @@ public class Parser
      */
     public Command getCommand() 
     {
-        String inputLine;   // will hold the full input line
-        String word1 = null;
-        String word2 = null;
-        String word3 = null;
+        readLine();
+        return parse();
+    }
 
+    /**
+     * Wait for the user to type a line and keep it for parse().
+     *
+     * @throws NoSuchElementException if the input has ended
+     */
+    public void readLine()
+    {
         System.out.print("> ");     // print prompt
 
-        inputLine = reader.nextLine();
-
-        // Find up to three words on the line.
-        Scanner tokenizer = new Scanner(inputLine);
-        if(tokenizer.hasNext()) {
-            word1 = tokenizer.next();      // get first word
-            if(tokenizer.hasNext()) {
-                word2 = tokenizer.next();      // get second word
-                if(tokenizer.hasNext()) {
-                    word3 = tokenizer.next();       // get third word
-                }
-                // note: we just ignore the rest of the input line.
+        if(position == limit && !fill()){
+            throw new NoSuchElementException("No line found");
+        }
+        lineLength = 0;
+        while(position < limit || fill())   // the last line may have no line break
+        {
+            byte b = buffer[position++];
+            if(b == '\n'){
+                break;
+            }
+            if(lineLength == line.length){
+                line = Arrays.copyOf(line, line.length * 2);
+            }
+            line[lineLength++] = b;
+        }
+        if(lineLength > 0 && line[lineLength - 1] == '\r'){
+            lineLength--;
+        }
+    }
+
+    /**
+     * Interpret the last line read as a command.
+     *
+     * @return Command return the command
+     */
+    public Command parse()
+    {
+        // Find up to three words on the line, the rest of it is ignored.
+        Arrays.fill(lineWords, null);
+        int index = 0;
+        for(int i = 0; i < lineWords.length; i++)
+        {
+            while(index < lineLength && isSpace(line[index]))
+            {
+                index++;
+            }
+            int start = index;
+            while(index < lineLength && !isSpace(line[index]))
+            {
+                index++;
+            }
+            if(start < index){
+                lineWords[i] = word(start, index);
+            }
+        }
+
+        // Now check whether the first word is known. If not, create a "null"
+        // command (for unknown command).
+        String word1 = commands.isCommand(lineWords[0]) ? lineWords[0] : null;
+        return command(word1, lineWords[1], lineWords[2]);
+    }
+
+    /**
+     * Read more input into the buffer.
+     *
+     * @return boolean return TRUE if anything was read, FALSE if the input has ended
+     */
+    private boolean fill()
+    {
+        try{
+            int count = reader.read(buffer, 0, buffer.length);
+            if(count <= 0){
+                return false;
             }
+            position = 0;
+            limit = count;
+            return true;
         }
+        catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isSpace(byte b)
+    {
+        return b >= 0 && java.lang.Character.isWhitespace(b);
+    }
 
-        // Now check whether this word is known. If so, create a command
-        // with it. If not, create a "null" command (for unknown command).
-        if(commands.isCommand(word1)) {
-            return new Command(word1, word2, word3);
+    /**
+     * Get the word on the given part of the line, created the first time it is typed.
+     *
+     * @return String return the word
+     */
+    private String word(int start, int end)
+    {
+        int hash = hashOf(line, start, end);
+        int slot = findWord(hash, line, start, end);
+        if(wordBytes[slot] != null){
+            return words[slot];
         }
-        else {
-            return new Command(null, word2, word3); 
+        
+        String word = new String(line, start, end - start, StandardCharsets.UTF_8);
+        if(wordCount >= wordBytes.length / 2){     // keep the table sparse
+            if(wordBytes.length == MAX_TABLE_SIZE){
+                return word;    // the table is full, do not remember the word
+            }
+            growWords();
+            slot = findWord(hash, line, start, end);
         }
+        wordBytes[slot] = Arrays.copyOfRange(line, start, end);
+        words[slot] = word;
+        wordCount++;
+        return word;
+    }
+
+    /**
+     * @return int return the slot of the word in the table, or the empty slot it belongs in
+     */
+    private int findWord(int hash, byte[] bytes, int start, int end)
+    {
+        int mask = wordBytes.length - 1;
+        int slot = mix(hash) & mask;
+        while(wordBytes[slot] != null
+              && !Arrays.equals(wordBytes[slot], 0, wordBytes[slot].length, bytes, start, end))
+        {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void growWords()
+    {
+        byte[][] oldBytes = wordBytes;
+        String[] oldWords = words;
+        wordBytes = new byte[oldBytes.length * 2][];
+        words = new String[oldBytes.length * 2];
+        for(int i = 0; i < oldBytes.length; i++)
+        {
+            byte[] bytes = oldBytes[i];
+            if(bytes != null){
+                int slot = findWord(hashOf(bytes, 0, bytes.length), bytes, 0, bytes.length);
+                wordBytes[slot] = bytes;
+                words[slot] = oldWords[i];
+            }
+        }
+    }
+
+    /**
+     * Get the command made of the given words, created the first time it is typed.
+     *
+     * @return Command return the command
+     */
+    private Command command(String word1, String word2, String word3)
+    {
+        int slot = findCommand(word1, word2, word3);
+        if(cachedCommands[slot] != null){
+            return cachedCommands[slot];
+        }
+        
+        Command command = new Command(word1, word2, word3);
+        if(commandCount >= cachedCommands.length / 2){
+            if(cachedCommands.length == MAX_TABLE_SIZE){
+                return command;
+            }
+            growCommands();
+            slot = findCommand(word1, word2, word3);
+        }
+        cachedCommands[slot] = command;
+        commandCount++;
+        return command;
+    }
+
+    /**
+     * @return int return the slot of the command in the table, or the empty slot it belongs in
+     */
+    private int findCommand(String word1, String word2, String word3)
+    {
+        int hash = 31 * (31 * hashOf(word1) + hashOf(word2)) + hashOf(word3);
+        int mask = cachedCommands.length - 1;
+        int slot = mix(hash) & mask;
+        while(cachedCommands[slot] != null)
+        {
+            Command command = cachedCommands[slot];
+            if(Objects.equals(command.getCommandWord(), word1) && Objects.equals(command.getSecondWord(), word2)
+                && Objects.equals(command.getThirdWord(), word3)){
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void growCommands()
+    {
+        Command[] oldCommands = cachedCommands;
+        cachedCommands = new Command[oldCommands.length * 2];
+        for(Command command : oldCommands)
+        {
+            if(command != null){
+                cachedCommands[findCommand(command.getCommandWord(), command.getSecondWord(),
+                                           command.getThirdWord())] = command;
+            }
+        }
+    }
+
+    private static int hashOf(byte[] bytes, int start, int end)
+    {
+        int hash = 0;
+        for(int i = start; i < end; i++)
+        {
+            hash = 31 * hash + bytes[i];
+        }
+        return hash;
+    }
+
+    private static int hashOf(String word)
+    {
+        return word == null ? 0 : word.hashCode();
+    }
+
+    private static int mix(int hash)
+    {
+        return hash ^ (hash >>> 16);
     }
 
     /**
@@ -73,14 +316,14 @@ public class Parser
     {
         commands.showAll();
     }
-    
+
     /**
      * Add a new command do the list of valid commands.
-     * 
+     *
      * @param String the command word to be added to the list of valid commands
      */
     public void addCommand(String commandWord)
     {
         commands.addCommand(commandWord);
     }
-}
\ No newline at end of file
+}
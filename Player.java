@@ -1,34 +1,193 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.Collections;
 
 /**
  * Class Player is a part of "Operation Wawel" application.
  * It extends class Character with player's features and behaviours.
  *
+ * The track of the rooms the player can go back to is a ring buffer of the
+ * rooms' ids, as deep as the configuration says. When it is full, the
+ * oldest room is forgotten, so moving and going back take a constant time
+ * and the track does not grow however long the game lasts.
+ *
  * @author Kamil Kuzara
  * @version 2018.11
  */
 public class Player extends Character
 {
-    private ArrayList<Room> previousRooms;
+    private int[] track;            // ring buffer of the ids of the rooms to go back to
+    private int trackEnd;           // position after the most recent room
+    private int trackSize;
+    private Room[] trackRooms;      // room id -> the room, for the rooms put on the track
     
     // minimum number of saved previous locations
     private static final int MIN_TRACK_LENGTH = 1;
     
+    private Set<Item> targets;      // the items the player has to carry to win
+    private int targetsCarried;     // the number of them the player is carrying, in containers
+                                    // too, kept up to date whenever items are collected,
+                                    // dropped, or put in or taken out of carried containers
+    private long keys;              // the set of the keys the player is carrying, see DoorLocks
+    private int[] keyCounts;        // key number -> the number of keys of that number carried
+    
     /**
      * Constructor for objects of class Player
+     * 
+     * @param Room the room the player starts in
+     * @param GameConfig the configuration of the game
+     */
+    public Player(Room startingRoom, GameConfig config)
+    {
+        super(startingRoom, config);
+        track = new int[Math.max(MIN_TRACK_LENGTH, config.getTrackDepth())];
+        trackRooms = new Room[currentRoom.getId() + 1];
+        pushTrack(currentRoom);         // add the first room to the track
+        maxInjuries = config.getPlayerMaxInjuries();    // overwrite the value from Character's constructor
+                                                        // the player can receive more injuries
+        targets = Collections.emptySet();
+        keyCounts = new int[Long.SIZE];     // keys are numbered from 0 to 63
+    }
+    
+    /**
+     * Set the items the player has to carry to win.
+     * 
+     * @param Set<Item> the items to carry, f.e. the artwork
+     */
+    public void setTargets(Set<Item> targets)
+    {
+        this.targets = targets;
+        targetsCarried = 0;
+        for(Item item : items)
+        {
+            targetsCarried += countTargets(item);
+        }
+    }
+    
+    /**
+     * Check if the player is carrying all the items they have to carry to win,
+     * in their hands or in the containers they carry.
+     * 
+     * @return boolean return TRUE if the player carries all of them, FALSE otherwise
+     */
+    public boolean carriesAllTargets()
+    {
+        return targetsCarried == targets.size();
+    }
+    
+    /**
+     * @return long return the set of the keys the player is carrying, see DoorLocks
+     */
+    public long getKeys()
+    {
+        return keys;
+    }
+    
+    /**
+     * Count an item the player has got towards the targets and keys they carry.
+     * 
+     * @param Item the item
      */
-    public Player(Room startingRoom)
+    private void itemGained(Item item)
     {
-        super(startingRoom);
-        previousRooms = new ArrayList<>();
-        previousRooms.add(currentRoom); // add the first room to the track
-        maxInjuries = 6;    // overwrite the value from Character's constructor
-                            // the player can receive more injuries
+        targetsCarried += countTargets(item);
+        if(item instanceof Key){
+            keyCounts[((Key)item).getNumber()]++;
+            keys |= ((Key)item).getMask();
+        }
+    }
+    
+    /**
+     * Stop counting an item the player has lost towards the targets and keys they carry.
+     * 
+     * @param Item the item
+     */
+    private void itemLost(Item item)
+    {
+        targetsCarried -= countTargets(item);
+        if(item instanceof Key && --keyCounts[((Key)item).getNumber()] == 0){
+            keys &= ~((Key)item).getMask();     // the last key of that number is gone
+        }
+    }
+    
+    /**
+     * Count a target put in a container the player carries.
+     * 
+     * @param Item the item, with all its contents
+     */
+    protected void itemPutIn(Item item)
+    {
+        targetsCarried += countTargets(item);
+    }
+    
+    /**
+     * Stop counting a target taken out of a container the player carries.
+     * 
+     * @param Item the item, with all its contents
+     */
+    protected void itemTakenOut(Item item)
+    {
+        targetsCarried -= countTargets(item);
+    }
+    
+    /**
+     * @param Item an item
+     * @return int return the number of targets among the item and its contents, however deep
+     */
+    private int countTargets(Item item)
+    {
+        int count = targets.contains(item) ? 1 : 0;
+        if(item instanceof Container){
+            for(Item inner : ((Container)item).getContents())
+            {
+                count += countTargets(inner);
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Add an item to the list of player's items.
+     * Use only to assign items when they are created.
+     * 
+     * @param Item the item to be added
+     */
+    public void addItem(Item item)
+    {
+        super.addItem(item);
+        itemGained(item);
+    }
+    
+    /**
+     * Drop all items the player is carrying in the current room.
+     */
+    public void dropAllItems()
+    {
+        super.dropAllItems();
+        targetsCarried = 0;
+        keys = 0;
+        Arrays.fill(keyCounts, 0);
+    }
+    
+    /**
+     * Drop all items the player is carrying in random rooms.
+     * 
+     * @param ArrayList<Room> the list of rooms to which the items will be put
+     * @param Random the generator used to choose the rooms
+     */
+    public void dropAllItems(ArrayList<Room> rooms, Random rand)
+    {
+        super.dropAllItems(rooms, rand);
+        targetsCarried = 0;
+        keys = 0;
+        Arrays.fill(keyCounts, 0);
     }
     
     /** 
      * Go in the specified direction. Add the current room to
-     * the list of previous rooms (tracks the movement for the 
+     * the track of previous rooms (tracks the movement for the 
      * use of "back" command).
      * 
      * @param String the direction in which we want to go
@@ -38,10 +197,10 @@ public class Player extends Character
         // leave current room
         Room nextRoom = currentRoom.getExit(direction);
         
-        if((previousRooms.size() == MIN_TRACK_LENGTH && currentRoom != nextRoom)
-            || previousRooms.size() > MIN_TRACK_LENGTH){
-                previousRooms.add(currentRoom);
-                // add the current room to the list of previous rooms if the track
+        if((trackSize == MIN_TRACK_LENGTH && currentRoom != nextRoom)
+            || trackSize > MIN_TRACK_LENGTH){
+                pushTrack(currentRoom);
+                // add the current room to the track of previous rooms if the track
                 // is longer than one, or the next room is different
                 // to the current
         }
@@ -58,22 +217,51 @@ public class Player extends Character
      */
     public void goBack()
     {
-        if(previousRooms.size() > MIN_TRACK_LENGTH){
-            // get the last room from the track
-            int lastRoom = previousRooms.size() - 1;
+        if(trackSize > MIN_TRACK_LENGTH){
+            // take the last room from the track
+            trackEnd = (trackEnd + track.length - 1) % track.length;
+            trackSize--;
             
             // change the room
-            currentRoom = previousRooms.get(lastRoom);
-            
-            previousRooms.remove(lastRoom);
+            trigger(RoomTriggers.Kind.EXIT, currentRoom, null);
+            currentRoom = trackRooms[track[trackEnd]];
             
-            if(injuryCounter > 0){  // no need to count the moves
-                                    // to healing if there are no injuries
-                movesToHeal++;
-                if(canHeal()){
-                    heal();     // heal injury
-                }
-            }
+            moves++;    // the injuries it heals are worked out when next read
+            trigger(RoomTriggers.Kind.ENTER, currentRoom, null);
+        }
+    }
+    
+    /**
+     * Return the track of previously visited rooms, the most recent last.
+     * 
+     * @return int[] return the ids of the rooms on the track, in a new array
+     */
+    public int[] getTrack()
+    {
+        int[] rooms = new int[trackSize];
+        for(int i = 0; i < trackSize; i++)
+        {
+            rooms[i] = track[(trackEnd - trackSize + i + track.length) % track.length];
+        }
+        return rooms;
+    }
+    
+    /**
+     * Add a room to the track, forgetting the oldest one if the track is full.
+     * 
+     * @param Room the room
+     */
+    private void pushTrack(Room room)
+    {
+        int id = room.getId();
+        if(id >= trackRooms.length){
+            trackRooms = Arrays.copyOf(trackRooms, Math.max(id + 1, 2 * trackRooms.length));
+        }
+        trackRooms[id] = room;
+        track[trackEnd] = id;
+        trackEnd = (trackEnd + 1) % track.length;
+        if(trackSize < track.length){
+            trackSize++;
         }
     }
     
@@ -84,39 +272,22 @@ public class Player extends Character
      * @param Room destination to which the player is moved
      * @param ArrayList<Room> the list of rooms to which all the 
      *                          items will be dropped randomly
+     * @param Random the generator used to choose the rooms for the items
      */
-    public void teleport(Room destination, ArrayList<Room> rooms)
+    public void teleport(Room destination, ArrayList<Room> rooms, Random rand)
     {
         // change the room
+        trigger(RoomTriggers.Kind.EXIT, currentRoom, null);
         currentRoom = destination;
         
         // clear the track of previous rooms and add the current one
-        previousRooms.clear();
-        previousRooms.add(currentRoom);
+        trackSize = 0;
+        trackEnd = 0;
+        pushTrack(currentRoom);
         
         // drop all items to random locations
-        dropAllItems(rooms);
-    }
-    
-    /**
-     * Attack the specified character with the specified weapon. 
-     * 
-     * @param Character the character to be attacked
-     * @param String the name of the weapon to be used
-     */
-    public void attack(Character character, String weaponName)
-    {
-        Item weapon = getItem(weaponName);
-        if(isUseableWeapon(weapon)){    // attack only if the weapon can be used
-            attack(character, (Weapon)weapon);
-            
-            System.out.println("You have attacked the enemy.");
-            System.out.println("Number of enemy's injuries: " + character.getInjuriesNumber() + "/"
-                                 + character.getMaxInjuriesNumber());
-        }
-        else{
-            System.out.println("This item is not a weapon or is not useable right now.");
-        }
+        dropAllItems(rooms, rand);
+        trigger(RoomTriggers.Kind.ENTER, currentRoom, null);
     }
     
     /**
@@ -131,27 +302,34 @@ public class Player extends Character
      * operation of changing the item's holder.
      * 
      * @param String the name of the item to be collected
+     * @return Item return the collected item, null if it could not be collected
      */ 
-    public void collectItem(String itemName)
+    public Item collectItem(String itemName)
     {
         // try to collect specified item
         Item item = currentRoom.getItem(itemName);
 
         if (item == null) {
             System.out.println("There is no such item in this room!");
+            return null;
         }
         else {
             int itemWeight = item.getWeight();
             if(canLift(itemWeight)){    // only collect if not too heavy
                 items.add(item);
+                itemGained(item);
                 currentRoom.removeItem(itemName);   // we already know we can safely remove
                                                     // the item from the room without losing it,
                                                     // because it has been assigned to the character
                 increaseCarriedWeight(itemWeight);
+                carry(item);
                 System.out.println("You have collected " + itemName + ".");
+                return item;
             }
-            else
+            else{
                 System.out.println("You cannot collect this item! It weighs too much.");
+                return null;
+            }
         }
     }
     
@@ -161,21 +339,27 @@ public class Player extends Character
      * of the current room.
      * 
      * @param String the name of the item to be dropped
+     * @return Item return the dropped item, null if the player does not have it
      */
-    public void dropItem(String itemName)
+    public Item dropItem(String itemName)
     {
         // try to drop specified item
         Item item = getItem(itemName);
 
         if (item == null) {
             System.out.println("You do not have such an item!");
+            return null;
         }
         else {
             int itemWeight = item.getWeight();
             currentRoom.addItem(item);  // add to the room
             items.remove(item);         // remove from the player
+            itemLost(item);
             decreaseCarriedWeight(itemWeight);
+            putDown(item);
             System.out.println("You have dropped " + itemName + ".");
+            trigger(RoomTriggers.Kind.ITEM_DROPPED, currentRoom, item);
+            return item;
         }
     }
     
@@ -189,8 +373,8 @@ public class Player extends Character
         else{
             System.out.println("Your inventory: ");
             for(Item item: items) {
-                String itemName = item.getName();
-                System.out.print(itemName + "  ");
+                System.out.print(item.getName());
+                System.out.print("  ");
             }
             System.out.println();
         }
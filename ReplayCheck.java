@@ -0,0 +1,343 @@
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Class ReplayCheck is a part of "Operation Wawel" application.
+ * It makes sure a Simulation plays by the rules of the game. A seeded game
+ * and a simulation of it are given the same seed for their random
+ * generators, and the same commands, chosen at random from the actions the
+ * simulation finds legal; whenever the game waits for a command, the
+ * states of the two are compared: the player's room, injuries, moves
+ * towards healing and the weight they carry, the doors open, where every
+ * item is (in a room, in a container, carried by the player) with the
+ * bullets of the weapons, and the rooms and bullets of the enemies alive.
+ * When a game ends, the simulation must end the same way.
+ *
+ * The games are played without enemies, with enemies that fight and
+ * capture the player, and with a painting put in a box in the chest, which
+ * the player can carry. Games configured with pursuit, hearing or
+ * reinforcements cannot be simulated and are not played. When anything
+ * differs, the program ends with exit status 1, so it can be run after
+ * every change: "java ReplayCheck".
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class ReplayCheck
+{
+    private static final int GAMES = 200;
+    private static final int DECISIONS = 400;   // commands given in a game before it is stopped
+
+    private boolean failed;
+
+    public static void main(String[] args)
+    {
+        ReplayCheck check = new ReplayCheck();
+        check.runAll();
+        System.exit(check.failed ? 1 : 0);
+    }
+
+    /**
+     * Run all the checks and print their results.
+     */
+    public void runAll()
+    {
+        System.out.println(String.format("%-36s %10s", "check", "mismatches"));
+        System.out.println(report("games without enemies",
+                                  check(GameConfig.builder().enemyCount(0).build(), false)));
+        System.out.println(report("games with enemies",
+                                  check(GameConfig.builder().enemyCount(4).captureOdds(3).build(), false)));
+        System.out.println(report("games with a box in the chest",
+                                  check(GameConfig.builder().enemyCount(2).build(), true)));
+    }
+
+    /**
+     * Play seeded games and their simulations side by side.
+     *
+     * @param GameConfig the configuration of the games
+     * @param boolean TRUE to put the painting of the chest in a box in it, FALSE otherwise
+     * @return int return the number of games in which anything differs
+     */
+    private static int check(GameConfig config, boolean boxed)
+    {
+        PrintStream out = System.out;
+        System.setOut(new SilentPrintStream());
+        try{
+            int mismatches = 0;
+            for(int seed = 0; seed < GAMES; seed++)
+            {
+                Replay replay = new Replay(seed);
+                Game game = new Game(seed, config, replay);
+                if(boxed){
+                    box(game);
+                }
+                game.reseed(seed);
+                Simulation simulation = new Simulation(new WorldMap(game), seed);
+                replay.start(game, simulation);
+
+                try{
+                    boolean over = false;
+                    while(!over)
+                    {
+                        over = game.playTurn();
+                    }
+                    if(!sameState(game, simulation) || !sameEnd(game, simulation)){
+                        mismatches++;
+                    }
+                }
+                catch(NoSuchElementException e){    // the replay stopped giving commands
+                    if(replay.differs()){
+                        mismatches++;
+                    }
+                }
+            }
+            return mismatches;
+        }
+        finally{
+            System.setOut(out);
+        }
+    }
+
+    /**
+     * Put the painting lying in the chest of a game in a box, in the chest.
+     *
+     * @param Game the game
+     */
+    private static void box(Game game)
+    {
+        for(Room room : game.getRooms())
+        {
+            if(room.getItem("chest") != null){
+                Container chest = (Container)room.getItem("chest");
+                Item painting = chest.getContents().iterator().next();
+                Chest box = new Chest("box", "A box.", 5);
+                chest.addItem(box);
+                box.addItem(painting);  // taken out of the chest
+            }
+        }
+    }
+
+    /**
+     * @return boolean return TRUE if the game and the simulation ended the same way, FALSE otherwise
+     */
+    private static boolean sameEnd(Game game, Simulation simulation)
+    {
+        Player player = game.getPlayer();
+        boolean won = player.getCurrentRoom() == game.getRooms().get(0) && player.carriesAllTargets();
+        return simulation.isFinished() && simulation.hasWon() == won && simulation.isDead() == player.isDead();
+    }
+
+    /**
+     * Compare the state of the game with the state of the simulation.
+     *
+     * @return boolean return TRUE if they are the same, FALSE otherwise
+     */
+    private static boolean sameState(Game game, Simulation simulation)
+    {
+        Player player = game.getPlayer();
+        if(player.getCurrentRoom().getId() != simulation.getPlayerRoom()
+            || player.getInjuriesNumber() != simulation.getInjuries()
+            || player.getMovesToHeal() != simulation.getMovesToHeal()
+            || player.getCarriedWeight() != simulation.getCarriedWeight()){
+            return false;
+        }
+
+        for(Room room : game.getRooms())
+        {
+            for(int direction = 0; direction < Room.DIRECTIONS.length; direction++)
+            {
+                if(room.getExit(direction) != null
+                    && room.isExitOpen(direction) != simulation.canGo(room.getId(), direction)){
+                    return false;
+                }
+            }
+        }
+
+        ArrayList<String> places = new ArrayList<>();       // "name place bullets" of every item
+        for(Room room : game.getRooms())
+        {
+            for(Item item : room.getItems())
+            {
+                describe(item, "room " + room.getId(), places);
+            }
+        }
+        for(Item item : player.getItems())
+        {
+            describe(item, "player", places);
+        }
+        EnemyStore enemies = game.getEnemies();
+        for(int enemy = 0; enemy < enemies.size(); enemy++)
+        {
+            places.add("enemy " + enemies.getId(enemy) + " room " + enemies.getRoomId(enemy)
+                       + " " + enemies.getBullets(enemy));
+        }
+        return sorted(places).equals(sorted(describe(simulation)));
+    }
+
+    /**
+     * Describe where an item of the game is, and the items stored in it.
+     *
+     * @param Item the item
+     * @param String where it is
+     * @param ArrayList<String> the descriptions to add to
+     */
+    private static void describe(Item item, String place, ArrayList<String> places)
+    {
+        int bullets = item instanceof Weapon ? ((Weapon)item).getBullets() : 0;
+        places.add(item.getName() + " " + place + " " + bullets);
+        if(item instanceof Container){
+            for(Item content : ((Container)item).getContents())
+            {
+                describe(content, "in " + item.getName(), places);
+            }
+        }
+    }
+
+    /**
+     * Describe where the items of the simulation are, and the enemies alive.
+     *
+     * @return ArrayList<String> return the descriptions, like those of the game
+     */
+    private static ArrayList<String> describe(Simulation simulation)
+    {
+        WorldMap map = simulation.getMap();
+        ArrayList<String> places = new ArrayList<>();
+        for(int enemy = 0; enemy < map.getEnemyCount(); enemy++)
+        {
+            if(simulation.isEnemyAlive(enemy)){
+                int bullets = 0;
+                for(int item = 0; item < map.getItemCount(); item++)
+                {
+                    if(simulation.getItemHolder(item) == enemy){
+                        bullets = simulation.getBullets(item);
+                    }
+                }
+                places.add("enemy " + map.getEnemyId(enemy) + " room " + simulation.getEnemyRoom(enemy)
+                           + " " + bullets);
+            }
+        }
+        for(int item = 0; item < map.getItemCount(); item++)
+        {
+            String place;
+            if(simulation.getItemChest(item) >= 0){
+                place = "in " + map.getItemName(simulation.getItemChest(item));
+            }
+            else if(simulation.getItemHolder(item) == WorldMap.PLAYER){
+                place = "player";
+            }
+            else if(simulation.getItemRoom(item) >= 0){
+                place = "room " + simulation.getItemRoom(item);
+            }
+            else{
+                continue;   // carried by an enemy
+            }
+            places.add(map.getItemName(item) + " " + place + " " + simulation.getBullets(item));
+        }
+        return places;
+    }
+
+    private static ArrayList<String> sorted(ArrayList<String> list)
+    {
+        Collections.sort(list);
+        return list;
+    }
+
+    /**
+     * @return String return the line of the report, failing the check if anything differs
+     */
+    private String report(String name, int mismatches)
+    {
+        failed |= mismatches > 0;
+        return String.format("%-36s %10d  %s", name, mismatches, mismatches == 0 ? "PASS" : "FAIL");
+    }
+
+    /**
+     * The commands given to a game. Whenever the game waits for one, the
+     * state of the game is compared with the simulation's, and an action
+     * legal in the simulation is chosen at random, performed there and
+     * given to the game as a command. The stream ends after the given
+     * number of commands, or as soon as anything differs.
+     */
+    private static class Replay extends InputStream
+    {
+        private Random rand;
+        private Game game;
+        private Simulation simulation;
+        private int[] actions;
+        private byte[] line = new byte[0];  // the command being read
+        private int position;
+        private int decisions;
+        private boolean differs;
+
+        Replay(long seed)
+        {
+            rand = new Random(seed);
+        }
+
+        /**
+         * Start the simulation, the game is about to play its first turn.
+         */
+        void start(Game game, Simulation simulation)
+        {
+            this.game = game;
+            this.simulation = simulation;
+            actions = new int[simulation.getActionCount()];
+            simulation.begin();
+        }
+
+        /**
+         * @return boolean return TRUE if the game and the simulation differed, FALSE otherwise
+         */
+        boolean differs()
+        {
+            return differs;
+        }
+
+        /**
+         * Compare the states, and choose the next command.
+         *
+         * @return boolean return TRUE if there is a command to give, FALSE if the stream ends
+         */
+        private boolean decide()
+        {
+            if(simulation.isFinished() || !sameState(game, simulation)){
+                differs = true;
+                return false;
+            }
+            if(decisions == DECISIONS){
+                return false;
+            }
+            decisions++;
+            int count = simulation.getLegalActions(actions);
+            int action = count > 0 ? actions[rand.nextInt(count)] : Simulation.BACK;
+            line = (simulation.describeAction(action) + "\n").getBytes(StandardCharsets.UTF_8);
+            position = 0;
+            simulation.step(action);
+            return true;
+        }
+
+        public int read()
+        {
+            if(position == line.length && !decide()){
+                return -1;
+            }
+            return line[position++];
+        }
+
+        public int read(byte[] buffer, int offset, int length)
+        {
+            if(position == line.length && !decide()){
+                return -1;
+            }
+            int count = Math.min(length, line.length - position);
+            System.arraycopy(line, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 import java.util.Set;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 
 /**
  * Class Room - a room in an adventure game.
@@ -16,12 +17,25 @@ import java.util.HashSet;
  */
 public class Room 
 {
+    // all the directions an exit can lead in, ordered in pairs of opposites
+    public static final String[] DIRECTIONS = {"north", "south", "east", "west", "up", "down"};
+    
+    private int id;                                 // index of the room in the game's list of rooms
     private String description;
-    private HashMap<String, Room> exits;            // stores exits of this room
-    private HashMap<String, Boolean> exitStates;    // stores information about exits
-                                                    // (open - true; closed - false)
+    // the order the long description has always listed the exits in
+    private static final int[] LISTED = {2, 1, 0, 3, 4, 5};     // east south north west up down
+    
+    private Room[] exitRooms;                       // stores exits of this room and
+    private boolean[] exitOpen;                     // their states (open - true; closed - false),
+                                                    // indexed like DIRECTIONS
+    private DoorLocks doors;                        // the doors the states are read from once
+                                                    // the room is attached to them, or null
     
     private HashSet<Item> items;                    // items that are in the room
+    
+    private String longDescription;                 // built when first needed, forgotten
+                                                    // when the exits change
+    private ExitListener exitListener;              // told when a closed exit is opened, or null
 
     /**
      * Create a room described "description". Initially, it has
@@ -29,13 +43,23 @@ public class Room
      * "an open court yard".
      * 
      * @param description The room's description.
+     * @param id The index of the room in the game's list of rooms.
      */
-    public Room(String description) 
+    public Room(String description, int id) 
     {
         this.description = description;
-        exits = new HashMap<>();
-        exitStates = new HashMap<>();
-        items = new HashSet<>();
+        this.id = id;
+        exitRooms = new Room[DIRECTIONS.length];
+        exitOpen = new boolean[DIRECTIONS.length];
+        items = new LinkedHashSet<>();
+    }
+
+    /**
+     * @return The index of the room in the game's list of rooms.
+     */
+    public int getId()
+    {
+        return id;
     }
 
     /**
@@ -56,7 +80,10 @@ public class Room
      */
     public String getLongDescription()
     {
-        return "You are " + description + ".\n" + getExitString();
+        if(longDescription == null){
+            longDescription = "You are " + description + ".\n" + getExitString();
+        }
+        return longDescription;
     }
 
     /**
@@ -68,9 +95,10 @@ public class Room
     private String getExitString()
     {
         String returnString = "Exits:";
-        Set<String> keys = exits.keySet();
-        for(String exit : keys) {
-            returnString += " " + exit;
+        for(int direction : LISTED) {
+            if(exitRooms[direction] != null){
+                returnString += " " + DIRECTIONS[direction];
+            }
         }
         return returnString;
     }
@@ -81,11 +109,42 @@ public class Room
      * @param direction The direction of the exit.
      * @param neighbour  The room to which the exit leads.
      * @param state Current state of the exit door.
+     * @throws IllegalArgumentException if the direction is not one of DIRECTIONS
+     * @throws IllegalStateException if the room's doors are already numbered by a DoorLocks
      */
     public void setExit(String direction, Room neighbor, boolean state) 
     {
-        exits.put(direction, neighbor);
-        exitStates.put(direction, state);
+        int index = indexOf(direction);
+        if(index < 0){
+            throw new IllegalArgumentException("There is no direction " + direction);
+        }
+        if(doors != null){
+            throw new IllegalStateException("The exits of a room cannot change once its doors are numbered");
+        }
+        exitRooms[index] = neighbor;
+        exitOpen[index] = state;
+        longDescription = null;
+    }
+
+    /**
+     * Set the listener to be told whenever a closed exit of the room is opened.
+     * 
+     * @param ExitListener the listener, null for none
+     */
+    public void setExitListener(ExitListener listener)
+    {
+        exitListener = listener;
+    }
+
+    /**
+     * Attach the room to the doors of the game. From then on the states of
+     * its exits are those of the doors, kept by the DoorLocks.
+     * 
+     * @param DoorLocks the doors of the game
+     */
+    void attach(DoorLocks doors)
+    {
+        this.doors = doors;
     }
 
     /**
@@ -96,7 +155,8 @@ public class Room
      */
     public boolean isExitOpen(String direction)
     {
-        return exitStates.get(direction);
+        int index = indexOf(direction);
+        return index >= 0 && isExitOpen(index);
     }
 
     /**
@@ -108,26 +168,35 @@ public class Room
      */
     public Room getExit(String direction) 
     {
-        return exits.get(direction);
+        int index = indexOf(direction);
+        return index >= 0 ? exitRooms[index] : null;
     }
-    
+
     /**
-     * Open all exits of the room.
+     * Return the room that is reached if we go from this room in the
+     * direction with the given index in DIRECTIONS, null if there is none.
+     * 
+     * @param direction Index of the exit's direction.
+     * @return The room in the given direction.
      */
-    public void openExits()
+    public Room getExit(int direction)
     {
-        Set<String> keys = exitStates.keySet();
-        exitStates = new HashMap<>();   // create a new map to hold the exits' states
-        for(String key : keys)
-        {
-            exitStates.put(key, true);
-            
-            //open the other room linked by the exit
-            Room room = exits.get(key);
-            String direction = getOppositeDirection(key);            
-            room.openExit(direction);
+        return exitRooms[direction];
+    }
+
+    /**
+     * Check if the exit in the direction with the given index in DIRECTIONS is open.
+     * 
+     * @param int index of the exit's direction
+     * @return boolean return TRUE if the exit is open, FALSE otherwise
+     */
+    public boolean isExitOpen(int direction)
+    {
+        if(doors != null){
+            int door = doors.getDoor(this, direction);
+            return door >= 0 && doors.isOpen(door);
         }
-        System.out.println("You have opened all the exits in the room.");
+        return exitOpen[direction];
     }
     
     /**
@@ -137,36 +206,57 @@ public class Room
      */
     public void openExit(String direction)
     {
-        exitStates.remove(direction);
-        exitStates.put(direction, true);
+        int index = indexOf(direction);
+        if(index >= 0){
+            openExit(index);
+        }
     }
     
     /**
-     * Get an opposite direction to the one specified.
+     * Open the exit in the direction with the given index in DIRECTIONS,
+     * if there is one. Once the room is attached to the doors of the game,
+     * the door is opened, in both its rooms.
+     * 
+     * @param int index of the exit's direction
      */
-    private String getOppositeDirection(String direction)
+    public void openExit(int direction)
     {
-        if(direction.equals("north")){
-            return "south";
-        }
-        else if(direction.equals("south")){
-            return "north";
-        }
-        else if(direction.equals("east")){
-            return "west";
-        }
-        else if(direction.equals("west")){
-            return "east";
+        if(doors != null){
+            int door = doors.getDoor(this, direction);
+            if(door >= 0){
+                doors.open(door);
+            }
         }
-        else if(direction.equals("up")){
-            return "down";
+        else if(exitRooms[direction] != null && !exitOpen[direction]){
+            exitOpen[direction] = true;
+            exitOpened(direction);
         }
-        else if(direction.equals("down")){
-            return "up";
+    }
+
+    /**
+     * Tell the exit listener that the exit in the given direction has been opened.
+     * 
+     * @param int index of the exit's direction
+     */
+    void exitOpened(int direction)
+    {
+        if(exitListener != null){
+            exitListener.exitOpened(this, direction);
         }
-        else{   // if the direction is none of the above
-            return null;
+    }
+
+    /**
+     * @return int return the index of the direction in DIRECTIONS, -1 if it is not there
+     */
+    private static int indexOf(String direction)
+    {
+        for(int i = 0; i < DIRECTIONS.length; i++)
+        {
+            if(DIRECTIONS[i].equals(direction)){
+                return i;
+            }
         }
+        return -1;
     }
     
     // methods to manipulate items that are in the room:
@@ -183,6 +273,17 @@ public class Room
         items.add(item);
     }
     
+    /**
+     * Return all the items there are in the room. The returned set
+     * cannot be modified, use addItem(...) and removeItem(...) instead.
+     * 
+     * @return Set<Item> return the items in the room
+     */
+    public Set<Item> getItems()
+    {
+        return Collections.unmodifiableSet(items);
+    }
+    
     /**
      * Get the specified item.
      * 
@@ -233,8 +334,8 @@ public class Room
         else{
             System.out.println("Contents of the room:");
             for(Item item: items) {
-                String itemName = item.getName();
-                System.out.print(itemName + "  ");
+                System.out.print(item.getName());
+                System.out.print("  ");
             }
             System.out.println();
         }
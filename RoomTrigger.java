@@ -0,0 +1,20 @@
+/**
+ * Interface RoomTrigger is a part of "Operation Wawel" application.
+ * It is a scripted reaction to something happening in a room, f.e. an
+ * ambush when the player enters it or a trap when an item is dropped
+ * in it. Triggers are attached to rooms with RoomTriggers.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public interface RoomTrigger
+{
+    /**
+     * React to a character entering or leaving the room, or dropping an item in it.
+     *
+     * @param Character the character
+     * @param Room the room
+     * @param Item the item dropped, null when entering or leaving
+     */
+    void triggered(Character character, Room room, Item item);
+}
@@ -0,0 +1,114 @@
+import java.util.Arrays;
+
+/**
+ * Class RoomTriggers is a part of "Operation Wawel" application.
+ * It keeps the triggers attached to the rooms of a game, by the room
+ * and the kind of event they react to, and sets them off.
+ *
+ * The triggers of a room and a kind are kept in an array, null if there
+ * are none, found by the room's id. So a move into or out of a room with
+ * no triggers only checks one element of an array, however many rooms
+ * and triggers there are. Triggers are seldom added, so adding one makes
+ * a new array.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class RoomTriggers
+{
+    /**
+     * The kinds of events a trigger can react to.
+     */
+    public enum Kind
+    {
+        ENTER, EXIT, ITEM_DROPPED
+    }
+
+    private static final int KINDS = Kind.values().length;
+
+    private RoomTrigger[][] triggers;   // room id * KINDS + kind -> the triggers, null if none
+
+    /**
+     * Create the registry for the rooms of a game, with no triggers.
+     *
+     * @param int the number of rooms
+     */
+    public RoomTriggers(int rooms)
+    {
+        triggers = new RoomTrigger[rooms * KINDS][];
+    }
+
+    /**
+     * Attach a trigger to a room.
+     *
+     * @param Room the room
+     * @param Kind the kind of event the trigger reacts to
+     * @param RoomTrigger the trigger
+     */
+    public void add(Room room, Kind kind, RoomTrigger trigger)
+    {
+        int index = room.getId() * KINDS + kind.ordinal();
+        RoomTrigger[] current = triggers[index];
+        if(current == null){
+            triggers[index] = new RoomTrigger[] {trigger};
+        }
+        else{
+            current = Arrays.copyOf(current, current.length + 1);
+            current[current.length - 1] = trigger;
+            triggers[index] = current;
+        }
+    }
+
+    /**
+     * Detach a trigger from a room.
+     *
+     * @param Room the room
+     * @param Kind the kind of event the trigger reacts to
+     * @param RoomTrigger the trigger
+     * @return boolean return TRUE if the trigger was attached, FALSE otherwise
+     */
+    public boolean remove(Room room, Kind kind, RoomTrigger trigger)
+    {
+        int index = room.getId() * KINDS + kind.ordinal();
+        RoomTrigger[] current = triggers[index];
+        if(current == null){
+            return false;
+        }
+        for(int i = 0; i < current.length; i++)
+        {
+            if(current[i] == trigger){
+                if(current.length == 1){
+                    triggers[index] = null;     // keep the check of a room with none a single one
+                }
+                else{
+                    RoomTrigger[] left = new RoomTrigger[current.length - 1];
+                    System.arraycopy(current, 0, left, 0, i);
+                    System.arraycopy(current, i + 1, left, i, left.length - i);
+                    triggers[index] = left;
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Set off the triggers of a room reacting to an event, in the order
+     * they were attached.
+     *
+     * @param Kind the kind of the event
+     * @param Character the character entering, leaving or dropping the item
+     * @param Room the room
+     * @param Item the item dropped, null when entering or leaving
+     */
+    public void fire(Kind kind, Character character, Room room, Item item)
+    {
+        RoomTrigger[] current = triggers[room.getId() * KINDS + kind.ordinal()];
+        if(current != null){
+            for(RoomTrigger trigger : current)
+            {
+                trigger.triggered(character, room, item);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Class SilentPrintStream is a part of "Operation Wawel" application.
+ * It is a print stream that throws everything away, used in place of
+ * System.out in automated games. Unlike a PrintStream writing to a null
+ * output stream, it does not lock or encode the text, so printing costs
+ * almost nothing and does not allocate memory.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class SilentPrintStream extends PrintStream
+{
+    /**
+     * Create the stream.
+     */
+    public SilentPrintStream()
+    {
+        super(OutputStream.nullOutputStream());
+    }
+
+    public void write(int b) {}
+    public void write(byte[] buf, int off, int len) {}
+    public void flush() {}
+    public void print(boolean b) {}
+    public void print(char c) {}
+    public void print(int i) {}
+    public void print(long l) {}
+    public void print(float f) {}
+    public void print(double d) {}
+    public void print(char[] s) {}
+    public void print(String s) {}
+    public void print(Object obj) {}
+    public void println() {}
+    public void println(boolean x) {}
+    public void println(char x) {}
+    public void println(int x) {}
+    public void println(long x) {}
+    public void println(float x) {}
+    public void println(double x) {}
+    public void println(char[] x) {}
+    public void println(String x) {}
+    public void println(Object x) {}
+
+    public PrintStream printf(String format, Object... args)
+    {
+        return this;
+    }
+
+    public PrintStream format(String format, Object... args)
+    {
+        return this;
+    }
+}
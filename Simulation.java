@@ -0,0 +1,1178 @@
+import java.util.Arrays;
+
+/**
+ * Class Simulation is a part of "Operation Wawel" application.
+ * It plays the game on the compact representation of a WorldMap, following
+ * the rules of class Game, but without reading or printing anything.
+ *
+ * The enemies move like in EnemyStore: every enemy proposes a move into a
+ * room no enemy was in at the start of the turn, in the direction drawn
+ * from a number of the turn and the enemy's ID, and of the enemies
+ * proposing the same room the one with the lowest ID enters it. Enemies
+ * pursuing the player, hearing noises and reinforcements are not
+ * simulated, so a simulation can only be made of a game configured
+ * without them. The player carries containers with everything in them,
+ * like in the game: their contents count towards the artwork carried and
+ * the weight, but only the keys carried outside containers open doors.
+ *
+ * Every decision of the player is an action identified by a number:
+ * going in one of the directions, going back, and collecting, dropping,
+ * opening, using or attacking with one of the items. After an action the
+ * simulation runs on (moving the enemies, starting fights and captures)
+ * until the player has to decide again or the game is over. The random
+ * parts of the game are drawn from the simulation's own generator, which is
+ * a part of its state, so a copy made with copyFrom(...) plays exactly like
+ * the original until it is reseeded. The generator works like
+ * java.util.Random and is drawn from in the order Game draws from its own,
+ * so a simulation given the seed the game's generator was set to plays
+ * the commands exactly like the game; ReplayCheck makes sure it does.
+ *
+ * The simulation never allocates memory once it has been created.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class Simulation
+{
+    // first identifiers of the groups of actions
+    public static final int GO = 0;         // followed by the other directions
+    public static final int BACK = WorldMap.DIRECTION_COUNT;
+    public static final int COLLECT = BACK + 1;     // followed by the other items
+
+    // the linear congruential generator of java.util.Random
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    private WorldMap map;
+    private int itemCount;
+    private int enemyCount;
+
+    // the world
+    private boolean[] doors;            // room * DIRECTION_COUNT + direction -> open or not
+    private int[] itemRooms;            // the room an item lies in, -1 if none
+    private int[] itemHolders;          // WorldMap.PLAYER, an enemy or -1
+    private int[] itemChests;           // the chest an item is stored in, -1 if none
+    private int[] ownWeights;           // the weight of an item without its contents
+    private int[] bullets;
+    private boolean[] chestsOpen;
+    private int[] openRooms;            // rooms captured players and their items end up in
+    private int openRoomCount;
+
+    // the player
+    private int playerRoom;
+    private int injuries;
+    private int movesToHeal;
+    private int carriedWeight;
+    private int[] carried;              // the items carried outside containers, in the order
+    private int carriedCount;           // collected, which is the order they are scattered in
+    private int[] track;                // ring buffer of the rooms to go back to
+    private int trackEnd;               // position after the most recent room
+    private int trackSize;
+
+    // the enemies
+    private int[] enemyIds;
+    private int[] enemyRooms;
+    private int[] enemyInjuries;
+    private int[] enemyMovesToHeal;
+    private boolean[] enemiesAlive;
+    private int[] enemyTargets;         // the room the enemy proposes to enter this turn, -1 if none
+    private int[] claims;               // room -> the lowest enemy proposing to enter it this
+                                        // turn, MAX_VALUE if none
+
+    private int fightEnemy;             // the enemy the player is fighting, -1 if none
+    private boolean finished;
+    private boolean won;
+    private int turns;
+    private long seed;                  // state of the random generator, as in java.util.Random
+
+    // the state the simulation is reset to
+    private int[] initialTrack;
+    private int[] initialOpenRooms;
+
+    /**
+     * Create a simulation of the world described by the map. The simulation
+     * starts in the state the map was taken in.
+     *
+     * @param WorldMap the world to simulate
+     * @param long the seed of the random generator
+     * @throws IllegalArgumentException if the enemies pursue the player, hear noises or get reinforcements
+     */
+    public Simulation(WorldMap map, long seed)
+    {
+        if(map.isPursuit() || map.getNoiseRadius() > 0 || map.getReinforcementPeriod() > 0){
+            throw new IllegalArgumentException("Only games without pursuit, hearing and reinforcements "
+                                               + "can be simulated.");
+        }
+        this.map = map;
+        itemCount = map.getItemCount();
+        enemyCount = map.getEnemyCount();
+        int roomCount = map.getRoomCount();
+
+        doors = new boolean[roomCount * WorldMap.DIRECTION_COUNT];
+        itemRooms = new int[itemCount];
+        itemHolders = new int[itemCount];
+        itemChests = new int[itemCount];
+        ownWeights = new int[itemCount];
+        carried = new int[itemCount];
+        bullets = new int[itemCount];
+        chestsOpen = new boolean[itemCount];
+        for(int item = 0; item < itemCount; item++)
+        {
+            ownWeights[item] += map.getItemWeight(item);
+            if(map.getItemChest(item) >= 0){    // the weight of a container includes its contents
+                ownWeights[map.getItemChest(item)] -= map.getItemWeight(item);
+            }
+        }
+        initialOpenRooms = map.getOpenRooms();
+        openRooms = new int[initialOpenRooms.length + roomCount * WorldMap.DIRECTION_COUNT];
+        track = new int[Math.max(1, map.getTrackDepth())];     // as deep as the player's
+        initialTrack = map.getTrack();
+        enemyIds = new int[enemyCount];
+        enemyRooms = new int[enemyCount];
+        enemyInjuries = new int[enemyCount];
+        enemyMovesToHeal = new int[enemyCount];
+        enemiesAlive = new boolean[enemyCount];
+        enemyTargets = new int[enemyCount];
+        claims = new int[roomCount];
+        Arrays.fill(claims, Integer.MAX_VALUE);
+        for(int enemy = 0; enemy < enemyCount; enemy++)
+        {
+            enemyIds[enemy] = map.getEnemyId(enemy);
+        }
+
+        reset(seed);
+    }
+
+    /**
+     * Bring the simulation back to the state the map was taken in.
+     *
+     * @param long the new seed of the random generator
+     */
+    public void reset(long seed)
+    {
+        reseed(seed);
+        for(int door = 0; door < doors.length; door++)
+        {
+            doors[door] = map.isExitOpen(door / WorldMap.DIRECTION_COUNT, door % WorldMap.DIRECTION_COUNT);
+        }
+        for(int item = 0; item < itemCount; item++)
+        {
+            itemRooms[item] = map.getItemRoom(item);
+            itemHolders[item] = map.getItemHolder(item);
+            itemChests[item] = map.getItemChest(item);
+            bullets[item] = map.getItemBullets(item);
+            chestsOpen[item] = map.isChestOpen(item);
+        }
+        System.arraycopy(initialOpenRooms, 0, openRooms, 0, initialOpenRooms.length);
+        openRoomCount = initialOpenRooms.length;
+
+        playerRoom = map.getPlayerRoom();
+        injuries = map.getPlayerInjuries();
+        movesToHeal = map.getPlayerMovesToHeal();
+        carriedWeight = map.getCarriedWeight();
+        carriedCount = 0;
+        for(int item = 0; item < itemCount; item++)
+        {
+            if(itemHolders[item] == WorldMap.PLAYER && itemChests[item] < 0){
+                carried[carriedCount] = item;   // the map lists them in the order the player does
+                carriedCount++;
+            }
+        }
+        trackSize = 0;
+        trackEnd = 0;
+        for(int room : initialTrack)
+        {
+            pushTrack(room);
+        }
+
+        for(int enemy = 0; enemy < enemyCount; enemy++)
+        {
+            enemyRooms[enemy] = map.getEnemyRoom(enemy);
+            enemyInjuries[enemy] = map.getEnemyInjuries(enemy);
+            enemyMovesToHeal[enemy] = map.getEnemyMovesToHeal(enemy);
+            enemiesAlive[enemy] = true;
+        }
+
+        fightEnemy = -1;
+        finished = false;
+        won = false;
+        turns = 0;
+    }
+
+    /**
+     * Make this simulation an exact copy of another one of the same world.
+     *
+     * @param Simulation the simulation to copy
+     */
+    public void copyFrom(Simulation other)
+    {
+        System.arraycopy(other.doors, 0, doors, 0, doors.length);
+        System.arraycopy(other.itemRooms, 0, itemRooms, 0, itemCount);
+        System.arraycopy(other.itemHolders, 0, itemHolders, 0, itemCount);
+        System.arraycopy(other.itemChests, 0, itemChests, 0, itemCount);
+        System.arraycopy(other.bullets, 0, bullets, 0, itemCount);
+        System.arraycopy(other.chestsOpen, 0, chestsOpen, 0, itemCount);
+        System.arraycopy(other.openRooms, 0, openRooms, 0, other.openRoomCount);
+        openRoomCount = other.openRoomCount;
+
+        playerRoom = other.playerRoom;
+        injuries = other.injuries;
+        movesToHeal = other.movesToHeal;
+        carriedWeight = other.carriedWeight;
+        System.arraycopy(other.carried, 0, carried, 0, other.carriedCount);
+        carriedCount = other.carriedCount;
+        System.arraycopy(other.track, 0, track, 0, track.length);
+        trackEnd = other.trackEnd;
+        trackSize = other.trackSize;
+
+        System.arraycopy(other.enemyRooms, 0, enemyRooms, 0, enemyCount);
+        System.arraycopy(other.enemyInjuries, 0, enemyInjuries, 0, enemyCount);
+        System.arraycopy(other.enemyMovesToHeal, 0, enemyMovesToHeal, 0, enemyCount);
+        System.arraycopy(other.enemiesAlive, 0, enemiesAlive, 0, enemyCount);
+
+        fightEnemy = other.fightEnemy;
+        finished = other.finished;
+        won = other.won;
+        turns = other.turns;
+        seed = other.seed;
+    }
+
+    /**
+     * Replace the seed of the random generator, so that the rest of
+     * the game is played with different random events.
+     *
+     * @param long the new seed
+     */
+    public void reseed(long seed)
+    {
+        this.seed = (seed ^ MULTIPLIER) & MASK;     // scrambled like in java.util.Random
+    }
+
+    /**
+     * Start the game: run the first turn up to the first decision of the
+     * player. Call it once after creating a simulation of a game that has
+     * not been played yet.
+     */
+    public void begin()
+    {
+        nextTurn();
+    }
+
+    // the actions:
+
+    /**
+     * @return int return the number of all actions, legal or not
+     */
+    public int getActionCount()
+    {
+        return COLLECT + 5 * itemCount;
+    }
+
+    /**
+     * @param int index of the item
+     * @return int return the action collecting the item
+     */
+    public int collectAction(int item)
+    {
+        return COLLECT + item;
+    }
+
+    /**
+     * @param int index of the item
+     * @return int return the action dropping the item
+     */
+    public int dropAction(int item)
+    {
+        return COLLECT + itemCount + item;
+    }
+
+    /**
+     * @param int index of the item
+     * @return int return the action opening the chest
+     */
+    public int openAction(int item)
+    {
+        return COLLECT + 2 * itemCount + item;
+    }
+
+    /**
+     * @param int index of the item
+     * @return int return the action using the key
+     */
+    public int useAction(int item)
+    {
+        return COLLECT + 3 * itemCount + item;
+    }
+
+    /**
+     * @param int index of the item
+     * @return int return the action attacking the enemy with the weapon
+     */
+    public int attackAction(int item)
+    {
+        return COLLECT + 4 * itemCount + item;
+    }
+
+    /**
+     * Check if an action makes sense in the current state. Actions that are
+     * not legal can still be performed, but they waste the turn.
+     *
+     * @param int the action
+     * @return boolean return TRUE if the action is legal, FALSE otherwise
+     */
+    public boolean isLegal(int action)
+    {
+        if(finished || action < 0 || action >= getActionCount()){
+            return false;
+        }
+        if(action < BACK){
+            return canGo(playerRoom, action);
+        }
+        if(action == BACK){
+            return fightEnemy >= 0 || trackSize > 1;
+        }
+
+        int group = (action - COLLECT) / itemCount;
+        int item = (action - COLLECT) % itemCount;
+        if(fightEnemy >= 0){    // only fleeing and attacking make sense in a fight
+            return group == 4 && isCarried(item) && bullets[item] > 0;
+        }
+        switch(group){
+            case 0:     // collect
+                return itemRooms[item] == playerRoom
+                        && carriedWeight + weightOf(item) <= map.getMaxWeight();
+            case 1:     // drop
+                return isCarried(item);
+            case 2:     // open
+                return itemRooms[item] == playerRoom && map.getItemKind(item) == WorldMap.CHEST
+                        && !chestsOpen[item];
+            case 3:     // use
+                return isCarried(item) && map.fits(playerRoom, map.getKeyMask(item));
+            default:    // attack
+                return false;
+        }
+    }
+
+    /**
+     * Write the legal actions into the given array.
+     *
+     * @param int[] the array for the actions, at least getActionCount() long
+     * @return int return the number of legal actions
+     */
+    public int getLegalActions(int[] actions)
+    {
+        int count = 0;
+        for(int action = 0; action < getActionCount(); action++)
+        {
+            if(isLegal(action)){
+                actions[count] = action;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Describe the action as the command the player would type.
+     *
+     * @param int the action
+     * @return String return the command
+     */
+    public String describeAction(int action)
+    {
+        if(action < BACK){
+            return "go " + Room.DIRECTIONS[action];
+        }
+        if(action == BACK){
+            return "back";
+        }
+        int item = (action - COLLECT) % itemCount;
+        String name = map.getItemName(item);
+        switch((action - COLLECT) / itemCount){
+            case 0:
+                return "collect " + name;
+            case 1:
+                return "drop " + name;
+            case 2:
+                return "open " + name;
+            case 3:
+                return "use " + name;
+            default:
+                return "attack enemy " + name;
+        }
+    }
+
+    /**
+     * Perform the action and run the game on until the player
+     * has to make the next decision or the game is over.
+     *
+     * @param int the action
+     */
+    public void step(int action)
+    {
+        if(finished){
+            return;
+        }
+        if(fightEnemy >= 0){
+            stepFight(action);
+        }
+        else{
+            stepFree(action);
+        }
+    }
+
+    /**
+     * Perform an action when the player is not fighting.
+     */
+    private void stepFree(int action)
+    {
+        if(action >= 0 && action < BACK){
+            if(canGo(playerRoom, action)){
+                goRoom(action);
+                if(encounter()){
+                    return;
+                }
+            }
+        }
+        else if(action == BACK){
+            goBack();
+            if(encounter()){
+                return;
+            }
+        }
+        else if(action > BACK && action < getActionCount()){
+            int item = (action - COLLECT) % itemCount;
+            switch((action - COLLECT) / itemCount){
+                case 0:
+                    collect(item);
+                    break;
+                case 1:
+                    drop(item);
+                    break;
+                case 2:
+                    open(item);
+                    break;
+                case 3:
+                    use(item);
+                    break;
+                default:    // attacking is only possible in a fight
+                    break;
+            }
+        }
+        endTurn();
+    }
+
+    /**
+     * Perform an action in a fight: flee, attack or waste the round.
+     */
+    private void stepFight(int action)
+    {
+        int enemy = fightEnemy;
+        if(action >= 0 && action < BACK){
+            if(canGo(playerRoom, action)){
+                fightEnemy = -1;
+                goRoom(action);
+                if(!encounter()){
+                    endTurn();
+                }
+                return;
+            }
+        }
+        else if(action == BACK){
+            fightEnemy = -1;
+            goBack();
+            if(!encounter()){
+                endTurn();
+            }
+            return;
+        }
+        else if(action >= COLLECT + 4 * itemCount && action < getActionCount()){
+            attack(action - COLLECT - 4 * itemCount, enemy);
+        }
+
+        if(enemyInjuries[enemy] > map.getEnemyMaxInjuries()){
+            killEnemy(enemy);
+            fightEnemy = -1;
+            endTurn();
+        }
+        else{
+            enemyAttack(enemy);
+        }
+    }
+
+    /**
+     * Finish the turn: check for a win and, if the game goes on,
+     * start the next turn.
+     */
+    private void endTurn()
+    {
+        if(!checkForWin()){
+            nextTurn();
+        }
+    }
+
+    /**
+     * Run turns until the player has to make a decision: move the enemies
+     * and let the one that entered the player's room interact with them.
+     */
+    private void nextTurn()
+    {
+        while(true)
+        {
+            turns++;
+            moveEnemies();
+            int enemy = enemyIn(playerRoom);
+            if(enemy < 0 || interact(enemy) || checkForWin()){
+                return;
+            }
+        }
+    }
+
+    /**
+     * If there is an enemy in the player's room, interact with them.
+     *
+     * @return boolean return TRUE if the player has to decide how to fight
+     *                  or the game is over, FALSE otherwise
+     */
+    private boolean encounter()
+    {
+        int enemy = enemyIn(playerRoom);
+        return enemy >= 0 && interact(enemy);
+    }
+
+    /**
+     * The enemy either captures the player (one time out of five
+     * by default) or starts a fight, drawn like in Game.
+     *
+     * @return boolean return TRUE if a fight started, FALSE if the player was captured
+     */
+    private boolean interact(int enemy)
+    {
+        if(nextInt() % map.getCaptureOdds() == 0){
+            capture();
+            return false;
+        }
+        fightEnemy = enemy;
+        enemyAttack(enemy);
+        return true;
+    }
+
+    /**
+     * Move the player to a random open room and scatter their items.
+     */
+    private void capture()
+    {
+        int destination = openRooms[0];
+        if(openRoomCount > 1){
+            destination = openRooms[1 + nextInt(openRoomCount - 1)];    // never outside
+        }
+        playerRoom = destination;
+        trackSize = 0;
+        trackEnd = 0;
+        pushTrack(destination);
+
+        for(int i = 0; i < carriedCount; i++)
+        {
+            setHolder(carried[i], -1);
+            itemRooms[carried[i]] = openRooms[nextInt(openRoomCount)];
+        }
+        carriedCount = 0;
+        carriedWeight = 0;
+    }
+
+    /**
+     * The enemy shoots at the player if they have a useable weapon.
+     */
+    private void enemyAttack(int enemy)
+    {
+        int weapon = useableWeapon(enemy);
+        if(weapon >= 0){
+            bullets[weapon]--;
+            injuries++;
+            if(injuries > map.getPlayerMaxInjuries()){
+                finished = true;    // the player is dead
+                fightEnemy = -1;
+            }
+        }
+    }
+
+    /**
+     * The player shoots at the enemy with the given weapon.
+     */
+    private void attack(int weapon, int enemy)
+    {
+        if(isCarried(weapon) && map.getItemKind(weapon) == WorldMap.WEAPON && bullets[weapon] > 0){
+            bullets[weapon]--;
+            enemyInjuries[enemy]++;
+        }
+    }
+
+    /**
+     * Remove a dead enemy and drop their items in their room.
+     */
+    private void killEnemy(int enemy)
+    {
+        enemiesAlive[enemy] = false;
+        for(int item = 0; item < itemCount; item++)
+        {
+            if(itemHolders[item] == enemy){
+                itemHolders[item] = -1;
+                itemRooms[item] = enemyRooms[enemy];
+            }
+        }
+    }
+
+    /**
+     * Try to move every enemy in a random direction, like EnemyStore does.
+     */
+    private void moveEnemies()
+    {
+        moveEnemies(nextLong());
+    }
+
+    /**
+     * Try to move every enemy in the direction drawn from the number of the
+     * turn and the enemy's ID. An enemy proposes a move only through an open
+     * door and into a room no enemy is in; of the enemies proposing the same
+     * room, the one with the lowest ID enters it. Package-private, so that
+     * MovementCheck can compare it with EnemyStore.
+     *
+     * @param long the number the directions of this turn depend on
+     */
+    void moveEnemies(long turnSeed)
+    {
+        // propose, in rooms free at the start of the turn
+        for(int enemy = 0; enemy < enemyCount; enemy++)
+        {
+            enemyTargets[enemy] = -1;
+            if(enemiesAlive[enemy]){
+                int room = enemyRooms[enemy];
+                int direction = directionOf(turnSeed, enemyIds[enemy]);
+                int next = map.getExit(room, direction);
+                if(canGo(room, direction) && enemyIn(next) < 0){
+                    enemyTargets[enemy] = next;
+                    if(enemy < claims[next]){   // the enemies are kept in the order of their IDs
+                        claims[next] = enemy;
+                    }
+                }
+            }
+        }
+
+        // the enemies who won their claims enter the rooms
+        for(int enemy = 0; enemy < enemyCount; enemy++)
+        {
+            int next = enemyTargets[enemy];
+            if(next >= 0 && claims[next] == enemy){
+                enemyRooms[enemy] = next;
+                if(enemyInjuries[enemy] > 0){
+                    enemyMovesToHeal[enemy]++;
+                    if(enemyMovesToHeal[enemy] == map.getHealingRate()){
+                        enemyInjuries[enemy]--;
+                        enemyMovesToHeal[enemy] = 0;
+                    }
+                }
+            }
+        }
+        for(int enemy = 0; enemy < enemyCount; enemy++)
+        {
+            if(enemyTargets[enemy] >= 0){
+                claims[enemyTargets[enemy]] = Integer.MAX_VALUE;
+            }
+        }
+    }
+
+    /**
+     * @param long the number the directions of the turn depend on
+     * @param int ID of an enemy
+     * @return int return the direction the enemy tries this turn, the same as in EnemyStore
+     */
+    private static int directionOf(long turnSeed, int id)
+    {
+        long bits = turnSeed + (id + 1) * 0x9E3779B97F4A7C15L;     // mixed like in SplittableRandom
+        bits = (bits ^ (bits >>> 33)) * 0xFF51AFD7ED558CCDL;
+        bits = (bits ^ (bits >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        bits ^= bits >>> 33;
+        return (int)(((bits >>> 32) * WorldMap.DIRECTION_COUNT) >>> 32);
+    }
+
+    /**
+     * Move the player through the door in the given direction.
+     */
+    private void goRoom(int direction)
+    {
+        int next = map.getExit(playerRoom, direction);
+        if((trackSize == 1 && playerRoom != next) || trackSize > 1){
+            pushTrack(playerRoom);
+        }
+        playerRoom = next;
+        countMove();
+    }
+
+    /**
+     * Move the player back to the previous room, if there is one.
+     */
+    private void goBack()
+    {
+        if(trackSize > 1){
+            trackEnd = (trackEnd + track.length - 1) % track.length;
+            trackSize--;
+            playerRoom = track[trackEnd];
+            countMove();
+        }
+    }
+
+    /**
+     * Count a move of the player towards healing an injury.
+     */
+    private void countMove()
+    {
+        if(injuries > 0){
+            movesToHeal++;
+            if(movesToHeal == map.getHealingRate()){
+                injuries--;
+                movesToHeal = 0;
+            }
+        }
+    }
+
+    /**
+     * Add a room to the track, forgetting the oldest one if the track is full.
+     */
+    private void pushTrack(int room)
+    {
+        track[trackEnd] = room;
+        trackEnd = (trackEnd + 1) % track.length;
+        if(trackSize < track.length){
+            trackSize++;
+        }
+    }
+
+    private void collect(int item)
+    {
+        int weight = weightOf(item);
+        if(itemRooms[item] == playerRoom && carriedWeight + weight <= map.getMaxWeight()){
+            itemRooms[item] = -1;
+            setHolder(item, WorldMap.PLAYER);
+            carried[carriedCount] = item;
+            carriedCount++;
+            carriedWeight += weight;
+        }
+    }
+
+    private void drop(int item)
+    {
+        if(isCarried(item)){
+            int i = 0;
+            while(carried[i] != item)
+            {
+                i++;
+            }
+            System.arraycopy(carried, i + 1, carried, i, carriedCount - i - 1);
+            carriedCount--;
+            setHolder(item, -1);
+            itemRooms[item] = playerRoom;
+            carriedWeight -= weightOf(item);
+        }
+    }
+
+    /**
+     * @return boolean return TRUE if the player carries the item outside containers, FALSE otherwise
+     */
+    private boolean isCarried(int item)
+    {
+        return itemHolders[item] == WorldMap.PLAYER && itemChests[item] < 0;
+    }
+
+    /**
+     * Give an item, with everything stored in it, to a character.
+     *
+     * @param int index of the item
+     * @param int WorldMap.PLAYER or -1
+     */
+    private void setHolder(int item, int holder)
+    {
+        itemHolders[item] = holder;
+        for(int content = 0; content < itemCount; content++)
+        {
+            if(itemChests[content] == item){
+                setHolder(content, holder);
+            }
+        }
+    }
+
+    /**
+     * @return int return the weight of an item with everything stored in it now
+     */
+    private int weightOf(int item)
+    {
+        int weight = ownWeights[item];
+        for(int content = 0; content < itemCount; content++)
+        {
+            if(itemChests[content] == item){
+                weight += weightOf(content);
+            }
+        }
+        return weight;
+    }
+
+    private void open(int chest)
+    {
+        if(itemRooms[chest] == playerRoom && map.getItemKind(chest) == WorldMap.CHEST
+            && !chestsOpen[chest]){
+            for(int item = 0; item < itemCount; item++)
+            {
+                if(itemChests[item] == chest){
+                    itemChests[item] = -1;
+                    itemRooms[item] = playerRoom;
+                }
+            }
+            chestsOpen[chest] = true;
+        }
+    }
+
+    private void use(int key)
+    {
+        if(!isCarried(key) || map.getItemKind(key) != WorldMap.KEY){
+            return;
+        }
+        if(!map.fits(playerRoom, map.getKeyMask(key))){     // the key does not fit here
+            return;
+        }
+        
+        // the doors need the keys the player carries, not only this one
+        long keys = 0;
+        for(int i = 0; i < carriedCount; i++)
+        {
+            keys |= map.getKeyMask(carried[i]);
+        }
+        int base = playerRoom * WorldMap.DIRECTION_COUNT;
+        for(int direction = 0; direction < WorldMap.DIRECTION_COUNT; direction++)
+        {
+            int next = map.getExit(playerRoom, direction);
+            long required = map.getExitKeys(playerRoom, direction);
+            if(next >= 0 && !doors[base + direction] && required != 0 && (required & ~keys) == 0){
+                if(!isOpenRoom(next)){
+                    openRooms[openRoomCount] = next;    // the room behind can now be entered
+                    openRoomCount++;
+                }
+                doors[base + direction] = true;
+                if(map.getExit(next, direction ^ 1) == playerRoom){
+                    doors[next * WorldMap.DIRECTION_COUNT + (direction ^ 1)] = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return boolean return TRUE if the room is on the list of open rooms, FALSE otherwise
+     */
+    private boolean isOpenRoom(int room)
+    {
+        for(int i = 0; i < openRoomCount; i++)
+        {
+            if(openRooms[i] == room){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if the player has won, i.e. if they are in the starting
+     * room carrying all the required items.
+     */
+    private boolean checkForWin()
+    {
+        if(playerRoom == map.getStartRoom() && getRequiredItemsHeld() == getRequiredItemCount()){
+            won = true;
+            finished = true;
+        }
+        return finished;
+    }
+
+    /**
+     * Check if there is an open door in the given direction.
+     *
+     * @param int the room
+     * @param int index of the direction
+     * @return boolean return TRUE if the door is open, FALSE otherwise
+     */
+    public boolean canGo(int room, int direction)
+    {
+        return map.getExit(room, direction) >= 0 && doors[room * WorldMap.DIRECTION_COUNT + direction];
+    }
+
+    /**
+     * @return int return the enemy in the room, -1 if there is none
+     */
+    private int enemyIn(int room)
+    {
+        for(int enemy = 0; enemy < enemyCount; enemy++)
+        {
+            if(enemiesAlive[enemy] && enemyRooms[enemy] == room){
+                return enemy;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return int return the first useable weapon of the enemy, -1 if there is none
+     */
+    private int useableWeapon(int enemy)
+    {
+        for(int item = 0; item < itemCount; item++)
+        {
+            if(itemHolders[item] == enemy && map.getItemKind(item) == WorldMap.WEAPON && bullets[item] > 0){
+                return item;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Draw the given number of pseudorandom bits, like java.util.Random.
+     */
+    private int next(int bits)
+    {
+        seed = (seed * MULTIPLIER + ADDEND) & MASK;
+        return (int)(seed >>> (48 - bits));
+    }
+
+    /**
+     * Draw a pseudorandom int, like java.util.Random.nextInt().
+     */
+    private int nextInt()
+    {
+        return next(32);
+    }
+
+    /**
+     * Draw a pseudorandom number from 0 (inclusive) to bound (exclusive),
+     * like java.util.Random.nextInt(bound).
+     */
+    private int nextInt(int bound)
+    {
+        int r = next(31);
+        int m = bound - 1;
+        if((bound & m) == 0){   // a power of two
+            return (int)((bound * (long)r) >> 31);
+        }
+        int u = r;
+        while(u - (r = u % bound) + m < 0)     // drawn again so that every number is as likely
+        {
+            u = next(31);
+        }
+        return r;
+    }
+
+    /**
+     * Draw a pseudorandom long, like java.util.Random.nextLong().
+     */
+    private long nextLong()
+    {
+        return ((long)next(32) << 32) + next(32);
+    }
+
+    // the state of the game:
+
+    /**
+     * @return WorldMap return the simulated world
+     */
+    public WorldMap getMap()
+    {
+        return map;
+    }
+
+    /**
+     * @return boolean return TRUE if the game is over, FALSE otherwise
+     */
+    public boolean isFinished()
+    {
+        return finished;
+    }
+
+    /**
+     * @return boolean return TRUE if the player has won, FALSE otherwise
+     */
+    public boolean hasWon()
+    {
+        return won;
+    }
+
+    /**
+     * @return boolean return TRUE if the player has been killed, FALSE otherwise
+     */
+    public boolean isDead()
+    {
+        return finished && !won;
+    }
+
+    /**
+     * @return boolean return TRUE if the player is in a fight, FALSE otherwise
+     */
+    public boolean isInFight()
+    {
+        return fightEnemy >= 0;
+    }
+
+    /**
+     * @return int return the number of turns played
+     */
+    public int getTurns()
+    {
+        return turns;
+    }
+
+    /**
+     * @return int return the room the player is in
+     */
+    public int getPlayerRoom()
+    {
+        return playerRoom;
+    }
+
+    /**
+     * @return int return the number of the player's injuries
+     */
+    public int getInjuries()
+    {
+        return injuries;
+    }
+
+    /**
+     * @return int return the number of moves the player made towards healing
+     */
+    public int getMovesToHeal()
+    {
+        return movesToHeal;
+    }
+
+    /**
+     * @return int return the weight the player is carrying
+     */
+    public int getCarriedWeight()
+    {
+        return carriedWeight;
+    }
+
+    /**
+     * Check if the player can go through the door in the given direction.
+     *
+     * @param int index of the direction
+     * @return boolean return TRUE if there is an open door, FALSE otherwise
+     */
+    public boolean canGo(int direction)
+    {
+        return canGo(playerRoom, direction);
+    }
+
+    /**
+     * @param int index of the item
+     * @return int return the room the item lies in, -1 if it does not lie in a room
+     */
+    public int getItemRoom(int item)
+    {
+        return itemRooms[item];
+    }
+
+    /**
+     * @param int index of the item
+     * @return int return WorldMap.PLAYER, the enemy carrying the item or -1
+     */
+    public int getItemHolder(int item)
+    {
+        return itemHolders[item];
+    }
+
+    /**
+     * @param int index of the item
+     * @return int return the chest the item is stored in, -1 if none
+     */
+    public int getItemChest(int item)
+    {
+        return itemChests[item];
+    }
+
+    /**
+     * @param int index of the item
+     * @return int return the bullets left in the weapon
+     */
+    public int getBullets(int item)
+    {
+        return bullets[item];
+    }
+
+    /**
+     * @param int index of the item
+     * @return boolean return TRUE if the item is a chest that has been opened, FALSE otherwise
+     */
+    public boolean isChestOpen(int item)
+    {
+        return chestsOpen[item];
+    }
+
+    /**
+     * @param int index of the enemy
+     * @return boolean return TRUE if the enemy is alive, FALSE otherwise
+     */
+    public boolean isEnemyAlive(int enemy)
+    {
+        return enemiesAlive[enemy];
+    }
+
+    /**
+     * @param int index of the enemy
+     * @return int return the room the enemy is in
+     */
+    public int getEnemyRoom(int enemy)
+    {
+        return enemyRooms[enemy];
+    }
+
+    /**
+     * @return int return the number of enemies alive
+     */
+    public int getEnemiesAlive()
+    {
+        int alive = 0;
+        for(int enemy = 0; enemy < enemyCount; enemy++)
+        {
+            if(enemiesAlive[enemy]){
+                alive++;
+            }
+        }
+        return alive;
+    }
+
+    /**
+     * @return int return the number of items that have to be collected to win
+     */
+    public int getRequiredItemCount()
+    {
+        int count = 0;
+        for(int item = 0; item < itemCount; item++)
+        {
+            if(map.isRequired(item)){
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return int return the number of required items the player is carrying
+     */
+    public int getRequiredItemsHeld()
+    {
+        int count = 0;
+        for(int item = 0; item < itemCount; item++)
+        {
+            if(map.isRequired(item) && itemHolders[item] == WorldMap.PLAYER){
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,688 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Class Solver is a part of "Operation Wawel" application.
+ * It searches the whole state space of a world to find out whether the
+ * game can be won and what the minimum number of turns to win it is.
+ *
+ * A state is encoded in a single long: the player's room in the high bits
+ * and, below it, one bit for every item that has to be collected (the
+ * artwork and the keys), one bit for every chest holding such an item
+ * (opened or not) and one bit for every locked door (opened or not). A key
+ * used in a room opens the locked doors there whose keys, as in DoorLocks,
+ * the player all carries. The states are searched breadth first, so the
+ * first winning state found is reached in the minimum number of turns.
+ * Visited states are kept in an open-addressed table of primitive longs,
+ * indexed by Zobrist hashes that are updated incrementally with every move.
+ * Large levels of the search are expanded in parallel on all cores.
+ *
+ * Enemies are not part of the state: they move at random, so the solver
+ * answers for the case in which the player does not run across any of them.
+ *
+ * The player never drops anything: there is no move for the "drop"
+ * command, so everything collected and everything carried from the start,
+ * f.e. the gun, is carried to the end. A world that can be won only by
+ * leaving something behind to make room for the artwork is answered as
+ * one that cannot be won. The WorldValidator counts the weight the same
+ * way.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class Solver
+{
+    // number of states in a level from which the level is expanded in parallel
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    // largest size of the table of visited states
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private static final int OPEN = -1;     // door groups of doors that are open
+    private static final int LOCKED = -2;   // door groups of closed doors needing no key,
+                                            // which no key opens
+
+    private WorldMap map;
+
+    private int[] tracked;          // items whose collection is a part of the state
+    private int[] trackedChests;    // tracked item -> index of its chest in "chests", -1 if none
+    private int[] chests;           // chests that store tracked items, however deep
+    private int[] chestParents;     // chest -> index in "chests" of the chest storing it, -1 if none
+    private int[] keys;             // tracked items that are keys
+    private int[] keyItemBits;      // key -> the bit of the key as a tracked item
+    private int[] doorGroups;       // door -> index of the locked door, OPEN or LOCKED
+    private long[] doorKeys;        // locked door -> the keys it needs
+
+    private int bitCount;           // number of bits below the room in a state
+    private int chestBase;          // first bit of the chests
+    private int doorBase;           // first bit of the locked doors
+    private long requiredBits;      // bits of all the items needed to win
+    private int baseWeight;         // weight carried apart from the tracked items
+
+    private long[] roomKeys;        // Zobrist keys of the rooms
+    private long[] bitKeys;         // Zobrist keys of the bits
+
+    private AtomicLongArray table;  // visited states (state + 1, 0 marks an empty slot)
+    private long[] parents;         // the state each visited state was reached from
+    private int visited;            // number of visited states
+
+    private long winningState;
+    private int turns;
+
+    /**
+     * Prepare the solver for the given world.
+     *
+     * @param WorldMap the world to solve
+     */
+    public Solver(WorldMap map)
+    {
+        this.map = map;
+
+        ArrayList<Integer> trackedList = new ArrayList<>();
+        ArrayList<Integer> chestList = new ArrayList<>();
+        ArrayList<Integer> keyList = new ArrayList<>();
+        ArrayList<Integer> keyBitList = new ArrayList<>();
+        for(int item = 0; item < map.getItemCount(); item++)
+        {
+            boolean isKey = map.getItemKind(item) == WorldMap.KEY;
+            if(map.isRequired(item) || isKey){
+                trackedList.add(item);
+                for(int chest = map.getItemChest(item); chest >= 0 && map.getItemHolder(item) != WorldMap.PLAYER;
+                    chest = map.getItemChest(chest))
+                {
+                    if(!chestList.contains(chest)){     // the chests storing the item, however deep,
+                        chestList.add(chest);           // unless the player carries them
+                    }
+                }
+                if(isKey){
+                    keyList.add(item);
+                    keyBitList.add(trackedList.size() - 1);
+                }
+            }
+        }
+        tracked = toArray(trackedList);
+        chests = toArray(chestList);
+        chestParents = new int[chests.length];
+        for(int c = 0; c < chests.length; c++)
+        {
+            chestParents[c] = chestList.indexOf(map.getItemChest(chests[c]));
+        }
+        keys = toArray(keyList);
+        keyItemBits = toArray(keyBitList);
+
+        chestBase = tracked.length;
+        doorBase = chestBase + chests.length;
+        createDoorGroups();
+        bitCount = doorBase + doorKeys.length;
+
+        int roomBits = 64 - Long.numberOfLeadingZeros(Math.max(1, map.getRoomCount() - 1));
+        if(roomBits + bitCount > 63){
+            throw new IllegalArgumentException("The world has too many items and keys to be solved.");
+        }
+
+        baseWeight = map.getCarriedWeight();   // never dropped, see the class comment
+        trackedChests = new int[tracked.length];
+        for(int i = 0; i < tracked.length; i++)
+        {
+            if(map.getItemHolder(tracked[i]) == WorldMap.PLAYER){
+                baseWeight -= map.getItemWeight(tracked[i]);
+            }
+            trackedChests[i] = chestList.indexOf(map.getItemChest(tracked[i]));
+            if(map.isRequired(tracked[i])){
+                requiredBits |= 1L << i;
+            }
+        }
+
+        // Zobrist keys, the seed is fixed so that runs are repeatable
+        SplittableRandom rand = new SplittableRandom(0x5EED);
+        roomKeys = new long[map.getRoomCount()];
+        for(int room = 0; room < roomKeys.length; room++)
+        {
+            roomKeys[room] = rand.nextLong();
+        }
+        bitKeys = new long[bitCount];
+        for(int bit = 0; bit < bitCount; bit++)
+        {
+            bitKeys[bit] = rand.nextLong();
+        }
+    }
+
+    /**
+     * Number the locked doors. An exit and the exit leading back from the
+     * other side are the same door.
+     */
+    private void createDoorGroups()
+    {
+        int rooms = map.getRoomCount();
+        doorGroups = new int[rooms * WorldMap.DIRECTION_COUNT];
+        ArrayList<Long> lockedKeys = new ArrayList<>();
+        for(int door = 0; door < doorGroups.length; door++)
+        {
+            int room = door / WorldMap.DIRECTION_COUNT;
+            int direction = door % WorldMap.DIRECTION_COUNT;
+            int neighbour = map.getExit(room, direction);
+            long required = map.getExitKeys(room, direction);
+            int backDoor = neighbour * WorldMap.DIRECTION_COUNT + (direction ^ 1);
+            if(map.isExitOpen(room, direction) || neighbour < 0){
+                doorGroups[door] = OPEN;
+            }
+            else if(required == 0){
+                doorGroups[door] = LOCKED;
+            }
+            else if(backDoor < door && map.getExit(neighbour, direction ^ 1) == room){
+                doorGroups[door] = doorGroups[backDoor];    // numbered from the other side
+            }
+            else{
+                doorGroups[door] = lockedKeys.size();
+                lockedKeys.add(required);
+            }
+        }
+        doorKeys = new long[lockedKeys.size()];
+        for(int i = 0; i < doorKeys.length; i++)
+        {
+            doorKeys[i] = lockedKeys.get(i);
+        }
+    }
+
+    /**
+     * Search the state space.
+     *
+     * @return int return the minimum number of turns needed to win, -1 if the game cannot be won
+     * @throws IllegalStateException if there are too many states to search
+     */
+    public int solve()
+    {
+        long start = (long)map.getPlayerRoom() << bitCount;
+        for(int i = 0; i < tracked.length; i++)
+        {
+            if(map.getItemHolder(tracked[i]) == WorldMap.PLAYER){
+                start |= 1L << i;   // the player already carries the item
+            }
+        }
+        long startHash = hash(start);
+
+        table = new AtomicLongArray(1024);
+        parents = new long[1024];
+        visited = 0;
+        winningState = -1;
+        turns = -1;
+
+        insert(start, startHash, -1);
+        visited = 1;
+        if(isWin(start)){
+            winningState = start;
+            turns = 0;
+            return 0;
+        }
+
+        long[] states = {start};
+        long[] hashes = {startHash};
+        int depth = 0;
+        while(states.length > 0)
+        {
+            depth++;
+            ensureCapacity((long)states.length * (WorldMap.DIRECTION_COUNT + bitCount));
+
+            int chunks = 1;
+            if(states.length >= PARALLEL_THRESHOLD){
+                chunks = 4 * Runtime.getRuntime().availableProcessors();
+            }
+            Frontier[] next = new Frontier[chunks];
+            AtomicLong win = new AtomicLong(-1);
+            long[] levelStates = states;
+            long[] levelHashes = hashes;
+            int chunkCount = chunks;
+
+            IntStream range = IntStream.range(0, chunks);
+            if(chunks > 1){
+                range = range.parallel();
+            }
+            range.forEach(chunk -> {
+                Frontier frontier = new Frontier();
+                int from = (int)((long)levelStates.length * chunk / chunkCount);
+                int to = (int)((long)levelStates.length * (chunk + 1) / chunkCount);
+                for(int i = from; i < to; i++)
+                {
+                    expand(levelStates[i], levelHashes[i], frontier, win);
+                }
+                next[chunk] = frontier;
+            });
+
+            // join the chunks into the next level
+            int total = 0;
+            for(Frontier frontier : next)
+            {
+                total += frontier.size;
+            }
+            visited += total;
+            states = new long[total];
+            hashes = new long[total];
+            int position = 0;
+            for(Frontier frontier : next)
+            {
+                System.arraycopy(frontier.states, 0, states, position, frontier.size);
+                System.arraycopy(frontier.hashes, 0, hashes, position, frontier.size);
+                position += frontier.size;
+            }
+
+            if(win.get() >= 0){
+                winningState = win.get();
+                turns = depth;
+                return turns;
+            }
+        }
+        return -1;  // all reachable states visited, none of them winning
+    }
+
+    /**
+     * Generate all the states reachable from the given one in a single turn.
+     * The states that have not been visited yet are added to the frontier.
+     *
+     * @param long the state
+     * @param long Zobrist hash of the state
+     * @param Frontier the frontier to add the new states to
+     * @param AtomicLong the winning state, set when one is found
+     */
+    private void expand(long state, long hash, Frontier frontier, AtomicLong win)
+    {
+        int room = (int)(state >>> bitCount);
+        long bits = state & ((1L << bitCount) - 1);
+
+        // go in every direction with an open door
+        for(int direction = 0; direction < WorldMap.DIRECTION_COUNT; direction++)
+        {
+            int neighbour = map.getExit(room, direction);
+            if(neighbour >= 0 && isDoorOpen(room * WorldMap.DIRECTION_COUNT + direction, bits)){
+                long next = ((long)neighbour << bitCount) | bits;
+                visit(next, hash ^ roomKeys[room] ^ roomKeys[neighbour], state, frontier, win);
+            }
+        }
+
+        int weight = baseWeight;
+        for(int i = 0; i < tracked.length; i++)
+        {
+            if((bits & (1L << i)) != 0){
+                weight += map.getItemWeight(tracked[i]);
+            }
+        }
+
+        // collect the items lying in the room
+        for(int i = 0; i < tracked.length; i++)
+        {
+            if((bits & (1L << i)) == 0 && isInRoom(i, room, bits)
+                && weight + map.getItemWeight(tracked[i]) <= map.getMaxWeight()){
+                visit(state | (1L << i), hash ^ bitKeys[i], state, frontier, win);
+            }
+        }
+
+        // open the chests standing in the room
+        for(int c = 0; c < chests.length; c++)
+        {
+            int bit = chestBase + c;
+            if((bits & (1L << bit)) == 0 && roomOf(chests[c], chestParents[c], bits) == room){
+                visit(state | (1L << bit), hash ^ bitKeys[bit], state, frontier, win);
+            }
+        }
+
+        // use a key that fits a door of this room: the locked doors of the
+        // room whose keys are all carried open
+        long carried = carriedKeys(bits);
+        if(map.fits(room, carried)){
+            long opened = bits;
+            long openedHash = hash;
+            for(int direction = 0; direction < WorldMap.DIRECTION_COUNT; direction++)
+            {
+                int group = doorGroups[room * WorldMap.DIRECTION_COUNT + direction];
+                int bit = doorBase + group;
+                if(group >= 0 && (opened & (1L << bit)) == 0 && (doorKeys[group] & ~carried) == 0){
+                    opened |= 1L << bit;
+                    openedHash ^= bitKeys[bit];
+                }
+            }
+            if(opened != bits){
+                visit(state | opened, openedHash, state, frontier, win);
+            }
+        }
+    }
+
+    /**
+     * @param long the bits of a state
+     * @return long return the set of the keys the player carries, as in DoorLocks
+     */
+    private long carriedKeys(long bits)
+    {
+        long carried = 0;
+        for(int k = 0; k < keys.length; k++)
+        {
+            if((bits & (1L << keyItemBits[k])) != 0){
+                carried |= map.getKeyMask(keys[k]);
+            }
+        }
+        return carried;
+    }
+
+    /**
+     * Mark the state as visited. If it has not been visited before,
+     * add it to the frontier and check if it wins the game.
+     */
+    private void visit(long state, long hash, long parent, Frontier frontier, AtomicLong win)
+    {
+        if(insert(state, hash, parent)){
+            frontier.add(state, hash);
+            if(isWin(state)){
+                win.compareAndSet(-1, state);
+            }
+        }
+    }
+
+    /**
+     * Check if the door is open in the given state.
+     *
+     * @param int index of the door (room * DIRECTION_COUNT + direction)
+     * @param long the bits of the state
+     * @return boolean return TRUE if the door is open, FALSE otherwise
+     */
+    private boolean isDoorOpen(int door, long bits)
+    {
+        int group = doorGroups[door];
+        if(group == OPEN){
+            return true;
+        }
+        else if(group == LOCKED){
+            return false;
+        }
+        else{
+            return (bits & (1L << (doorBase + group))) != 0;
+        }
+    }
+
+    /**
+     * Check if the tracked item can be collected in the given room.
+     *
+     * @param int index of the tracked item
+     * @param int the room
+     * @param long the bits of the state
+     * @return boolean return TRUE if the item lies in the room, FALSE otherwise
+     */
+    private boolean isInRoom(int index, int room, long bits)
+    {
+        return roomOf(tracked[index], trackedChests[index], bits) == room;
+    }
+
+    /**
+     * Find the room an item lies in, in the given state. An item stored in
+     * a chest lies where the chest does once the chest has been opened.
+     *
+     * @param int the item
+     * @param int index in "chests" of the chest storing the item, -1 if none
+     * @param long the bits of the state
+     * @return int return the room, -1 if the item is still in a closed chest
+     */
+    private int roomOf(int item, int chest, long bits)
+    {
+        while(chest >= 0)
+        {
+            if((bits & (1L << (chestBase + chest))) == 0){
+                return -1;
+            }
+            item = chests[chest];
+            chest = chestParents[chest];
+        }
+        return map.getItemRoom(item);
+    }
+
+    /**
+     * Check if the player wins in the given state, i.e. if they are
+     * in the starting room with all the required items.
+     *
+     * @param long the state
+     * @return boolean return TRUE if the state is winning, FALSE otherwise
+     */
+    private boolean isWin(long state)
+    {
+        return (int)(state >>> bitCount) == map.getStartRoom()
+                && (state & requiredBits) == requiredBits;
+    }
+
+    /**
+     * Compute the Zobrist hash of a state from scratch.
+     *
+     * @param long the state
+     * @return long return the hash
+     */
+    private long hash(long state)
+    {
+        long hash = roomKeys[(int)(state >>> bitCount)];
+        for(int bit = 0; bit < bitCount; bit++)
+        {
+            if((state & (1L << bit)) != 0){
+                hash ^= bitKeys[bit];
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Add the state to the table of visited states. Safe to be called
+     * by many threads at once.
+     *
+     * @param long the state
+     * @param long hash of the state
+     * @param long the state it was reached from, -1 for the starting state
+     * @return boolean return TRUE if the state has not been visited before, FALSE otherwise
+     */
+    private boolean insert(long state, long hash, long parent)
+    {
+        int mask = table.length() - 1;
+        int slot = (int)(hash ^ (hash >>> 32)) & mask;
+        long entry = state + 1;
+        while(true)
+        {
+            long current = table.get(slot);
+            if(current == entry){
+                return false;
+            }
+            else if(current == 0){
+                if(table.compareAndSet(slot, 0, entry)){
+                    parents[slot] = parent;
+                    return true;
+                }
+                // another thread took the slot, look at it again
+            }
+            else{
+                slot = (slot + 1) & mask;
+            }
+        }
+    }
+
+    /**
+     * Find the slot of a visited state.
+     *
+     * @param long the state
+     * @return int return the slot of the state in the table
+     */
+    private int find(long state)
+    {
+        long hash = hash(state);
+        int mask = table.length() - 1;
+        int slot = (int)(hash ^ (hash >>> 32)) & mask;
+        while(table.get(slot) != state + 1)
+        {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Grow the table if the given number of insertions could fill it
+     * more than halfway. Must not be called during a parallel level.
+     *
+     * @param long the number of insertions that can follow
+     * @throws IllegalStateException if the table would have to grow beyond its largest size
+     */
+    private void ensureCapacity(long incoming)
+    {
+        long needed = 2L * (visited + incoming);
+        if(needed <= table.length()){
+            return;
+        }
+        if(needed > MAX_CAPACITY){
+            // a full open-addressed table could not take any more states
+            throw new IllegalStateException("The search is too large: " + visited + " states visited, "
+                                            + incoming + " more may follow.");
+        }
+        int capacity = table.length();
+        while(capacity < needed)
+        {
+            capacity <<= 1;
+        }
+
+        AtomicLongArray oldTable = table;
+        long[] oldParents = parents;
+        table = new AtomicLongArray(capacity);
+        parents = new long[capacity];
+        for(int slot = 0; slot < oldTable.length(); slot++)
+        {
+            long entry = oldTable.get(slot);
+            if(entry != 0){
+                insert(entry - 1, hash(entry - 1), oldParents[slot]);
+            }
+        }
+    }
+
+    /**
+     * Return the commands that win the game in the minimum number of turns.
+     * Must be called after solve().
+     *
+     * @return ArrayList<String> return the commands, empty if the game cannot be won
+     */
+    public ArrayList<String> getPlan()
+    {
+        ArrayList<String> plan = new ArrayList<>();
+        if(winningState < 0){
+            return plan;
+        }
+
+        long state = winningState;
+        long parent = parents[find(state)];
+        while(parent >= 0)
+        {
+            plan.add(describe(parent, state));
+            state = parent;
+            parent = parents[find(state)];
+        }
+        Collections.reverse(plan);
+        return plan;
+    }
+
+    /**
+     * Describe the command that leads from one state to the next.
+     *
+     * @param long the state before the command
+     * @param long the state after the command
+     * @return String return the command
+     */
+    private String describe(long from, long to)
+    {
+        int fromRoom = (int)(from >>> bitCount);
+        int toRoom = (int)(to >>> bitCount);
+        if(fromRoom != toRoom){
+            for(int direction = 0; direction < WorldMap.DIRECTION_COUNT; direction++)
+            {
+                if(map.getExit(fromRoom, direction) == toRoom){
+                    return "go " + Room.DIRECTIONS[direction];
+                }
+            }
+        }
+
+        int bit = Long.numberOfTrailingZeros(from ^ to);
+        if(bit < chestBase){
+            return "collect " + map.getItemName(tracked[bit]);
+        }
+        else if(bit < doorBase){
+            return "open " + map.getItemName(chests[bit - chestBase]);
+        }
+        else{
+            int key = 0;
+            for(int k = keys.length - 1; k >= 0; k--)   // name the first carried key that fits
+            {
+                if((from & (1L << keyItemBits[k])) != 0 && map.fits(fromRoom, map.getKeyMask(keys[k]))){
+                    key = k;
+                }
+            }
+            return "use " + map.getItemName(keys[key]);
+        }
+    }
+
+    /**
+     * @return int return the number of states visited by the last search
+     */
+    public int getVisitedStates()
+    {
+        return visited;
+    }
+
+    /**
+     * Convert a list of integers to an array.
+     */
+    private static int[] toArray(ArrayList<Integer> list)
+    {
+        int[] array = new int[list.size()];
+        for(int i = 0; i < array.length; i++)
+        {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Solve the game created with the seed given as the first argument,
+     * or with a random seed if there is no argument.
+     */
+    public static void main(String[] args)
+    {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : new Random().nextLong();
+        Solver solver = new Solver(new WorldMap(new Game(seed)));
+        int turns = solver.solve();
+
+        System.out.println("Seed: " + seed);
+        if(turns < 0){
+            System.out.println("The game cannot be won.");
+        }
+        else{
+            System.out.println("The game can be won in " + turns + " turns:");
+            for(String command : solver.getPlan())
+            {
+                System.out.println("  " + command);
+            }
+        }
+        System.out.println("States visited: " + solver.getVisitedStates());
+    }
+
+    /**
+     * A growable list of states and their hashes, filled by a single thread.
+     */
+    private static class Frontier
+    {
+        private long[] states = new long[64];
+        private long[] hashes = new long[64];
+        private int size;
+
+        private void add(long state, long hash)
+        {
+            if(size == states.length){
+                states = Arrays.copyOf(states, size * 2);
+                hashes = Arrays.copyOf(hashes, size * 2);
+            }
+            states[size] = state;
+            hashes[size] = hash;
+            size++;
+        }
+    }
+}
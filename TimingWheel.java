@@ -0,0 +1,286 @@
+import java.util.Arrays;
+
+/**
+ * Class TimingWheel is a part of "Operation Wawel" application.
+ * It runs tasks in later turns of a game: once after a number of turns,
+ * or every given number of turns. Time is counted in turns; the wheel is
+ * moved on by one turn with advance().
+ *
+ * The wheel has LEVELS levels of SLOTS buckets each. A timer due within
+ * SLOTS turns waits in the bucket of its turn on the first level; one due
+ * later waits on a higher level, in a bucket covering SLOTS times as many
+ * turns as one a level lower, and is moved a level down when the wheel
+ * gets to its bucket. So scheduling and cancelling a timer take a constant
+ * time, a turn only looks at the buckets it gets to, and the timers not
+ * due yet cost nothing, however many of them there are.
+ *
+ * The timers are kept in arrays and linked into their buckets by their
+ * positions in the arrays; the positions of cancelled and finished timers
+ * are used again. A timer is referred to by a handle: its position and
+ * the number of times the position has been used, so that a handle of a
+ * finished timer cannot cancel the next one in its position.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class TimingWheel
+{
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;     // buckets on a level
+    private static final int LEVELS = 5;            // the levels cover 2^30 turns, the
+                                                    // timers due later wait in one more bucket
+    private static final int OVERFLOW = LEVELS * SLOTS;
+    private static final int NONE = -1;
+
+    private long turn;              // the current turn
+
+    private int[] heads;            // bucket -> the first timer in it, NONE if empty
+    private int[] tails;            // bucket -> the last timer in it
+
+    private long[] deadlines;       // position -> the turn the timer is due in
+    private int[] periods;          // the turns between the runs, 0 to run once
+    private int[] arguments;
+    private TurnTask[] tasks;       // null if the position is free
+    private int[] buckets;          // the bucket the timer waits in, NONE while it runs
+    private int[] nexts;            // the next timer in the bucket, or the next free position
+    private int[] previous;         // the previous timer in the bucket
+    private int[] uses;             // the number of times the position has been used
+    private int free = NONE;        // the first free position
+    private int used;               // positions used at least once
+    private int size;               // timers waiting
+
+    /**
+     * Create an empty wheel at turn 0.
+     */
+    public TimingWheel()
+    {
+        heads = new int[OVERFLOW + 1];
+        tails = new int[OVERFLOW + 1];
+        Arrays.fill(heads, NONE);
+        Arrays.fill(tails, NONE);
+        int capacity = 16;
+        deadlines = new long[capacity];
+        periods = new int[capacity];
+        arguments = new int[capacity];
+        tasks = new TurnTask[capacity];
+        buckets = new int[capacity];
+        nexts = new int[capacity];
+        previous = new int[capacity];
+        uses = new int[capacity];
+    }
+
+    /**
+     * Run a task once, after the given number of turns.
+     *
+     * @param int the number of turns, at least 1
+     * @param TurnTask the task
+     * @param int the number given to the task
+     * @return long return the handle of the timer, to cancel it with
+     */
+    public long schedule(int delay, TurnTask task, int argument)
+    {
+        return schedule(delay, 0, task, argument);
+    }
+
+    /**
+     * Run a task after the given number of turns, then every period turns
+     * until the timer is cancelled.
+     *
+     * @param int the number of turns to the first run, at least 1
+     * @param int the number of turns between the runs, at least 1, 0 to run once
+     * @param TurnTask the task
+     * @param int the number given to the task
+     * @return long return the handle of the timer, to cancel it with
+     */
+    public long schedule(int delay, int period, TurnTask task, int argument)
+    {
+        if(delay < 1 || period < 0 || task == null){
+            throw new IllegalArgumentException("Cannot schedule after " + delay + " turns every " + period);
+        }
+        int timer = allocate();
+        deadlines[timer] = turn + delay;
+        periods[timer] = period;
+        arguments[timer] = argument;
+        tasks[timer] = task;
+        insert(timer);
+        size++;
+        return (long)uses[timer] << 32 | timer;
+    }
+
+    /**
+     * Cancel a timer, if it has not finished yet.
+     *
+     * @param long the handle of the timer
+     * @return boolean return TRUE if the timer was cancelled, FALSE if it had finished
+     */
+    public boolean cancel(long handle)
+    {
+        int timer = (int)handle;
+        if(timer < 0 || timer >= used || uses[timer] != (int)(handle >>> 32) || tasks[timer] == null){
+            return false;
+        }
+        if(buckets[timer] != NONE){     // a running timer is in no bucket
+            unlink(timer);
+        }
+        release(timer);
+        return true;
+    }
+
+    /**
+     * Move on to the next turn and run the timers due in it, in the order
+     * they got into their bucket.
+     */
+    public void advance()
+    {
+        turn++;
+        if(size == 0){
+            return;
+        }
+
+        // move the timers of the buckets the turn has got to a level down,
+        // the higher levels first, as their timers may go down more levels
+        if((turn & ((1L << (LEVELS * BITS)) - 1)) == 0){
+            cascade(OVERFLOW);
+        }
+        for(int level = LEVELS - 1; level > 0; level--)
+        {
+            if((turn & ((1L << (level * BITS)) - 1)) == 0){
+                cascade(level * SLOTS + (int)((turn >>> (level * BITS)) & (SLOTS - 1)));
+            }
+        }
+
+        // run the timers due; the ones scheduled meanwhile are due later,
+        // so they never get into this bucket
+        int bucket = (int)(turn & (SLOTS - 1));
+        int timer;
+        while((timer = heads[bucket]) != NONE)
+        {
+            unlink(timer);
+            buckets[timer] = NONE;
+            int use = uses[timer];
+            tasks[timer].run(arguments[timer]);
+            if(uses[timer] != use || tasks[timer] == null){
+                continue;   // cancelled by the task
+            }
+            if(periods[timer] > 0){
+                deadlines[timer] = turn + periods[timer];
+                insert(timer);
+            }
+            else{
+                release(timer);
+            }
+        }
+    }
+
+    /**
+     * @return long return the current turn
+     */
+    public long getTurn()
+    {
+        return turn;
+    }
+
+    /**
+     * @return int return the number of timers waiting
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Put the timers of a bucket into the buckets they belong in now.
+     */
+    private void cascade(int bucket)
+    {
+        int timer = heads[bucket];
+        heads[bucket] = NONE;
+        tails[bucket] = NONE;
+        while(timer != NONE)
+        {
+            int next = nexts[timer];
+            insert(timer);
+            timer = next;
+        }
+    }
+
+    /**
+     * Put a timer at the end of its bucket: the bucket on the level of the
+     * highest group of bits in which its deadline differs from the turn.
+     */
+    private void insert(int timer)
+    {
+        long difference = deadlines[timer] ^ turn;
+        int level = difference == 0 ? 0 : (63 - Long.numberOfLeadingZeros(difference)) / BITS;
+        int bucket = OVERFLOW;
+        if(level < LEVELS){
+            bucket = level * SLOTS + (int)((deadlines[timer] >>> (level * BITS)) & (SLOTS - 1));
+        }
+        buckets[timer] = bucket;
+        nexts[timer] = NONE;
+        previous[timer] = tails[bucket];
+        if(tails[bucket] == NONE){
+            heads[bucket] = timer;
+        }
+        else{
+            nexts[tails[bucket]] = timer;
+        }
+        tails[bucket] = timer;
+    }
+
+    /**
+     * Take a timer out of its bucket.
+     */
+    private void unlink(int timer)
+    {
+        int bucket = buckets[timer];
+        if(previous[timer] == NONE){
+            heads[bucket] = nexts[timer];
+        }
+        else{
+            nexts[previous[timer]] = nexts[timer];
+        }
+        if(nexts[timer] == NONE){
+            tails[bucket] = previous[timer];
+        }
+        else{
+            previous[nexts[timer]] = previous[timer];
+        }
+    }
+
+    /**
+     * @return int return a free position for a timer, growing the arrays if there is none
+     */
+    private int allocate()
+    {
+        if(free != NONE){
+            int timer = free;
+            free = nexts[timer];
+            return timer;
+        }
+        if(used == tasks.length){
+            int capacity = 2 * used;
+            deadlines = Arrays.copyOf(deadlines, capacity);
+            periods = Arrays.copyOf(periods, capacity);
+            arguments = Arrays.copyOf(arguments, capacity);
+            tasks = Arrays.copyOf(tasks, capacity);
+            buckets = Arrays.copyOf(buckets, capacity);
+            nexts = Arrays.copyOf(nexts, capacity);
+            previous = Arrays.copyOf(previous, capacity);
+            uses = Arrays.copyOf(uses, capacity);
+        }
+        return used++;
+    }
+
+    /**
+     * Free the position of a finished or cancelled timer.
+     */
+    private void release(int timer)
+    {
+        tasks[timer] = null;
+        uses[timer]++;
+        nexts[timer] = free;
+        free = timer;
+        size--;
+    }
+}
@@ -0,0 +1,124 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Class TrackCheck is a part of "Operation Wawel" application.
+ * It makes sure the player's ring buffer of rooms to go back to behaves
+ * like a plain list of the rooms passed, with the oldest one forgotten
+ * whenever the list gets deeper than the configuration allows.
+ *
+ * The player walks the building at random, goes back and is teleported,
+ * and the list is kept beside them by the rules the game always had: the
+ * room left is added, unless it is the only one on the list and the move
+ * leads back into it; going back takes the last room, but never the only
+ * one; a teleport leaves only the destination on the list. After every
+ * step the rooms on the track and the player's room are compared with the
+ * list. When any differs, the program ends with exit status 1, so it can
+ * be run after every change: "java TrackCheck".
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class TrackCheck
+{
+    private static final int[] DEPTHS = {0, 1, 2, 3, 7, GameConfig.DEFAULT_TRACK_DEPTH};
+    private static final int STEPS = 200_000;
+
+    private boolean failed;
+
+    public static void main(String[] args)
+    {
+        TrackCheck check = new TrackCheck();
+        check.runAll();
+        System.exit(check.failed ? 1 : 0);
+    }
+
+    /**
+     * Run all the checks and print their results.
+     */
+    public void runAll()
+    {
+        System.out.println(String.format("%-24s %10s %10s", "check", "steps", "mismatches"));
+        for(int depth : DEPTHS)
+        {
+            System.out.println(check(depth));
+        }
+    }
+
+    /**
+     * Walk the player at random and compare their track with the list.
+     *
+     * @param int the depth of the track
+     * @return String return the line of the report
+     */
+    private String check(int depth)
+    {
+        GameConfig config = GameConfig.builder().trackDepth(depth).build();
+        Game game = new Game(depth, config, new CannedInput("quit"));
+        ArrayList<Room> rooms = game.getRooms();
+        Player player = new Player(rooms.get(1), config);
+        int limit = Math.max(1, depth);     // the track always keeps the room the player is in
+
+        ArrayDeque<Room> list = new ArrayDeque<>();
+        list.addLast(player.getCurrentRoom());
+
+        Random rand = new Random(depth);
+        int mismatches = 0;
+        for(int step = 0; step < STEPS; step++)
+        {
+            Room expected = player.getCurrentRoom();
+            int choice = rand.nextInt(20);
+            if(choice < 12){    // go somewhere
+                String direction = Room.DIRECTIONS[rand.nextInt(Room.DIRECTIONS.length)];
+                if(player.isMovePossible(direction) == Character.MovePossibility.POSSIBLE){
+                    expected = player.getCurrentRoom().getExit(direction);
+                    if(list.size() > 1 || player.getCurrentRoom() != expected){
+                        list.addLast(player.getCurrentRoom());
+                        if(list.size() > limit){
+                            list.removeFirst();
+                        }
+                    }
+                    player.goRoom(direction);
+                }
+            }
+            else if(choice < 19){   // go back
+                if(list.size() > 1){
+                    expected = list.removeLast();
+                }
+                player.goBack();
+            }
+            else{   // be teleported
+                expected = rooms.get(rand.nextInt(rooms.size()));
+                list.clear();
+                list.addLast(expected);
+                player.teleport(expected, game.getOpenRooms(), rand);
+            }
+
+            if(player.getCurrentRoom() != expected || !sameRooms(player.getTrack(), list)){
+                mismatches++;
+            }
+        }
+        failed |= mismatches > 0;
+        return String.format("%-24s %10d %10d  %s", "track depth " + depth, STEPS, mismatches,
+                             mismatches == 0 ? "PASS" : "FAIL");
+    }
+
+    /**
+     * @return boolean return TRUE if the ids are those of the rooms on the list, in order
+     */
+    private static boolean sameRooms(int[] track, ArrayDeque<Room> list)
+    {
+        if(track.length != list.size()){
+            return false;
+        }
+        int i = 0;
+        for(Room room : list)
+        {
+            if(track[i++] != room.getId()){
+                return false;
+            }
+        }
+        return true;
+    }
+}
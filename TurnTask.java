@@ -0,0 +1,18 @@
+/**
+ * Interface TurnTask is a part of "Operation Wawel" application.
+ * It is something to be done in a later turn of a game, f.e. enemy
+ * reinforcements arriving, scheduled on the game's TimingWheel.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public interface TurnTask
+{
+    /**
+     * Do the task, in the turn it was scheduled for.
+     *
+     * @param int the number given when the task was scheduled, so that one
+     *            task can serve many timers, f.e. id of a room
+     */
+    void run(int argument);
+}
@@ -0,0 +1,250 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Class VectorEnvironment is a part of "Operation Wawel" application.
+ * It steps a number of Environments in lockstep, splitting them between
+ * worker threads. An action stands for the same command of the game in
+ * every environment. The observations of all environments are written into
+ * one preallocated array, observation after observation, and the rewards
+ * and end-of-episode flags into arrays of their own.
+ *
+ * An environment whose episode ends is reset straight away: its reward and
+ * flag belong to the last step of the old episode, its observation is the
+ * first one of the new episode.
+ *
+ * The workers wait for the next step by spinning and then parking, so
+ * stepping does not allocate memory. Call close() to stop them.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class VectorEnvironment
+{
+    private static final int SPINS = 1000;      // spins before a waiting thread yields
+    private static final int YIELDS = 100;      // yields before it starts to park
+
+    private Environment[] environments;
+    private int observationSize;
+    private float[] observations;
+    private float[] rewards;
+    private boolean[] dones;
+    private int[] actions;      // the actions of the current step
+
+    private int threads;
+    private volatile long generation;       // incremented to start every step
+    private volatile boolean resetting;     // TRUE if the current step is a reset
+    private volatile boolean closed;
+    private AtomicInteger pending;          // workers that have not finished the step
+
+    /**
+     * Create environments for the games with the given seeds.
+     *
+     * @param long[] the seeds of the games, one for every environment
+     * @param int the number of threads stepping the environments
+     */
+    public VectorEnvironment(long[] seeds, int threads)
+    {
+        environments = new Environment[seeds.length];
+        for(int i = 0; i < seeds.length; i++)
+        {
+            environments[i] = new Environment(seeds[i]);
+            if(environments[i].getObservationSize() != environments[0].getObservationSize()
+                || environments[i].getActionCount() != environments[0].getActionCount()){
+                throw new IllegalArgumentException("All the games must have worlds of the same size.");
+            }
+            for(int action = 0; action < environments[i].getActionCount(); action++)
+            {
+                if(!environments[i].getCommand(action).equals(environments[0].getCommand(action))){
+                    throw new IllegalArgumentException("An action must stand for the same command in all the games.");
+                }
+            }
+        }
+        observationSize = environments[0].getObservationSize();
+        observations = new float[seeds.length * observationSize];
+        rewards = new float[seeds.length];
+        dones = new boolean[seeds.length];
+        actions = new int[seeds.length];
+
+        this.threads = Math.max(1, Math.min(threads, seeds.length));
+        pending = new AtomicInteger();
+        for(int worker = 1; worker < this.threads; worker++)     // the caller is worker 0
+        {
+            int id = worker;
+            Thread thread = new Thread(() -> work(id), "environment-worker-" + worker);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Start new episodes in all environments.
+     */
+    public void reset()
+    {
+        resetting = true;
+        run();
+    }
+
+    /**
+     * Perform one action in every environment.
+     *
+     * @param int[] the actions, one for every environment
+     */
+    public void step(int[] actions)
+    {
+        System.arraycopy(actions, 0, this.actions, 0, this.actions.length);
+        resetting = false;
+        run();
+    }
+
+    /**
+     * Run the current step on all the threads and wait until it is done.
+     */
+    private void run()
+    {
+        pending.set(threads - 1);
+        generation++;       // let the workers go
+        slice(0);
+        int waited = 0;
+        while(pending.get() > 0)
+        {
+            waited = pause(waited);
+        }
+    }
+
+    /**
+     * The loop of a worker thread: wait for a step, do its share, repeat.
+     */
+    private void work(int worker)
+    {
+        long seen = 0;
+        while(true)
+        {
+            int waited = 0;
+            while(generation == seen)
+            {
+                waited = pause(waited);
+            }
+            if(closed){
+                return;
+            }
+            seen = generation;
+            slice(worker);
+            pending.decrementAndGet();
+        }
+    }
+
+    /**
+     * Step or reset the environments that belong to the given worker.
+     */
+    private void slice(int worker)
+    {
+        int from = environments.length * worker / threads;
+        int to = environments.length * (worker + 1) / threads;
+        for(int i = from; i < to; i++)
+        {
+            Environment environment = environments[i];
+            int offset = i * observationSize;
+            if(resetting){
+                environment.reset(observations, offset);
+                rewards[i] = 0.0f;
+                dones[i] = false;
+            }
+            else{
+                rewards[i] = environment.step(actions[i], observations, offset);
+                dones[i] = environment.isDone();
+                if(dones[i]){
+                    environment.reset(observations, offset);
+                }
+            }
+        }
+    }
+
+    /**
+     * Wait a little: spin first, then yield, then park.
+     *
+     * @param int how many times the thread has waited so far
+     * @return int return the new number of waits
+     */
+    private static int pause(int waited)
+    {
+        if(waited < SPINS){
+            Thread.onSpinWait();
+        }
+        else if(waited < SPINS + YIELDS){
+            Thread.yield();
+        }
+        else{
+            LockSupport.parkNanos(50_000);
+        }
+        return waited + 1;
+    }
+
+    /**
+     * Stop the worker threads. The environments cannot be stepped afterwards.
+     */
+    public void close()
+    {
+        closed = true;
+        generation++;
+    }
+
+    /**
+     * @return int return the number of environments
+     */
+    public int size()
+    {
+        return environments.length;
+    }
+
+    /**
+     * @return int return the number of possible actions in every environment
+     */
+    public int getActionCount()
+    {
+        return environments[0].getActionCount();
+    }
+
+    /**
+     * @return int return the number of values in one observation
+     */
+    public int getObservationSize()
+    {
+        return observationSize;
+    }
+
+    /**
+     * @return float[] return the observations of all environments, one after another;
+     *                  the array is overwritten by every step
+     */
+    public float[] getObservations()
+    {
+        return observations;
+    }
+
+    /**
+     * @return float[] return the rewards of the last step
+     */
+    public float[] getRewards()
+    {
+        return rewards;
+    }
+
+    /**
+     * @return boolean[] return the flags of the episodes that ended in the last step
+     */
+    public boolean[] getDones()
+    {
+        return dones;
+    }
+
+    /**
+     * @param int index of the environment
+     * @return Environment return the environment
+     */
+    public Environment getEnvironment(int index)
+    {
+        return environments[index];
+    }
+}
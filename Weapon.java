@@ -41,6 +41,14 @@ public class Weapon extends Tool
         }
     }
     
+    /**
+     * @return int return the number of bullets left in the weapon
+     */
+    public int getBullets()
+    {
+        return bullets;
+    }
+    
     /**
      * Check if the weapon is useable, i.e. if it
      * has bullets in it.
@@ -0,0 +1,149 @@
+/**
+ * Class WorldEvent is a part of "Operation Wawel" application.
+ * It is something that happened in a game, f.e. the player moving to
+ * another room or an enemy being hit, as published on the game's EventBus.
+ *
+ * The bus reuses the same events over and over, so an event handed to a
+ * handler is only valid until the handler returns; copy what is needed.
+ * Which of the fields are used depends on the type of the event:
+ *
+ *  PLAYER_MOVED    room the player left, otherRoom the player entered
+ *  ENEMY_MOVED     actor the enemy, room left, otherRoom entered
+ *  ITEM_COLLECTED  room, item collected by the player
+ *  ITEM_DROPPED    room, item dropped by the player
+ *  DOOR_OPENED     room whose exit was opened, otherRoom the exit leads to,
+ *                  direction of the exit
+ *  CHEST_OPENED    room, item the chest
+ *  HIT             actor the one who shot, target the one hit, room
+ *  CAPTURED        actor the enemy, room the player was captured in,
+ *                  otherRoom the player was moved to
+ *
+ * Characters are given by the enemy's ID, or PLAYER for the player; rooms
+ * by their ids. The unused fields are -1 and null.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class WorldEvent
+{
+    /**
+     * The types of events.
+     */
+    public enum Type
+    {
+        PLAYER_MOVED, ENEMY_MOVED, ITEM_COLLECTED, ITEM_DROPPED,
+        DOOR_OPENED, CHEST_OPENED, HIT, CAPTURED
+    }
+
+    public static final int PLAYER = -1;    // the player in the actor and target fields
+
+    private Type type;
+    private long sequence;      // number of the event on the bus, counted from 0
+    private int turn;
+    private int actor;
+    private int target;
+    private int room;
+    private int otherRoom;
+    private int direction;
+    private Item item;
+
+    /**
+     * Fill all the fields in.
+     */
+    void set(Type type, long sequence, int turn, int actor, int target, int room, int otherRoom,
+             int direction, Item item)
+    {
+        this.type = type;
+        this.sequence = sequence;
+        this.turn = turn;
+        this.actor = actor;
+        this.target = target;
+        this.room = room;
+        this.otherRoom = otherRoom;
+        this.direction = direction;
+        this.item = item;
+    }
+
+    /**
+     * Copy all the fields of another event.
+     *
+     * @param WorldEvent the event to copy
+     */
+    void copy(WorldEvent event)
+    {
+        set(event.type, event.sequence, event.turn, event.actor, event.target, event.room,
+            event.otherRoom, event.direction, event.item);
+    }
+
+    /**
+     * @return Type return the type of the event
+     */
+    public Type getType()
+    {
+        return type;
+    }
+
+    /**
+     * @return long return the number of the event on the bus, counted from 0
+     */
+    public long getSequence()
+    {
+        return sequence;
+    }
+
+    /**
+     * @return int return the turn the event happened in
+     */
+    public int getTurn()
+    {
+        return turn;
+    }
+
+    /**
+     * @return int return the enemy's ID, or PLAYER, who caused the event, -1 if none
+     */
+    public int getActor()
+    {
+        return actor;
+    }
+
+    /**
+     * @return int return the enemy's ID, or PLAYER, the event happened to
+     */
+    public int getTarget()
+    {
+        return target;
+    }
+
+    /**
+     * @return int return id of the room the event happened in
+     */
+    public int getRoom()
+    {
+        return room;
+    }
+
+    /**
+     * @return int return id of the other room of a move or a door, -1 if none
+     */
+    public int getOtherRoom()
+    {
+        return otherRoom;
+    }
+
+    /**
+     * @return int return index in Room.DIRECTIONS of the door opened, -1 if none
+     */
+    public int getDirection()
+    {
+        return direction;
+    }
+
+    /**
+     * @return Item return the item collected, dropped or opened, null if none
+     */
+    public Item getItem()
+    {
+        return item;
+    }
+}
@@ -0,0 +1,603 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Class WorldMap is a part of "Operation Wawel" application.
+ * It is a compact, read-only snapshot of a game's world: the rooms and
+ * their exits, the doors, the items and the characters. Rooms and items are
+ * referred to by their indices, so the map can be searched and simulated
+ * without walking the object graph of the game.
+ *
+ * Directions are indexed in the order of Room.DIRECTIONS, which lists them
+ * in pairs of opposites, so the opposite of direction "d" is "d ^ 1".
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class WorldMap
+{
+    public static final int DIRECTION_COUNT = 6;
+
+    // kinds of items
+    public static final int PLAIN = 0;
+    public static final int KEY = 1;
+    public static final int CHEST = 2;
+    public static final int WEAPON = 3;
+
+    public static final int PLAYER = -2;    // the holder of the items carried by the player
+
+    private int roomCount;
+    private int startRoom;          // where the game starts and has to be finished
+    private int[] exits;            // room * DIRECTION_COUNT + direction -> neighbour or -1
+    private boolean[] exitOpen;     // the states of the doors when the snapshot was taken
+    private long[] exitKeys;        // the keys the door of an exit needs, 0 if none, see DoorLocks
+
+    private int itemCount;
+    private String[] itemNames;
+    private int[] itemWeights;
+    private int[] itemKinds;
+    private int[] itemRooms;        // the room the item lies in, -1 if it is not in a room
+    private int[] itemChests;       // the chest or other container the item is stored in,
+                                    // carried by the player or not, -1 if none
+    private int[] itemHolders;      // the character carrying the item: PLAYER, an enemy
+                                    // (its index) or -1 if nobody carries it
+    private int[] itemBullets;      // bullets left in a weapon, 0 for other items
+    private int[] keyRooms;         // the room a key is meant for, -1 for other items
+    private long[] keyMasks;        // the bit of a key in a set of keys, 0 for other items
+    private boolean[] chestsOpen;   // TRUE for the chests that have been opened
+    private boolean[] required;     // TRUE for the items that have to be collected to win
+
+    private int playerRoom;
+    private int[] track;            // rooms the player can go back to, the most recent last
+    private int trackDepth;         // the most rooms the player remembers
+    private int playerInjuries;
+    private int playerMovesToHeal;
+    private int playerMaxInjuries;
+    private int carriedWeight;      // the weight the player is carrying
+    private int maxWeight;          // the weight a character can carry at most
+    private int healingRate;        // number of moves needed to heal one injury
+    private int captureOdds;        // an interaction is a capture one time out of this many
+    private boolean pursuit;        // TRUE if the enemies pursue the player
+    private int noiseRadius;        // the most moves away the enemies hear noises from
+    private int reinforcementPeriod;    // turns between the arrivals of enemy reinforcements
+
+    private int enemyCount;
+    private int[] enemyIds;
+    private int[] enemyRooms;
+    private int[] enemyInjuries;
+    private int[] enemyMovesToHeal;
+    private int enemyMaxInjuries;
+
+    private int[] openRooms;        // rooms captured players and their items end up in
+
+    /**
+     * Take a snapshot of the world of the given game.
+     *
+     * @param Game the game to take the snapshot of
+     */
+    public WorldMap(Game game)
+    {
+        ArrayList<Room> rooms = game.getRooms();
+        roomCount = rooms.size();
+        startRoom = 0;      // the first room of the list is the starting location
+        exits = new int[roomCount * DIRECTION_COUNT];
+        exitOpen = new boolean[roomCount * DIRECTION_COUNT];
+        exitKeys = new long[roomCount * DIRECTION_COUNT];
+        DoorLocks doors = game.getDoors();
+
+        // collect the items lying in the rooms first, then those stored in chests and
+        // other containers, however deep, then those carried by the player and by the enemies
+        ArrayList<Item> items = new ArrayList<>();
+        ArrayList<Integer> locations = new ArrayList<>();
+        ArrayList<Integer> holders = new ArrayList<>();
+        for(Room room : rooms)
+        {
+            int id = room.getId();
+            for(int direction = 0; direction < DIRECTION_COUNT; direction++)
+            {
+                String name = Room.DIRECTIONS[direction];
+                Room neighbour = room.getExit(name);
+                if(neighbour != null){
+                    exits[id * DIRECTION_COUNT + direction] = neighbour.getId();
+                    exitOpen[id * DIRECTION_COUNT + direction] = room.isExitOpen(name);
+                    exitKeys[id * DIRECTION_COUNT + direction] = doors.getRequiredKeys(doors.getDoor(room, direction));
+                }
+                else{
+                    exits[id * DIRECTION_COUNT + direction] = -1;
+                }
+            }
+
+            for(Item item : room.getItems())
+            {
+                items.add(item);
+                locations.add(id);
+                holders.add(-1);
+            }
+        }
+
+        addContents(items, locations, holders, 0, -1);
+
+        Player player = game.getPlayer();
+        int carriedFrom = items.size();
+        for(Item item : player.getItems())
+        {
+            items.add(item);
+            locations.add(-1);
+            holders.add(PLAYER);
+        }
+        addContents(items, locations, holders, carriedFrom, PLAYER);
+
+        EnemyStore enemies = game.getEnemies();
+        enemyCount = enemies.size();
+        enemyIds = new int[enemyCount];
+        enemyRooms = new int[enemyCount];
+        enemyInjuries = new int[enemyCount];
+        enemyMovesToHeal = new int[enemyCount];
+        enemyMaxInjuries = game.getConfig().getEnemyMaxInjuries();
+        for(int enemy = 0; enemy < enemyCount; enemy++)
+        {
+            enemyIds[enemy] = enemies.getId(enemy);
+            enemyRooms[enemy] = enemies.getRoomId(enemy);
+            enemyInjuries[enemy] = enemies.getInjuries(enemy);
+            enemyMovesToHeal[enemy] = enemies.getMovesToHeal(enemy);
+            Weapon gun = enemies.copyGun(enemy);
+            if(gun != null){
+                items.add(gun);
+                locations.add(-1);
+                holders.add(enemy);
+            }
+        }
+
+        itemCount = items.size();
+        itemNames = new String[itemCount];
+        itemWeights = new int[itemCount];
+        itemKinds = new int[itemCount];
+        itemRooms = new int[itemCount];
+        itemChests = new int[itemCount];
+        itemHolders = new int[itemCount];
+        itemBullets = new int[itemCount];
+        keyRooms = new int[itemCount];
+        keyMasks = new long[itemCount];
+        chestsOpen = new boolean[itemCount];
+        required = new boolean[itemCount];
+
+        for(int i = 0; i < itemCount; i++)
+        {
+            Item item = items.get(i);
+            itemNames[i] = item.getName();
+            itemWeights[i] = item.getWeight();
+            itemRooms[i] = locations.get(i);
+            itemChests[i] = -1;
+            itemHolders[i] = holders.get(i);
+            keyRooms[i] = -1;
+            required[i] = game.getArtwork().contains(item);
+
+            if(item instanceof Key){
+                itemKinds[i] = KEY;
+                keyRooms[i] = ((Key)item).getCorrespondingRoom().getId();
+                keyMasks[i] = ((Key)item).getMask();
+            }
+            else if(item instanceof Chest){
+                itemKinds[i] = CHEST;
+                chestsOpen[i] = ((Chest)item).isOpen();
+            }
+            else if(item instanceof Weapon){
+                itemKinds[i] = WEAPON;
+                itemBullets[i] = ((Weapon)item).getBullets();
+            }
+            else{
+                itemKinds[i] = PLAIN;
+            }
+        }
+
+        // find out which chests hold the items that are not in rooms, carried or not
+        HashMap<Item, Integer> indices = new HashMap<>();   // item -> its index
+        for(int i = 0; i < itemCount; i++)
+        {
+            indices.put(items.get(i), i);
+        }
+        for(int i = 0; i < itemCount; i++)
+        {
+            Container container = items.get(i).getContainer();
+            if(container != null){
+                itemChests[i] = indices.get(container);
+            }
+        }
+
+        playerRoom = player.getCurrentRoom().getId();
+        track = player.getTrack();
+        trackDepth = game.getConfig().getTrackDepth();
+        playerInjuries = player.getInjuriesNumber();
+        playerMovesToHeal = player.getMovesToHeal();
+        playerMaxInjuries = player.getMaxInjuriesNumber();
+        carriedWeight = player.getCarriedWeight();
+        maxWeight = game.getConfig().getMaxWeight();
+        healingRate = game.getConfig().getHealingRate();
+        captureOdds = game.getConfig().getCaptureOdds();
+        pursuit = game.getConfig().isPursuit();
+        noiseRadius = game.getConfig().getNoiseRadius();
+        reinforcementPeriod = game.getConfig().getReinforcementPeriod();
+
+        openRooms = new int[game.getOpenRooms().size()];
+        for(int i = 0; i < openRooms.length; i++)
+        {
+            openRooms[i] = game.getOpenRooms().get(i).getId();
+        }
+    }
+
+    /**
+     * Add the contents of the containers among the items from the given
+     * index on, and of the containers among those contents, to the items.
+     *
+     * @param ArrayList<Item> the items
+     * @param ArrayList<Integer> the rooms the items lie in
+     * @param ArrayList<Integer> the characters carrying the items
+     * @param int the index of the first item to look into
+     * @param int the character carrying the containers: PLAYER or -1
+     */
+    private static void addContents(ArrayList<Item> items, ArrayList<Integer> locations,
+                                    ArrayList<Integer> holders, int from, int holder)
+    {
+        for(int i = from; i < items.size(); i++)
+        {
+            if(items.get(i) instanceof Container){
+                for(Item item : ((Container)items.get(i)).getContents())
+                {
+                    items.add(item);
+                    locations.add(-1);
+                    holders.add(holder);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return int return the number of rooms
+     */
+    public int getRoomCount()
+    {
+        return roomCount;
+    }
+
+    /**
+     * @return int return the room where the game starts and has to be finished
+     */
+    public int getStartRoom()
+    {
+        return startRoom;
+    }
+
+    /**
+     * Return the room that is reached when leaving the given room
+     * in the given direction.
+     *
+     * @param int the room
+     * @param int index of the direction
+     * @return int return the neighbouring room, -1 if there is no exit
+     */
+    public int getExit(int room, int direction)
+    {
+        return exits[room * DIRECTION_COUNT + direction];
+    }
+
+    /**
+     * Check if the door in the given direction was open when
+     * the snapshot was taken.
+     *
+     * @param int the room
+     * @param int index of the direction
+     * @return boolean return TRUE if the door was open, FALSE otherwise
+     */
+    public boolean isExitOpen(int room, int direction)
+    {
+        return exitOpen[room * DIRECTION_COUNT + direction];
+    }
+
+    /**
+     * Return the keys the door in the given direction needs. The door opens
+     * only if it is locked, i.e. needs at least one key, and all the keys it
+     * needs are carried.
+     *
+     * @param int the room
+     * @param int index of the direction
+     * @return long return the set of keys, as in DoorLocks, 0 if the door needs none
+     */
+    public long getExitKeys(int room, int direction)
+    {
+        return exitKeys[room * DIRECTION_COUNT + direction];
+    }
+
+    /**
+     * Check if one of a set of keys is needed by a door of a room, i.e. if
+     * the "use" command of one of them can be given there.
+     *
+     * @param int the room
+     * @param long the set of keys
+     * @return boolean return TRUE if a door of the room needs one of the keys, FALSE otherwise
+     */
+    public boolean fits(int room, long keys)
+    {
+        for(int direction = 0; direction < DIRECTION_COUNT; direction++)
+        {
+            if((exitKeys[room * DIRECTION_COUNT + direction] & keys) != 0){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return int return the number of items in the world
+     */
+    public int getItemCount()
+    {
+        return itemCount;
+    }
+
+    /**
+     * @param int index of the item
+     * @return String return the name of the item
+     */
+    public String getItemName(int item)
+    {
+        return itemNames[item];
+    }
+
+    /**
+     * @param int index of the item
+     * @return int return the weight of the item
+     */
+    public int getItemWeight(int item)
+    {
+        return itemWeights[item];
+    }
+
+    /**
+     * @param int index of the item
+     * @return int return the kind of the item (PLAIN, KEY, CHEST or WEAPON)
+     */
+    public int getItemKind(int item)
+    {
+        return itemKinds[item];
+    }
+
+    /**
+     * @param int index of the item
+     * @return int return the room the item lies in, -1 if it is not in a room
+     */
+    public int getItemRoom(int item)
+    {
+        return itemRooms[item];
+    }
+
+    /**
+     * @param int index of the item
+     * @return int return the index of the chest or other container storing the item,
+     *              which may be stored in another itself, -1 if none
+     */
+    public int getItemChest(int item)
+    {
+        return itemChests[item];
+    }
+
+    /**
+     * @param int index of the item
+     * @return int return the character carrying the item: PLAYER, the index
+     *              of an enemy or -1 if nobody carries it
+     */
+    public int getItemHolder(int item)
+    {
+        return itemHolders[item];
+    }
+
+    /**
+     * @param int index of the item
+     * @return int return the bullets left in a weapon, 0 for other items
+     */
+    public int getItemBullets(int item)
+    {
+        return itemBullets[item];
+    }
+
+    /**
+     * @param int index of the item
+     * @return int return the room the key is meant for, -1 if the item is not a key;
+     *              the doors it opens are those needing it, see getExitKeys(...)
+     */
+    public int getKeyRoom(int item)
+    {
+        return keyRooms[item];
+    }
+
+    /**
+     * @param int index of the item
+     * @return long return the bit of the key in a set of keys, 0 if the item is not a key
+     */
+    public long getKeyMask(int item)
+    {
+        return keyMasks[item];
+    }
+
+    /**
+     * @param int index of the item
+     * @return boolean return TRUE if the item is a chest that has been opened, FALSE otherwise
+     */
+    public boolean isChestOpen(int item)
+    {
+        return chestsOpen[item];
+    }
+
+    /**
+     * @param int index of the item
+     * @return boolean return TRUE if the item has to be collected to win, FALSE otherwise
+     */
+    public boolean isRequired(int item)
+    {
+        return required[item];
+    }
+
+    /**
+     * @return int return the room the player is in
+     */
+    public int getPlayerRoom()
+    {
+        return playerRoom;
+    }
+
+    /**
+     * @return int[] return the rooms the player can go back to, the most recent last
+     */
+    public int[] getTrack()
+    {
+        return track.clone();
+    }
+
+    /**
+     * @return int return the number of the player's injuries
+     */
+    public int getPlayerInjuries()
+    {
+        return playerInjuries;
+    }
+
+    /**
+     * @return int return the number of the player's moves counted towards healing
+     */
+    public int getPlayerMovesToHeal()
+    {
+        return playerMovesToHeal;
+    }
+
+    /**
+     * @return int return the maximum number of injuries the player can survive
+     */
+    public int getPlayerMaxInjuries()
+    {
+        return playerMaxInjuries;
+    }
+
+    /**
+     * @return int return the weight the player is carrying
+     */
+    public int getCarriedWeight()
+    {
+        return carriedWeight;
+    }
+
+    /**
+     * @return int return the weight a character can carry at most
+     */
+    public int getMaxWeight()
+    {
+        return maxWeight;
+    }
+
+    /**
+     * @return int return the number of moves needed to heal one injury
+     */
+    public int getHealingRate()
+    {
+        return healingRate;
+    }
+
+    /**
+     * @return int return the most rooms the player remembers for the "back" action
+     */
+    public int getTrackDepth()
+    {
+        return trackDepth;
+    }
+
+    /**
+     * @return int return the odds of a capture: one time out of this many
+     */
+    public int getCaptureOdds()
+    {
+        return captureOdds;
+    }
+
+    /**
+     * @return boolean return TRUE if the enemies pursue the player, FALSE if they walk at random
+     */
+    public boolean isPursuit()
+    {
+        return pursuit;
+    }
+
+    /**
+     * @return int return the most moves away the enemies hear noises from, 0 if they do not
+     */
+    public int getNoiseRadius()
+    {
+        return noiseRadius;
+    }
+
+    /**
+     * @return int return the number of turns between the arrivals of enemy
+     *                  reinforcements, 0 if none arrive
+     */
+    public int getReinforcementPeriod()
+    {
+        return reinforcementPeriod;
+    }
+
+    /**
+     * @return int return the number of enemies alive
+     */
+    public int getEnemyCount()
+    {
+        return enemyCount;
+    }
+
+    /**
+     * @param int index of the enemy
+     * @return int return the ID of the enemy in the game
+     */
+    public int getEnemyId(int enemy)
+    {
+        return enemyIds[enemy];
+    }
+
+    /**
+     * @param int index of the enemy
+     * @return int return the room the enemy is in
+     */
+    public int getEnemyRoom(int enemy)
+    {
+        return enemyRooms[enemy];
+    }
+
+    /**
+     * @param int index of the enemy
+     * @return int return the number of the enemy's injuries
+     */
+    public int getEnemyInjuries(int enemy)
+    {
+        return enemyInjuries[enemy];
+    }
+
+    /**
+     * @param int index of the enemy
+     * @return int return the number of the enemy's moves counted towards healing
+     */
+    public int getEnemyMovesToHeal(int enemy)
+    {
+        return enemyMovesToHeal[enemy];
+    }
+
+    /**
+     * @return int return the maximum number of injuries an enemy can survive
+     */
+    public int getEnemyMaxInjuries()
+    {
+        return enemyMaxInjuries;
+    }
+
+    /**
+     * @return int[] return the rooms captured players and their items end up in
+     */
+    public int[] getOpenRooms()
+    {
+        return openRooms.clone();
+    }
+}
@@ -0,0 +1,200 @@
+import java.io.PrintStream;
+import java.util.ArrayList;
+
+/**
+ * Class WorldMapCheck is a part of "Operation Wawel" application.
+ * It makes sure a WorldMap sees the items stored in chests however deep,
+ * and that the WorldValidator and the Solver can find them there. In
+ * seeded games the painting lying in the chest is put in a box in the
+ * chest, or in a case in a box in the chest; the map must still list all
+ * the artwork, stored that deep, the validator must find the world can be
+ * won, and the commands the solver plans must win the game when they are
+ * played in it.
+ *
+ * The validator must also count the weight the player carries from the
+ * start: in seeded games the player is given a stone of a growing weight,
+ * and the validator must find the world can be won exactly when the
+ * artwork and the items carried weigh no more than can be carried. The
+ * solver must never win a world the validator finds cannot be won; it may
+ * lose one the validator passes, as the keys picked up on the way weigh
+ * something too, which only the solver counts. When anything differs, the program ends with exit
+ * status 1, so it can be run after every change: "java WorldMapCheck".
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class WorldMapCheck
+{
+    private static final int GAMES = 50;
+    private static final String[] CHESTS = {"box", "case"};     // put one in another, in the chest
+
+    private boolean failed;
+
+    public static void main(String[] args)
+    {
+        WorldMapCheck check = new WorldMapCheck();
+        check.runAll();
+        System.exit(check.failed ? 1 : 0);
+    }
+
+    /**
+     * Run all the checks and print their results.
+     */
+    public void runAll()
+    {
+        System.out.println(String.format("%-36s %10s", "check", "mismatches"));
+        for(int depth = 2; depth <= CHESTS.length + 1; depth++)
+        {
+            System.out.println(report("artwork " + depth + " chests deep", check(depth)));
+        }
+        System.out.println(report("weight carried from the start", checkWeight()));
+    }
+
+    /**
+     * Give the player a stone in seeded games and check that the validator
+     * counts it, and that the solver wins no world the validator rejects.
+     *
+     * @return int return the number of games in which anything differs
+     */
+    private static int checkWeight()
+    {
+        PrintStream out = System.out;
+        System.setOut(new SilentPrintStream());
+        try{
+            GameConfig config = GameConfig.builder().enemyCount(0).build();
+            int mismatches = 0;
+            for(int seed = 0; seed < GAMES; seed++)
+            {
+                Game game = new Game(seed, config, new CannedInput("quit"));
+                int artwork = 0;
+                for(Item item : game.getArtwork())
+                {
+                    artwork += item.getWeight();
+                }
+                int stoneWeight = seed % 10;
+                game.getPlayer().addItem(new Item("stone", "A stone.", stoneWeight));
+                WorldMap map = new WorldMap(game);
+
+                boolean light = map.getCarriedWeight() + artwork <= map.getMaxWeight();
+                boolean winnable = new WorldValidator(map).isWinnable();
+                boolean solved = new Solver(map).solve() >= 0;
+                if(winnable != light || solved && !winnable){
+                    mismatches++;
+                }
+            }
+            return mismatches;
+        }
+        finally{
+            System.setOut(out);
+        }
+    }
+
+    /**
+     * Store the painting of the chest the given number of chests deep in
+     * seeded games, and check the map, the validator and the solver.
+     *
+     * @param int the number of chests the painting is stored in, one in another
+     * @return int return the number of games in which anything differs
+     */
+    private static int check(int depth)
+    {
+        PrintStream out = System.out;
+        System.setOut(new SilentPrintStream());
+        try{
+            GameConfig config = GameConfig.builder().enemyCount(0).build();
+            int mismatches = 0;
+            for(int seed = 0; seed < GAMES; seed++)
+            {
+                Game game = new Game(seed, config, new CannedInput("quit"));
+                Item painting = nest(game, depth);
+                WorldMap map = new WorldMap(game);
+
+                int stored = -1;
+                int required = 0;
+                for(int item = 0; item < map.getItemCount(); item++)
+                {
+                    if(map.isRequired(item)){
+                        required++;
+                    }
+                    if(map.getItemName(item).equals(painting.getName())){
+                        stored = 0;
+                        for(int chest = map.getItemChest(item); chest >= 0; chest = map.getItemChest(chest))
+                        {
+                            stored++;
+                        }
+                    }
+                }
+
+                Solver solver = new Solver(map);
+                boolean solved = solver.solve() >= 0;
+                if(required != game.getArtwork().size() || stored != depth
+                    || !new WorldValidator(map).isWinnable() || !solved
+                    || !wins(seed, config, depth, solver.getPlan())){
+                    mismatches++;
+                }
+            }
+            return mismatches;
+        }
+        finally{
+            System.setOut(out);
+        }
+    }
+
+    /**
+     * Put the painting lying in the chest of a game in new chests, one in
+     * another, the outermost of them in the chest.
+     *
+     * @param Game the game
+     * @param int the number of chests the painting ends up in, the chest of the game included
+     * @return Item return the painting
+     */
+    private static Item nest(Game game, int depth)
+    {
+        Container outer = null;
+        for(Room room : game.getRooms())
+        {
+            if(room.getItem("chest") != null){
+                outer = (Container)room.getItem("chest");
+            }
+        }
+        Item painting = outer.getContents().iterator().next();
+        for(int i = 0; i < depth - 1; i++)
+        {
+            Chest inner = new Chest(CHESTS[i], "A smaller chest.", 5);
+            outer.addItem(inner);
+            outer = inner;
+        }
+        outer.addItem(painting);    // taken out of the chest it was in
+        return painting;
+    }
+
+    /**
+     * Play the planned commands in a game like the one the plan was made for.
+     *
+     * @return boolean return TRUE if the player wins, FALSE otherwise
+     */
+    private static boolean wins(int seed, GameConfig config, int depth, ArrayList<String> plan)
+    {
+        ArrayList<String> commands = new ArrayList<>(plan);
+        commands.add("quit");
+        Game game = new Game(seed, config, new CannedInput(commands.toArray(new String[0])));
+        nest(game, depth);
+        for(int turn = 0; turn < commands.size(); turn++)
+        {
+            if(game.playTurn()){
+                break;
+            }
+        }
+        Player player = game.getPlayer();
+        return player.getCurrentRoom() == game.getRooms().get(0) && player.carriesAllTargets();
+    }
+
+    /**
+     * @return String return the line of the report, failing the check if anything differs
+     */
+    private String report(String name, int mismatches)
+    {
+        failed |= mismatches > 0;
+        return String.format("%-36s %10d  %s", name, mismatches, mismatches == 0 ? "PASS" : "FAIL");
+    }
+}
@@ -0,0 +1,337 @@
+import java.util.Arrays;
+
+/**
+ * Class WorldValidator is a part of "Operation Wawel" application.
+ * It checks that a world can be won: that every piece of artwork can be
+ * reached, given which doors are locked and where the keys opening them
+ * lie, that the player can carry all of it at once on top of what they
+ * carry already, and that there is a way back to the starting room.
+ *
+ * The check is a single breadth-first search through the rooms that takes
+ * keys into account, by the rules of the game: a locked door opens once
+ * one of its rooms is reached and all the keys it needs have been found
+ * (see WorldMap.getExitKeys(...)). The search keeps two lists of work: the
+ * rooms reached and not searched yet, and the items found and not picked
+ * up yet, which are picked up first. A locked door the keys found do not
+ * open is put aside; whenever a new key is found, the doors put aside are
+ * looked at again, and the search goes on through those it opens. Nothing
+ * calls itself, so the depth of the building does not matter. There are
+ * at most 64 keys, so every room, door and item is handled a bounded
+ * number of times, and even worlds with hundreds of thousands of rooms are
+ * checked in milliseconds.
+ *
+ * The weight is checked before the search: the artwork and what the player
+ * carries from the start must not weigh more than can be carried, as the
+ * player never drops anything (see Solver). The keys picked up on the way
+ * are not counted, so a world passing the check may still be lost by a few
+ * units of weight; the Solver, which follows every item, finds that.
+ *
+ * Items carried by enemies are not counted as reachable.
+ *
+ * @author Kamil Kuzara
+ * @version 2018.11
+ */
+public class WorldValidator
+{
+    private WorldMap map;
+    private int roomCount;
+
+    private boolean[] reached;      // rooms the player can get to
+    private boolean[] doors;        // open doors, room * DIRECTION_COUNT + direction
+    private long keys;              // the keys found, as in DoorLocks
+    private int[] queue;            // rooms reached, in the order they were
+    private int tail;
+    private int[] found;            // items found and not picked up yet
+    private int foundCount;
+    private int[] waiting;          // locked doors of reached rooms the keys found do not open,
+    private int waitingCount;       // room * DIRECTION_COUNT + direction
+
+    private int[] firstItems;       // room -> first item lying in it, -1 if none
+    private int[] chestItems;       // chest -> first item stored in it, -1 if none
+    private int[] nextItems;        // item -> next item in the same room or chest, -1 if none
+
+    private String problem;
+
+    /**
+     * Prepare the validator for the given world.
+     *
+     * @param WorldMap the world to check
+     */
+    public WorldValidator(WorldMap map)
+    {
+        this.map = map;
+        roomCount = map.getRoomCount();
+    }
+
+    /**
+     * Check if the world can be won.
+     *
+     * @return boolean return TRUE if the game can be won, FALSE otherwise
+     */
+    public boolean isWinnable()
+    {
+        problem = null;
+        reached = new boolean[roomCount];
+        doors = new boolean[roomCount * WorldMap.DIRECTION_COUNT];
+        keys = 0;
+        queue = new int[roomCount];
+        tail = 0;
+        found = new int[map.getItemCount()];
+        foundCount = 0;
+        waiting = new int[roomCount * WorldMap.DIRECTION_COUNT];
+        waitingCount = 0;
+        linkItems();
+
+        // the player sets off with what they carry, f.e. their gun
+        int requiredWeight = map.getCarriedWeight();
+        for(int item = 0; item < map.getItemCount(); item++)
+        {
+            if(map.isRequired(item) && map.getItemHolder(item) != WorldMap.PLAYER){
+                requiredWeight += map.getItemWeight(item);
+            }
+        }
+        if(requiredWeight > map.getMaxWeight()){
+            problem = "The artwork and the items carried weigh " + requiredWeight
+                      + ", more than can be carried.";
+            return false;
+        }
+
+        for(int door = 0; door < doors.length; door++)
+        {
+            doors[door] = map.isExitOpen(door / WorldMap.DIRECTION_COUNT, door % WorldMap.DIRECTION_COUNT);
+        }
+
+        // keys the player already carries, the contents of their containers are found in them
+        for(int item = 0; item < map.getItemCount(); item++)
+        {
+            if(map.getItemHolder(item) == WorldMap.PLAYER && map.getItemChest(item) < 0){
+                found[foundCount++] = item;
+            }
+        }
+
+        reach(map.getPlayerRoom());
+        int head = 0;
+        while(foundCount > 0 || head < tail)
+        {
+            if(foundCount > 0){
+                collect(found[--foundCount]);   // the keys found may open doors to search through
+            }
+            else{
+                search(queue[head++]);
+            }
+        }
+
+        for(int item = 0; item < map.getItemCount(); item++)
+        {
+            if(map.isRequired(item) && !isReachable(item)){
+                problem = "The player cannot get to " + map.getItemName(item) + ".";
+                return false;
+            }
+        }
+        if(!canReturn()){
+            problem = "The player cannot get back to the starting room.";
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return String return the reason why the last checked world cannot be
+     *                  won, null if it can
+     */
+    public String getProblem()
+    {
+        return problem;
+    }
+
+    /**
+     * Link the items lying in every room and stored in every chest into lists.
+     */
+    private void linkItems()
+    {
+        int itemCount = map.getItemCount();
+        firstItems = new int[roomCount];
+        chestItems = new int[itemCount];
+        nextItems = new int[itemCount];
+        Arrays.fill(firstItems, -1);
+        Arrays.fill(chestItems, -1);
+        for(int item = itemCount - 1; item >= 0; item--)
+        {
+            if(map.getItemRoom(item) >= 0){
+                nextItems[item] = firstItems[map.getItemRoom(item)];
+                firstItems[map.getItemRoom(item)] = item;
+            }
+            else if(map.getItemChest(item) >= 0){
+                nextItems[item] = chestItems[map.getItemChest(item)];
+                chestItems[map.getItemChest(item)] = item;
+            }
+        }
+    }
+
+    /**
+     * Add a room to the rooms to search, unless it has been reached already.
+     */
+    private void reach(int room)
+    {
+        if(!reached[room]){
+            reached[room] = true;
+            queue[tail++] = room;
+        }
+    }
+
+    /**
+     * Search a reached room: find everything lying in it, and go through
+     * its open doors and the locked ones the keys found open. The locked
+     * doors the keys do not open yet are put aside.
+     */
+    private void search(int room)
+    {
+        for(int item = firstItems[room]; item >= 0; item = nextItems[item])
+        {
+            found[foundCount++] = item;
+        }
+        for(int direction = 0; direction < WorldMap.DIRECTION_COUNT; direction++)
+        {
+            int next = map.getExit(room, direction);
+            int door = room * WorldMap.DIRECTION_COUNT + direction;
+            if(next < 0){
+                continue;
+            }
+            if(doors[door]){
+                reach(next);
+            }
+            else if(map.getExitKeys(room, direction) != 0){
+                if(!unlock(door)){
+                    waiting[waitingCount++] = door;
+                }
+            }
+        }
+    }
+
+    /**
+     * Pick up an item: remember a key, and find the contents of a chest or
+     * other container. A new key opens the doors put aside that it completes.
+     */
+    private void collect(int item)
+    {
+        long key = map.getKeyMask(item);
+        if((keys & key) != key){
+            keys |= key;
+            int left = 0;
+            for(int i = 0; i < waitingCount; i++)
+            {
+                if(!unlock(waiting[i])){
+                    waiting[left++] = waiting[i];
+                }
+            }
+            waitingCount = left;
+        }
+        for(int content = chestItems[item]; content >= 0; content = nextItems[content])
+        {
+            found[foundCount++] = content;
+        }
+    }
+
+    /**
+     * Open a locked door of a reached room, and the door on the other side
+     * of it, if the keys found include all it needs, and add the room
+     * behind it to the rooms to search.
+     *
+     * @param int the door, room * DIRECTION_COUNT + direction
+     * @return boolean return TRUE if the door is open, FALSE otherwise
+     */
+    private boolean unlock(int door)
+    {
+        int room = door / WorldMap.DIRECTION_COUNT;
+        int direction = door % WorldMap.DIRECTION_COUNT;
+        if((map.getExitKeys(room, direction) & ~keys) != 0){
+            return false;
+        }
+        int next = map.getExit(room, direction);
+        doors[door] = true;
+        if(map.getExit(next, direction ^ 1) == room){
+            doors[next * WorldMap.DIRECTION_COUNT + (direction ^ 1)] = true;
+        }
+        reach(next);
+        return true;
+    }
+
+    /**
+     * Check if the item lies in a reached room, in a chest in one, however
+     * deep, or is carried by the player.
+     */
+    private boolean isReachable(int item)
+    {
+        if(map.getItemHolder(item) == WorldMap.PLAYER){
+            return true;
+        }
+        int room = roomOf(item);
+        return room >= 0 && reached[room];
+    }
+
+    /**
+     * @return int return the room the item lies in, or the chests storing
+     *              it, however deep, -1 if none
+     */
+    private int roomOf(int item)
+    {
+        while(map.getItemChest(item) >= 0)
+        {
+            item = map.getItemChest(item);
+        }
+        return map.getItemRoom(item);
+    }
+
+    /**
+     * Check that the starting room can be reached, with all the doors
+     * the keys open, from every room that holds artwork or the player.
+     * Searches backwards from the starting room.
+     */
+    private boolean canReturn()
+    {
+        // for every room, the rooms with an open door leading into it
+        int doorCount = roomCount * WorldMap.DIRECTION_COUNT;
+        int[] firstIn = new int[roomCount];
+        int[] nextIn = new int[doorCount];
+        Arrays.fill(firstIn, -1);
+        for(int door = 0; door < doorCount; door++)
+        {
+            int next = map.getExit(door / WorldMap.DIRECTION_COUNT, door % WorldMap.DIRECTION_COUNT);
+            if(next >= 0 && doors[door]){
+                nextIn[door] = firstIn[next];
+                firstIn[next] = door;
+            }
+        }
+
+        boolean[] returns = new boolean[roomCount];
+        int[] backQueue = new int[roomCount];
+        int backTail = 0;
+        returns[map.getStartRoom()] = true;
+        backQueue[backTail++] = map.getStartRoom();
+        for(int head = 0; head < backTail; head++)
+        {
+            for(int door = firstIn[backQueue[head]]; door >= 0; door = nextIn[door])
+            {
+                int room = door / WorldMap.DIRECTION_COUNT;
+                if(!returns[room]){
+                    returns[room] = true;
+                    backQueue[backTail++] = room;
+                }
+            }
+        }
+
+        if(!returns[map.getPlayerRoom()]){
+            return false;
+        }
+        for(int item = 0; item < map.getItemCount(); item++)
+        {
+            if(map.isRequired(item) && map.getItemHolder(item) != WorldMap.PLAYER){
+                int room = roomOf(item);
+                if(room < 0 || !returns[room]){
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}